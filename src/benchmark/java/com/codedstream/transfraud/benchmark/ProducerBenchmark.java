@@ -0,0 +1,253 @@
+package com.codedstream.transfraud.benchmark;
+
+import com.codedstream.transfraud.CodedStreamTransfraudApplication;
+import com.codedstream.transfraud.service.AvroTransactionGeneratorService;
+import com.codedstream.transfraud.service.KafkaProducerService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * End-to-end throughput benchmark: starts the whole service against an embedded Kafka broker and
+ * sweeps a matrix of producer settings and bulk worker counts.
+ * <p>
+ * Each producer configuration ({@code batch.size} x {@code linger.ms} x {@code compression.type}
+ * x {@code acks}) gets a fresh application context; within it every worker count first runs a
+ * warm-up, then {@code benchmark.events} transactions split over that many threads calling
+ * {@link AvroTransactionGeneratorService#generateAndSendMultipleTransactions(int)}. A run ends when
+ * every record is acknowledged. Reported per run: events per second from the first send to the
+ * last ack, and ack-latency percentiles from hand-off to the producer until acknowledgement.
+ * <p>
+ * Results go to {@code benchmark.output} as CSV and JSON, labelled with {@code benchmark.label}
+ * (the current git commit by default) so runs can be compared across commits. Every setting is
+ * a system property; lists are comma-separated. Run with
+ * {@code mvn -Pbenchmark compile exec:java}.
+ */
+@Slf4j
+public final class ProducerBenchmark {
+
+    private static final String TOPIC = "benchmark-transactions";
+    private static final List<String> CSV_COLUMNS = Arrays.asList(
+            "label", "startedAt", "batchSize", "lingerMs", "compression", "acks", "workers", "events",
+            "seconds", "eventsPerSecond", "failures", "bytesPerRecord",
+            "ackP50Ms", "ackP90Ms", "ackP99Ms", "ackP999Ms", "ackMaxMs");
+
+    private final int events = Integer.getInteger("benchmark.events", 200_000);
+    private final int warmupEvents = Integer.getInteger("benchmark.warmup-events", 20_000);
+    private final int partitions = Integer.getInteger("benchmark.partitions", 6);
+    private final long ackTimeoutMs = Long.getLong("benchmark.ack-timeout-ms", 120_000L);
+    private final List<String> batchSizes = list("benchmark.batch-sizes", "16384,131072");
+    private final List<String> lingers = list("benchmark.linger-ms", "0,20");
+    private final List<String> compressions = list("benchmark.compression", "none,lz4,zstd");
+    private final List<String> acks = list("benchmark.acks", "1,all");
+    private final List<Integer> workerCounts = list("benchmark.workers", "1,4").stream()
+            .map(Integer::valueOf).collect(Collectors.toList());
+    private final Path output = Paths.get(System.getProperty("benchmark.output", "target/benchmark"));
+    private final String label = System.getProperty("benchmark.label", gitCommit());
+
+    public static void main(String[] args) throws Exception {
+        new ProducerBenchmark().run();
+    }
+
+    private void run() throws Exception {
+        EmbeddedKafkaBroker broker = new EmbeddedKafkaBroker(1, false, partitions, TOPIC)
+                .brokerProperty("auto.create.topics.enable", "true");
+        broker.afterPropertiesSet();
+        Path workDir = Files.createTempDirectory("transfraud-benchmark");
+        List<Map<String, Object>> results = new ArrayList<>();
+        try {
+            for (String batchSize : batchSizes) {
+                for (String linger : lingers) {
+                    for (String compression : compressions) {
+                        for (String ack : acks) {
+                            results.addAll(runConfiguration(broker.getBrokersAsString(), workDir,
+                                    batchSize, linger, compression, ack));
+                            // Written after every configuration, so an aborted sweep keeps what it measured
+                            writeReports(results);
+                        }
+                    }
+                }
+            }
+        } finally {
+            broker.destroy();
+        }
+        log.info("Benchmark finished: {} runs written to {}", results.size(), output.toAbsolutePath());
+    }
+
+    private List<Map<String, Object>> runConfiguration(String brokers, Path workDir, String batchSize,
+                                                       String linger, String compression, String ack) throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.kafka.bootstrap-servers", brokers);
+        properties.put("spring.kafka.producer.properties.schema.registry.url", "mock://benchmark");
+        properties.put("spring.kafka.producer.properties.batch.size", batchSize);
+        properties.put("spring.kafka.producer.properties.linger.ms", linger);
+        properties.put("spring.kafka.producer.properties.compression.type", compression);
+        properties.put("spring.kafka.producer.properties.acks", ack);
+        // Idempotence requires acks=all
+        properties.put("spring.kafka.producer.properties.enable.idempotence", String.valueOf("all".equals(ack)));
+        properties.put("app.kafka.topics.transactions", TOPIC);
+        properties.put("app.sink.type", "kafka");
+        properties.put("app.population.mode", "procedural");
+        properties.put("app.population.procedural.customers", 1_000_000);
+        properties.put("app.avro.generator.bulk-pause-ms", 0);
+        properties.put("app.avro.generator.max-bulk-size", Math.max(events, warmupEvents));
+        // Keep the scheduled trickle and snapshot/checkpoint files out of the measurement
+        properties.put("app.data.generation.transaction-interval-ms", 86_400_000);
+        properties.put("app.data.snapshot.import-on-startup", false);
+        properties.put("app.generator.checkpoint.path", workDir.resolve("generator.checkpoint").toString());
+        properties.put("app.ids.allocation-path", workDir.resolve("identity.hwm").toString());
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CodedStreamTransfraudApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties)
+                .run()) {
+            AvroTransactionGeneratorService generator = context.getBean(AvroTransactionGeneratorService.class);
+            KafkaProducerService producer = context.getBean(KafkaProducerService.class);
+            for (int workers : workerCounts) {
+                send(generator, producer, warmupEvents, workers);
+                producer.resetThroughputStats();
+
+                long start = System.nanoTime();
+                send(generator, producer, events, workers);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                Map<String, Object> report = producer.getThroughputReport();
+                Map<String, Object> plain = nested(report, "plain");
+                Map<String, Object> latency = nested(report, "plainAckLatency");
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("label", label);
+                row.put("startedAt", Instant.now().toString());
+                row.put("batchSize", Integer.valueOf(batchSize));
+                row.put("lingerMs", Integer.valueOf(linger));
+                row.put("compression", compression);
+                row.put("acks", ack);
+                row.put("workers", workers);
+                row.put("events", events);
+                row.put("seconds", Math.round(seconds * 1000) / 1000.0);
+                row.put("eventsPerSecond", Math.round(events / seconds));
+                row.put("failures", plain.get("failures"));
+                row.put("bytesPerRecord", plain.get("bytesPerRecord"));
+                row.put("ackP50Ms", millis(latency.get("p50Micros")));
+                row.put("ackP90Ms", millis(latency.get("p90Micros")));
+                row.put("ackP99Ms", millis(latency.get("p99Micros")));
+                row.put("ackP999Ms", millis(latency.get("p999Micros")));
+                row.put("ackMaxMs", millis(latency.get("maxMicros")));
+                rows.add(row);
+                log.info("Benchmark {}", row);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Generates {@code count} transactions over {@code workers} threads and waits until all of
+     * them are acknowledged or failed.
+     */
+    private void send(AvroTransactionGeneratorService generator, KafkaProducerService producer,
+                      int count, int workers) throws Exception {
+        long settledBefore = settled(producer);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                int share = count / workers + (i < count % workers ? 1 : 0);
+                futures.add(pool.submit(() -> share == 0 ? 0 : generator.generateAndSendMultipleTransactions(share)));
+            }
+            for (Future<Integer> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        producer.flush();
+
+        long deadline = System.currentTimeMillis() + ackTimeoutMs;
+        while (settled(producer) - settledBefore < count) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Only " + (settled(producer) - settledBefore) + " of " + count
+                        + " records were acknowledged within " + ackTimeoutMs + " ms");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static long settled(KafkaProducerService producer) {
+        Map<String, Object> plain = nested(producer.getThroughputReport(), "plain");
+        return ((Number) plain.get("records")).longValue() + ((Number) plain.get("failures")).longValue();
+    }
+
+    private void writeReports(List<Map<String, Object>> results) throws IOException {
+        Files.createDirectories(output);
+        try (PrintWriter csv = new PrintWriter(Files.newBufferedWriter(output.resolve("results-" + label + ".csv")))) {
+            csv.println(String.join(",", CSV_COLUMNS));
+            for (Map<String, Object> row : results) {
+                csv.println(CSV_COLUMNS.stream().map(column -> String.valueOf(row.get(column)))
+                        .collect(Collectors.joining(",")));
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", label);
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("events", events);
+        report.put("partitions", partitions);
+        report.put("results", results);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(output.resolve("results-" + label + ".json").toFile(), report);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> nested(Map<String, Object> report, String key) {
+        return (Map<String, Object>) report.get(key);
+    }
+
+    private static double millis(Object micros) {
+        return micros == null ? 0.0 : Math.round(((Number) micros).doubleValue()) / 1000.0;
+    }
+
+    private static List<String> list(String property, String defaultValue) {
+        return Arrays.stream(System.getProperty(property, defaultValue).split(","))
+                .map(String::trim).filter(value -> !value.isEmpty()).collect(Collectors.toList());
+    }
+
+    private static String gitCommit() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+                String commit = reader.readLine();
+                return git.waitFor() == 0 && commit != null ? commit.trim() : "local";
+            }
+        } catch (IOException e) {
+            return "local";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "local";
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.codedstream.transfraud;
 
+import com.codedstream.transfraud.service.AvroTransactionGeneratorService;
 import com.codedstream.transfraud.service.DataGeneratorService;
+import com.codedstream.transfraud.service.stream.GeneratorStreamScheduler;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -11,9 +13,15 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class CodedStreamTransfraudApplication implements CommandLineRunner {
 
     private final DataGeneratorService dataGeneratorService;
+    private final AvroTransactionGeneratorService avroTransactionGeneratorService;
+    private final GeneratorStreamScheduler generatorStreamScheduler;
 
-    public CodedStreamTransfraudApplication(DataGeneratorService dataGeneratorService) {
+    public CodedStreamTransfraudApplication(DataGeneratorService dataGeneratorService,
+                                            AvroTransactionGeneratorService avroTransactionGeneratorService,
+                                            GeneratorStreamScheduler generatorStreamScheduler) {
         this.dataGeneratorService = dataGeneratorService;
+        this.avroTransactionGeneratorService = avroTransactionGeneratorService;
+        this.generatorStreamScheduler = generatorStreamScheduler;
     }
 
     public static void main(String[] args) {
@@ -23,5 +31,9 @@ public class CodedStreamTransfraudApplication implements CommandLineRunner {
     @Override
     public void run(String... args) throws Exception {
         dataGeneratorService.initializeSampleData();
+        if (dataGeneratorService.isDataInitialized()) {
+            avroTransactionGeneratorService.resumeInterruptedBulkRun();
+            generatorStreamScheduler.start();
+        }
     }
 }
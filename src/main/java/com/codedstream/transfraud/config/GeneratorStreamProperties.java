@@ -0,0 +1,58 @@
+package com.codedstream.transfraud.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Independent generator streams run side by side in this instance ({@code app.streams}).
+ * Each stream writes to its own topic with its own profile and rate; all of them share the
+ * worker pool and the producer.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.streams")
+public class GeneratorStreamProperties {
+
+    private boolean enabled = false;
+
+    /** Worker threads shared by all streams. */
+    private int workers = 4;
+
+    /** Events generated and handed to the sink per scheduling decision. */
+    private int batchSize = 100;
+
+    /** Seconds of unused rate a stream may bank and spend as a burst. */
+    private double burstSeconds = 1.0;
+
+    private List<Definition> definitions = new ArrayList<>();
+
+    @Data
+    public static class Definition {
+
+        private String name;
+
+        private String topic;
+
+        /** Guaranteed rate; served ahead of any spare capacity. 0 makes the stream best-effort only. */
+        private double eventsPerSecond = 0;
+
+        /** Upper bound including spare capacity; 0 lets the stream take as much spare capacity as it can get. */
+        private double maxEventsPerSecond = 0;
+
+        /** Share of spare capacity relative to the other streams. */
+        private int weight = 1;
+
+        /** Home regions of the cardholders ({@code GeoRegion} names); empty means all regions. */
+        private List<String> regions = new ArrayList<>();
+
+        private double minAmount = 10.0;
+
+        private double maxAmount = 500.0;
+
+        private double onlineProbability = 0.4;
+    }
+}
@@ -4,8 +4,12 @@ import org.apache.kafka.clients.admin.NewTopic;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.config.TopicBuilder;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 @Configuration
 public class KafkaConfig {
 
@@ -15,10 +19,19 @@ public class KafkaConfig {
     @Value("${app.kafka.topics.fraud-alerts}")
     private String fraudAlertsTopic;
 
+    @Value("${app.kafka.topics.partitions:3}")
+    private int partitions;
+
+    @Value("${app.sink.kafka.format:record}")
+    private String outputFormat;
+
+    @Value("${app.sink.kafka.envelope-topic-suffix:-batches}")
+    private String envelopeTopicSuffix;
+
     @Bean
     public NewTopic transactionsTopic() {
         return TopicBuilder.name(transactionsTopic)
-                .partitions(3)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
@@ -26,8 +39,37 @@ public class KafkaConfig {
     @Bean
     public NewTopic fraudAlertsTopic() {
         return TopicBuilder.name(fraudAlertsTopic)
-                .partitions(3)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
+
+    @Bean
+    public KafkaAdmin.NewTopics streamTopics(GeneratorStreamProperties streamProperties) {
+        Set<String> topics = new LinkedHashSet<>();
+        if (streamProperties.isEnabled()) {
+            for (GeneratorStreamProperties.Definition definition : streamProperties.getDefinitions()) {
+                topics.add(definition.getTopic());
+            }
+        }
+        return new KafkaAdmin.NewTopics(topics.stream()
+                .map(topic -> TopicBuilder.name(topic).partitions(partitions).replicas(1).build())
+                .toArray(NewTopic[]::new));
+    }
+
+    @Bean
+    public KafkaAdmin.NewTopics envelopeTopics(GeneratorStreamProperties streamProperties) {
+        Set<String> topics = new LinkedHashSet<>();
+        if (!"record".equals(outputFormat)) {
+            topics.add(transactionsTopic + envelopeTopicSuffix);
+            if (streamProperties.isEnabled()) {
+                for (GeneratorStreamProperties.Definition definition : streamProperties.getDefinitions()) {
+                    topics.add(definition.getTopic() + envelopeTopicSuffix);
+                }
+            }
+        }
+        return new KafkaAdmin.NewTopics(topics.stream()
+                .map(topic -> TopicBuilder.name(topic).partitions(partitions).replicas(1).build())
+                .toArray(NewTopic[]::new));
+    }
 }
@@ -1,7 +1,12 @@
 package com.codedstream.transfraud.controller;
 
 import com.codedstream.transfraud.service.AvroTransactionGeneratorService;
+import com.codedstream.transfraud.service.CardBalanceLedger;
 import com.codedstream.transfraud.service.DataGeneratorService;
+import com.codedstream.transfraud.service.DisorderInjector;
+import com.codedstream.transfraud.service.GeneratorStateService;
+import com.codedstream.transfraud.service.KafkaProducerService;
+import com.codedstream.transfraud.service.ProducerBatchTuner;
 import com.codedstream.transfruad.library.schema.CardTransaction;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +24,11 @@ public class AvroTransactionController {
 
     private final AvroTransactionGeneratorService avroTransactionGeneratorService;
     private final DataGeneratorService dataGeneratorService;
+    private final KafkaProducerService kafkaProducerService;
+    private final GeneratorStateService generatorStateService;
+    private final DisorderInjector disorderInjector;
+    private final CardBalanceLedger cardBalanceLedger;
+    private final ProducerBatchTuner producerBatchTuner;
 
     @PostMapping("/random")
     public ResponseEntity<Map<String, Object>> generateRandomAvroTransaction() {
@@ -61,12 +71,18 @@ public class AvroTransactionController {
         }
 
         try {
-            avroTransactionGeneratorService.generateAndSendMultipleTransactions(count);
+            long start = System.nanoTime();
+            int acceptedCount = avroTransactionGeneratorService.generateAndSendMultipleTransactions(count);
+            long elapsedNanos = System.nanoTime() - start;
 
             Map<String, Object> response = new HashMap<>();
             response.put("status", "success");
             response.put("message", "Bulk Avro transactions generation completed");
             response.put("requestedCount", count);
+            response.put("acceptedCount", acceptedCount);
+            response.put("sink", avroTransactionGeneratorService.getTransactionSink().getName());
+            response.put("elapsedMs", elapsedNanos / 1_000_000);
+            response.put("eventsPerSecond", elapsedNanos == 0 ? 0 : Math.round(acceptedCount * 1e9 / elapsedNanos));
             response.put("timestamp", System.currentTimeMillis());
 
             return ResponseEntity.ok(response);
@@ -82,6 +98,87 @@ public class AvroTransactionController {
         }
     }
 
+    @GetMapping("/generator-state")
+    public ResponseEntity<Map<String, Object>> getGeneratorState() {
+        Map<String, Object> response = new HashMap<>(generatorStateService.getStats());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/disorder-stats")
+    public ResponseEntity<Map<String, Object>> getDisorderStats() {
+        Map<String, Object> response = new HashMap<>(disorderInjector.getStats());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/balance-stats")
+    public ResponseEntity<Map<String, Object>> getBalanceStats() {
+        Map<String, Object> response = new HashMap<>(cardBalanceLedger.getStats());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/balances/{cardId}")
+    public ResponseEntity<Map<String, Object>> getCardBalance(@PathVariable String cardId) {
+        Double balance = cardBalanceLedger.getAvailableBalance(cardId);
+        if (balance == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("cardId", cardId);
+        response.put("availableBalance", balance);
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/producer-stats")
+    public ResponseEntity<Map<String, Object>> getProducerStats() {
+        Map<String, Object> response = new HashMap<>(kafkaProducerService.getThroughputReport());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/producer-mode")
+    public ResponseEntity<Map<String, Object>> setProducerMode(
+            @RequestParam boolean transactional,
+            @RequestParam(defaultValue = "true") boolean resetStats) {
+        kafkaProducerService.setTransactionalMode(transactional);
+        if (resetStats) {
+            kafkaProducerService.resetThroughputStats();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("mode", transactional ? "transactional" : "plain");
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/producer-tuning")
+    public ResponseEntity<Map<String, Object>> getProducerTuning() {
+        Map<String, Object> response = new HashMap<>(producerBatchTuner.getStatus());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/producer-tuning")
+    public ResponseEntity<Map<String, Object>> setProducerTuningGoal(@RequestParam String goal) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            producerBatchTuner.setGoal(goal);
+            response.put("status", "success");
+            response.put("goal", goal);
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
         Map<String, Object> response = new HashMap<>();
@@ -90,6 +187,8 @@ public class AvroTransactionController {
         response.put("timestamp", System.currentTimeMillis());
         response.put("availableCards", dataGeneratorService.getActiveCardCount());
         response.put("totalCustomers", dataGeneratorService.getTotalCustomers());
+        response.put("sink", avroTransactionGeneratorService.getTransactionSink().getName());
+        response.put("sinkAcceptedCount", avroTransactionGeneratorService.getTransactionSink().getAcceptedCount());
 
         return ResponseEntity.ok(response);
     }
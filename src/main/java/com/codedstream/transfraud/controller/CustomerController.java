@@ -0,0 +1,57 @@
+package com.codedstream.transfraud.controller;
+
+import com.codedstream.transfraud.model.dto.CustomerSummary;
+import com.codedstream.transfraud.service.CustomerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/customers")
+@RequiredArgsConstructor
+public class CustomerController {
+
+    private final CustomerService customerService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getCustomers(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "false") boolean withCards) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<CustomerSummary> customers = customerService.getCustomers(after, limit, withCards);
+            response.put("customers", customers);
+            response.put("count", customers.size());
+            // Absent on the last page
+            if (customers.size() == limit) {
+                response.put("nextAfter", customers.get(customers.size() - 1).getId());
+            }
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CustomerSummary> getCustomer(@PathVariable String id) {
+        return customerService.getCustomerSummary(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>(customerService.getCacheStats());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,6 +1,8 @@
 package com.codedstream.transfraud.controller;
 
 import com.codedstream.transfraud.service.DataGeneratorService;
+import com.codedstream.transfraud.service.PopulationChurnService;
+import com.codedstream.transfraud.service.PopulationSnapshotService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,6 +16,7 @@ import java.util.Map;
 public class DataGeneratorController {
 
     private final DataGeneratorService dataGeneratorService;
+    private final PopulationChurnService populationChurnService;
 
     @PostMapping("/initialize")
     public ResponseEntity<Map<String, Object>> initializeData() {
@@ -27,6 +30,43 @@ public class DataGeneratorController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/snapshot/export")
+    public ResponseEntity<Map<String, Object>> exportSnapshot() {
+        PopulationSnapshotService.SnapshotStats stats = dataGeneratorService.exportPopulationSnapshot();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("status", "success");
+        response.put("message", "Population snapshot exported");
+        response.put("customers", stats.getCustomers());
+        response.put("cards", stats.getCards());
+        response.put("elapsedMs", stats.getElapsedMs());
+        response.put("timestamp", System.currentTimeMillis());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/population")
+    public ResponseEntity<Map<String, Object>> getPopulation() {
+        Map<String, Object> response = new HashMap<>(populationChurnService.getStats());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/population/cards/{cardIndex}")
+    public ResponseEntity<Map<String, Object>> getProceduralCard(@PathVariable long cardIndex) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.putAll(dataGeneratorService.describeProceduralCard(cardIndex));
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.ok(response);
+        } catch (IllegalStateException | IndexOutOfBoundsException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getStats() {
         Map<String, Object> stats = new HashMap<>();
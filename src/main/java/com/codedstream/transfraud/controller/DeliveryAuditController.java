@@ -0,0 +1,26 @@
+package com.codedstream.transfraud.controller;
+
+import com.codedstream.transfraud.service.audit.DeliveryAuditService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/delivery-audit")
+@RequiredArgsConstructor
+public class DeliveryAuditController {
+
+    private final DeliveryAuditService deliveryAuditService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getReport() {
+        Map<String, Object> response = new HashMap<>(deliveryAuditService.getReport());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+}
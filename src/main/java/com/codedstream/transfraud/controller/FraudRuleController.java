@@ -0,0 +1,26 @@
+package com.codedstream.transfraud.controller;
+
+import com.codedstream.transfraud.service.VelocityRuleEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/rules")
+@RequiredArgsConstructor
+public class FraudRuleController {
+
+    private final VelocityRuleEngine velocityRuleEngine;
+
+    @GetMapping("/velocity/stats")
+    public ResponseEntity<Map<String, Object>> getVelocityStats() {
+        Map<String, Object> response = new HashMap<>(velocityRuleEngine.getStats());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,46 @@
+package com.codedstream.transfraud.controller;
+
+import com.codedstream.transfraud.model.dto.GeneratorSettingsUpdate;
+import com.codedstream.transfraud.service.settings.GeneratorSettings;
+import com.codedstream.transfraud.service.settings.GeneratorSettingsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/generator/settings")
+@RequiredArgsConstructor
+public class GeneratorSettingsController {
+
+    private final GeneratorSettingsService generatorSettingsService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getSettings() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("settings", generatorSettingsService.describe(generatorSettingsService.current()));
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @PutMapping
+    public ResponseEntity<Map<String, Object>> updateSettings(@RequestBody GeneratorSettingsUpdate update) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            GeneratorSettings settings = generatorSettingsService.update(update);
+            response.put("status", "success");
+            response.put("settings", generatorSettingsService.describe(settings));
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,50 @@
+package com.codedstream.transfraud.controller;
+
+import com.codedstream.transfraud.service.stream.GeneratorStream;
+import com.codedstream.transfraud.service.stream.GeneratorStreamScheduler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/streams")
+@RequiredArgsConstructor
+public class GeneratorStreamController {
+
+    private final GeneratorStreamScheduler generatorStreamScheduler;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStreams() {
+        Map<String, Object> response = new HashMap<>(generatorStreamScheduler.getStats());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/{name}/rate")
+    public ResponseEntity<Map<String, Object>> setStreamRate(
+            @PathVariable String name,
+            @RequestParam double eventsPerSecond,
+            @RequestParam(defaultValue = "0") double maxEventsPerSecond) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            GeneratorStream stream = generatorStreamScheduler.getStream(name);
+            stream.setRates(eventsPerSecond, maxEventsPerSecond);
+            log.info("Stream {} rate set to {} events/s (max {})", name, eventsPerSecond, maxEventsPerSecond);
+
+            response.put("status", "success");
+            response.put("stream", stream.getStats());
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+}
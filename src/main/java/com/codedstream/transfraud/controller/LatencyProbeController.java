@@ -0,0 +1,42 @@
+package com.codedstream.transfraud.controller;
+
+import com.codedstream.transfraud.service.latency.LatencyProbeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/latency-probe")
+@RequiredArgsConstructor
+public class LatencyProbeController {
+
+    private final LatencyProbeService latencyProbeService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getLatency() {
+        Map<String, Object> response = new HashMap<>(latencyProbeService.getStats());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/reset")
+    public ResponseEntity<Map<String, Object>> reset() {
+        Map<String, Object> response = new HashMap<>();
+        if (!latencyProbeService.isEnabled()) {
+            response.put("status", "error");
+            response.put("message", "Latency probe is disabled; set app.latency-probe.enabled=true");
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.badRequest().body(response);
+        }
+        latencyProbeService.reset();
+        log.info("Latency probe histogram reset");
+        response.put("status", "success");
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+}
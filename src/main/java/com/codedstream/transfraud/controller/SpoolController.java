@@ -0,0 +1,41 @@
+package com.codedstream.transfraud.controller;
+
+import com.codedstream.transfraud.service.spool.SpoolReplayer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/spool")
+@RequiredArgsConstructor
+public class SpoolController {
+
+    private final SpoolReplayer spoolReplayer;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getSpool() {
+        Map<String, Object> response = new HashMap<>(spoolReplayer.getStats());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/catch-up-rate")
+    public ResponseEntity<Map<String, Object>> setCatchUpRate(@RequestParam double eventsPerSecond) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            spoolReplayer.setCatchUpRate(eventsPerSecond);
+            response.put("status", "success");
+            response.put("catchUpRate", eventsPerSecond);
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+}
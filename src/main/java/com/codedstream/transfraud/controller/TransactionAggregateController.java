@@ -0,0 +1,54 @@
+package com.codedstream.transfraud.controller;
+
+import com.codedstream.transfraud.model.dto.TransactionAggregateDto;
+import com.codedstream.transfraud.service.TransactionAggregateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/aggregates")
+@RequiredArgsConstructor
+public class TransactionAggregateController {
+
+    private final TransactionAggregateService transactionAggregateService;
+
+    @GetMapping("/cards/{cardId}")
+    public ResponseEntity<TransactionAggregateDto> getCardAggregate(@PathVariable String cardId) {
+        return transactionAggregateService.getCardAggregate(cardId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/customers/{customerId}")
+    public ResponseEntity<TransactionAggregateDto> getCustomerAggregate(@PathVariable String customerId) {
+        return transactionAggregateService.getCustomerAggregate(customerId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/cards/{cardId}/count")
+    public ResponseEntity<Map<String, Object>> countCardTransactions(
+            @PathVariable String cardId,
+            @RequestParam(defaultValue = "60") int minutes) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("cardId", cardId);
+        response.put("minutes", Math.min(minutes, 60));
+        response.put("transactionCount", transactionAggregateService.countCardTransactionsSince(cardId, minutes));
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("trackedCards", transactionAggregateService.getTrackedCards());
+        response.put("trackedCustomers", transactionAggregateService.getTrackedCustomers());
+        response.put("untracked", transactionAggregateService.getUntracked());
+        response.put("expired", transactionAggregateService.getExpired());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+}
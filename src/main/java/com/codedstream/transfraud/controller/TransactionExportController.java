@@ -0,0 +1,56 @@
+package com.codedstream.transfraud.controller;
+
+import com.codedstream.transfraud.service.TransactionExportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+public class TransactionExportController {
+
+    private final TransactionExportService transactionExportService;
+
+    /**
+     * Streams stored transactions in {@code [from, to)}, optionally for one card and above an
+     * amount, as NDJSON ({@code format=ndjson}, default) or an Avro container file
+     * ({@code format=avro}). Memory use does not depend on the size of the export.
+     */
+    @GetMapping("/transactions")
+    public ResponseEntity<?> exportTransactions(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cardId,
+            @RequestParam(required = false) Double minAmount,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        TransactionExportService.Format exportFormat;
+        try {
+            exportFormat = TransactionExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("status", "error");
+            response.put("message", "Unknown export format: " + format + " (expected ndjson or avro)");
+            response.put("timestamp", System.currentTimeMillis());
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        StreamingResponseBody body = out -> transactionExportService.export(from, to, cardId, minAmount, exportFormat, out);
+        boolean avro = exportFormat == TransactionExportService.Format.AVRO;
+        return ResponseEntity.ok()
+                .contentType(avro ? MediaType.APPLICATION_OCTET_STREAM : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"transactions." + (avro ? "avro" : "ndjson") + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,23 @@
+package com.codedstream.transfraud.model.dto;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, immutable customer projection for the customer directory: selected column by column,
+ * so loading it never touches the card collection, and safe to share from the cache.
+ */
+@Value
+public class CustomerSummary {
+    String id;
+    String firstName;
+    String lastName;
+    String email;
+    String phoneNumber;
+    String city;
+    String state;
+    Double latitude;
+    Double longitude;
+    LocalDateTime createdAt;
+}
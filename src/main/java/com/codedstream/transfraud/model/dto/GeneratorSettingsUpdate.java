@@ -0,0 +1,27 @@
+package com.codedstream.transfraud.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Partial update of the generator settings; {@code null} fields keep their current value.
+ * An empty {@code categoryWeights} map restores the catalogue's natural category mix.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GeneratorSettingsUpdate {
+    private Double onlineProbability;
+    private Double minAmount;
+    private Double maxAmount;
+    private Double travelProbability;
+    private Map<String, Double> categoryWeights;
+    private Double scheduledEventsPerSecond;
+    private Long bulkPauseMs;
+    private Integer streamWorkers;
+}
@@ -0,0 +1,31 @@
+package com.codedstream.transfraud.model.dto;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransactionAggregateDto {
+    private String id;
+    private String scope;
+    private long transactionCount;
+    private double amountSum;
+    private double averageAmount;
+    private double minAmount;
+    private double maxAmount;
+    private long firstTransactionTimestamp;
+    private long lastTransactionTimestamp;
+    private Map<String, WindowDto> windows;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class WindowDto {
+        private long transactionCount;
+        private double amountSum;
+    }
+}
@@ -6,7 +6,11 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // Keyset pagination of exports: (timestamp, id), optionally within one card
+        @Index(name = "idx_transactions_timestamp_id", columnList = "transactionTimestamp, id"),
+        @Index(name = "idx_transactions_card_timestamp", columnList = "card_id, transactionTimestamp, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
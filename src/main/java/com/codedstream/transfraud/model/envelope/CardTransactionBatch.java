@@ -0,0 +1,106 @@
+package com.codedstream.transfraud.model.envelope;
+
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import org.apache.avro.Schema;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Envelope record ({@code avro/card-transaction-batch.avsc}) carrying many {@link CardTransaction}s
+ * in one Kafka message. Written as a specific record so the serializer encodes the nested
+ * transactions with their generated classes, enums included. Declines are listed by position,
+ * as they are a small share of the transactions.
+ */
+public class CardTransactionBatch extends SpecificRecordBase {
+
+    public static final Schema SCHEMA$ = loadSchema();
+
+    private CharSequence batchId;
+    private int instanceId;
+    private long createdAt;
+    private List<CardTransaction> transactions;
+    private List<Integer> declined;
+
+    public CardTransactionBatch() {
+    }
+
+    public CardTransactionBatch(String batchId, int instanceId, long createdAt, List<CardTransaction> transactions,
+                                List<Integer> declined) {
+        this.batchId = batchId;
+        this.instanceId = instanceId;
+        this.createdAt = createdAt;
+        this.transactions = transactions;
+        this.declined = declined;
+    }
+
+    public static Schema getClassSchema() {
+        return SCHEMA$;
+    }
+
+    @Override
+    public Schema getSchema() {
+        return SCHEMA$;
+    }
+
+    @Override
+    public Object get(int field) {
+        switch (field) {
+            case 0: return batchId;
+            case 1: return instanceId;
+            case 2: return createdAt;
+            case 3: return transactions;
+            case 4: return getDeclined();
+            default: throw new IndexOutOfBoundsException("Invalid field index: " + field);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void put(int field, Object value) {
+        switch (field) {
+            case 0: batchId = (CharSequence) value; break;
+            case 1: instanceId = (Integer) value; break;
+            case 2: createdAt = (Long) value; break;
+            case 3: transactions = (List<CardTransaction>) value; break;
+            case 4: declined = (List<Integer>) value; break;
+            default: throw new IndexOutOfBoundsException("Invalid field index: " + field);
+        }
+    }
+
+    public CharSequence getBatchId() {
+        return batchId;
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<CardTransaction> getTransactions() {
+        return transactions == null ? Collections.emptyList() : transactions;
+    }
+
+    public List<Integer> getDeclined() {
+        return declined == null ? Collections.emptyList() : declined;
+    }
+
+    private static Schema loadSchema() {
+        try (InputStream in = new ClassPathResource("avro/card-transaction-batch.avsc").getInputStream()) {
+            Schema transaction = CardTransaction.getClassSchema();
+            return new Schema.Parser()
+                    .addTypes(Collections.singletonMap(transaction.getFullName(), transaction))
+                    .parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load avro/card-transaction-batch.avsc", e);
+        }
+    }
+}
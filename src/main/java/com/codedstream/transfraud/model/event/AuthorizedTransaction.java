@@ -0,0 +1,28 @@
+package com.codedstream.transfraud.model.event;
+
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import lombok.Value;
+
+/**
+ * A generated transaction together with its authorisation outcome against the card's balance.
+ * <p>
+ * The {@code CardTransaction} schema has no status field, so the outcome travels beside the
+ * record from the generator to the sink, which writes it wherever its format allows.
+ */
+@Value
+public class AuthorizedTransaction {
+
+    public static final String APPROVED = "APPROVED";
+    public static final String DECLINED = "DECLINED";
+
+    CardTransaction transaction;
+    boolean declined;
+
+    public static AuthorizedTransaction approved(CardTransaction transaction) {
+        return new AuthorizedTransaction(transaction, false);
+    }
+
+    public String getStatus() {
+        return declined ? DECLINED : APPROVED;
+    }
+}
@@ -0,0 +1,58 @@
+package com.codedstream.transfraud.model.geo;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Metro areas that customers live in and merchants are placed around.
+ * Coordinates are the city centres; populations are scattered around them.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum GeoRegion {
+    NEW_YORK("New York", "NY", 40.7128, -74.0060),
+    LOS_ANGELES("Los Angeles", "CA", 34.0522, -118.2437),
+    CHICAGO("Chicago", "IL", 41.8781, -87.6298),
+    HOUSTON("Houston", "TX", 29.7604, -95.3698),
+    PHOENIX("Phoenix", "AZ", 33.4484, -112.0740),
+    PHILADELPHIA("Philadelphia", "PA", 39.9526, -75.1652),
+    SAN_ANTONIO("San Antonio", "TX", 29.4241, -98.4936),
+    SAN_DIEGO("San Diego", "CA", 32.7157, -117.1611),
+    DALLAS("Dallas", "TX", 32.7767, -96.7970),
+    SAN_JOSE("San Jose", "CA", 37.3382, -121.8863),
+    MIAMI("Miami", "FL", 25.7617, -80.1918);
+
+    private final String city;
+    private final String state;
+    private final double latitude;
+    private final double longitude;
+
+    private static final GeoRegion[] VALUES = values();
+
+    public static GeoRegion byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+
+    /**
+     * Closest region centre by squared equirectangular distance; only {@link #count()} comparisons.
+     */
+    public static GeoRegion nearest(double latitude, double longitude) {
+        GeoRegion nearest = VALUES[0];
+        double best = Double.MAX_VALUE;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        for (GeoRegion region : VALUES) {
+            double dLat = region.latitude - latitude;
+            double dLon = (region.longitude - longitude) * cosLat;
+            double distance = dLat * dLat + dLon * dLon;
+            if (distance < best) {
+                best = distance;
+                nearest = region;
+            }
+        }
+        return nearest;
+    }
+}
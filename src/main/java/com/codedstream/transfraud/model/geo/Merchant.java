@@ -0,0 +1,16 @@
+package com.codedstream.transfraud.model.geo;
+
+import lombok.Value;
+
+/**
+ * Immutable merchant with a fixed physical location, held by the merchant spatial index.
+ */
+@Value
+public class Merchant {
+    String id;
+    String name;
+    String category;
+    double latitude;
+    double longitude;
+    GeoRegion region;
+}
@@ -0,0 +1,57 @@
+package com.codedstream.transfraud.model.population;
+
+import com.codedstream.transfraud.model.geo.GeoRegion;
+import lombok.Value;
+
+/**
+ * Immutable, detached view of an active card and its holder's home location: everything the
+ * generator needs per event, without touching JPA entities or lazy associations.
+ */
+@Value
+public class CardProfile {
+    String cardId;
+    String customerId;
+    String cardType;
+    double creditLimit;
+    double availableBalance;
+    double homeLatitude;
+    double homeLongitude;
+    GeoRegion homeRegion;
+
+    /**
+     * JPQL constructor expression target; a missing home location falls back to the first region.
+     */
+    public CardProfile(String cardId, String customerId, String cardType, Double creditLimit,
+                       Double availableBalance, Double homeLatitude, Double homeLongitude) {
+        this.cardId = cardId;
+        this.customerId = customerId;
+        this.cardType = cardType;
+        this.creditLimit = creditLimit == null ? 0.0 : creditLimit;
+        this.availableBalance = availableBalance == null ? this.creditLimit : availableBalance;
+        if (homeLatitude == null || homeLongitude == null) {
+            GeoRegion fallback = GeoRegion.byOrdinal(0);
+            this.homeLatitude = fallback.getLatitude();
+            this.homeLongitude = fallback.getLongitude();
+            this.homeRegion = fallback;
+        } else {
+            this.homeLatitude = homeLatitude;
+            this.homeLongitude = homeLongitude;
+            this.homeRegion = GeoRegion.nearest(homeLatitude, homeLongitude);
+        }
+    }
+
+    /**
+     * For profiles whose home region is already known, skipping the nearest-region search.
+     */
+    public CardProfile(String cardId, String customerId, String cardType, double creditLimit,
+                       double availableBalance, double homeLatitude, double homeLongitude, GeoRegion homeRegion) {
+        this.cardId = cardId;
+        this.customerId = customerId;
+        this.cardType = cardType;
+        this.creditLimit = creditLimit;
+        this.availableBalance = availableBalance;
+        this.homeLatitude = homeLatitude;
+        this.homeLongitude = homeLongitude;
+        this.homeRegion = homeRegion;
+    }
+}
@@ -0,0 +1,22 @@
+package com.codedstream.transfraud.model.population;
+
+import java.util.Random;
+
+/**
+ * The set of active cards generators draw from. Implementations are immutable once published,
+ * so generator threads read them without locking.
+ */
+public interface Population {
+
+    long size();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    long getVersion();
+
+    CardProfile get(long index);
+
+    CardProfile random(Random random);
+}
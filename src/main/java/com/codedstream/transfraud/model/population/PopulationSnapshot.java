@@ -0,0 +1,143 @@
+package com.codedstream.transfraud.model.population;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Immutable set of active cards, published to generator threads by reference swap.
+ * <p>
+ * Cards live in fixed-size chunks so that an {@link Editor} only copies the chunk table and the
+ * chunks it touches: blocking or issuing a card in a multi-million population copies a few
+ * kilobytes, not the whole population. Readers never lock; a snapshot never changes once built.
+ */
+public final class PopulationSnapshot implements Population {
+
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    public static final PopulationSnapshot EMPTY = new PopulationSnapshot(new CardProfile[0][], 0, 0);
+
+    private final CardProfile[][] chunks;
+    private final int size;
+    private final long version;
+
+    private PopulationSnapshot(CardProfile[][] chunks, int size, long version) {
+        this.chunks = chunks;
+        this.size = size;
+        this.version = version;
+    }
+
+    public static PopulationSnapshot of(List<CardProfile> cards, long version) {
+        int chunkCount = (cards.size() + CHUNK_SIZE - 1) >>> CHUNK_SHIFT;
+        CardProfile[][] chunks = new CardProfile[chunkCount][];
+        for (int c = 0; c < chunkCount; c++) {
+            int from = c << CHUNK_SHIFT;
+            int to = Math.min(from + CHUNK_SIZE, cards.size());
+            CardProfile[] chunk = new CardProfile[CHUNK_SIZE];
+            for (int i = from; i < to; i++) {
+                chunk[i - from] = cards.get(i);
+            }
+            chunks[c] = chunk;
+        }
+        return new PopulationSnapshot(chunks, cards.size(), version);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public CardProfile get(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Card index " + index + " outside population of " + size);
+        }
+        int position = (int) index;
+        return chunks[position >>> CHUNK_SHIFT][position & CHUNK_MASK];
+    }
+
+    @Override
+    public CardProfile random(Random random) {
+        return get(random.nextInt(size));
+    }
+
+    public Editor edit() {
+        return new Editor(this);
+    }
+
+    /**
+     * Copy-on-write builder for the next snapshot. Not thread-safe; use from one writer thread.
+     */
+    public static final class Editor {
+        private CardProfile[][] chunks;
+        private final boolean[] copied;
+        private int size;
+        private final long baseVersion;
+
+        private Editor(PopulationSnapshot base) {
+            this.chunks = Arrays.copyOf(base.chunks, base.chunks.length);
+            this.copied = new boolean[base.chunks.length];
+            this.size = base.size;
+            this.baseVersion = base.version;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public CardProfile get(int index) {
+            return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+        }
+
+        public void add(CardProfile card) {
+            int chunkIndex = size >>> CHUNK_SHIFT;
+            if (chunkIndex == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunks.length + 1);
+                chunks[chunkIndex] = new CardProfile[CHUNK_SIZE];
+            } else {
+                writable(chunkIndex);
+            }
+            chunks[chunkIndex][size & CHUNK_MASK] = card;
+            size++;
+        }
+
+        /**
+         * Removes the card at {@code index} by moving the last card into its slot.
+         *
+         * @return the removed card
+         */
+        public CardProfile remove(int index) {
+            CardProfile removed = get(index);
+            int last = size - 1;
+            CardProfile moved = get(last);
+            writable(index >>> CHUNK_SHIFT)[index & CHUNK_MASK] = moved;
+            writable(last >>> CHUNK_SHIFT)[last & CHUNK_MASK] = null;
+            size = last;
+            return removed;
+        }
+
+        public PopulationSnapshot build() {
+            return new PopulationSnapshot(chunks, size, baseVersion + 1);
+        }
+
+        private CardProfile[] writable(int chunkIndex) {
+            if (chunkIndex < copied.length && !copied[chunkIndex]) {
+                chunks[chunkIndex] = chunks[chunkIndex].clone();
+                copied[chunkIndex] = true;
+            }
+            return chunks[chunkIndex];
+        }
+    }
+}
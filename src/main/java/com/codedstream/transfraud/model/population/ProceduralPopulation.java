@@ -0,0 +1,207 @@
+package com.codedstream.transfraud.model.population;
+
+import com.codedstream.transfraud.model.dto.CardDto;
+import com.codedstream.transfraud.model.dto.CustomerDto;
+import com.codedstream.transfraud.model.geo.GeoRegion;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Storage-free population: every customer and card attribute is a pure function of
+ * {@code (seed, index)}, so picking a random card is picking a random integer and memory use is
+ * constant however many cards there are.
+ * <p>
+ * Card {@code i} belongs to customer {@code i / cardsPerCustomer}. Each attribute is drawn from
+ * its own SplitMix64 hash of the index, so deriving one field never requires deriving the others.
+ * Ids, emails and card numbers come from {@link UniqueIdentities}, so they are unique by
+ * construction for any population size.
+ */
+public final class ProceduralPopulation implements Population {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Michael", "Sarah", "David", "Lisa", "Robert", "Maria", "William", "Elizabeth", "James", "Jennifer", "Thomas", "Linda", "Christopher", "Susan", "Daniel", "Jessica", "Matthew", "Karen"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin"};
+
+    // Attribute salts; every field hashes the index with its own salt
+    private static final long FIRST_NAME = 2;
+    private static final long LAST_NAME = 3;
+    private static final long PHONE = 4;
+    private static final long STREET = 5;
+    private static final long REGION = 6;
+    private static final long ZIP = 7;
+    private static final long HOME_LAT = 8;
+    private static final long HOME_LON = 9;
+    private static final long CARD_TYPE = 21;
+    private static final long CREDIT_LIMIT = 22;
+    private static final long BALANCE = 23;
+    private static final long CVV = 25;
+
+    private final long seed;
+    private final long customerCount;
+    private final int cardsPerCustomer;
+    private final long size;
+    private final long version;
+    private final UniqueIdentities identities;
+    private final LocalDate expiryDate = LocalDate.now().plusYears(3);
+
+    public ProceduralPopulation(long seed, long customerCount, int cardsPerCustomer, long version) {
+        if (customerCount < 1 || cardsPerCustomer < 1) {
+            throw new IllegalArgumentException("A procedural population needs at least one customer and one card each");
+        }
+        this.seed = seed;
+        this.customerCount = customerCount;
+        this.cardsPerCustomer = cardsPerCustomer;
+        this.size = Math.multiplyExact(customerCount, (long) cardsPerCustomer);
+        this.version = version;
+        this.identities = new UniqueIdentities(seed);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    public long getCustomerCount() {
+        return customerCount;
+    }
+
+    public long customerIndexOf(long cardIndex) {
+        checkCardIndex(cardIndex);
+        return cardIndex / cardsPerCustomer;
+    }
+
+    @Override
+    public CardProfile get(long index) {
+        checkCardIndex(index);
+        long customer = index / cardsPerCustomer;
+        GeoRegion region = homeRegion(customer);
+        return new CardProfile(
+                identities.cardId(index),
+                identities.customerId(customer),
+                cardType(index),
+                creditLimit(index),
+                availableBalance(index),
+                region.getLatitude() + gaussian(HOME_LAT, customer) * 0.15,
+                region.getLongitude() + gaussian(HOME_LON, customer) * 0.15,
+                region);
+    }
+
+    @Override
+    public CardProfile random(Random random) {
+        return get(size <= Integer.MAX_VALUE ? random.nextInt((int) size) : (long) (random.nextDouble() * size));
+    }
+
+    public CustomerDto customer(long customerIndex) {
+        if (customerIndex < 0 || customerIndex >= customerCount) {
+            throw new IndexOutOfBoundsException("Customer index " + customerIndex + " outside population of " + customerCount);
+        }
+        String firstName = firstName(customerIndex);
+        String lastName = lastName(customerIndex);
+        GeoRegion region = homeRegion(customerIndex);
+        long phone = hash(PHONE, customerIndex);
+        return CustomerDto.builder()
+                .id(identities.customerId(customerIndex))
+                .firstName(firstName)
+                .lastName(lastName)
+                .email(identities.email(customerIndex, firstName, lastName))
+                .phoneNumber(String.format("+1-%03d-%03d-%04d",
+                        (phone & 0xFFFFF) % 1000, ((phone >>> 20) & 0xFFFFF) % 1000, (phone >>> 40) % 10000))
+                .address(CustomerDto.AddressDto.builder()
+                        .street(bounded(hash(STREET, customerIndex), 1000) + " Main St")
+                        .city(region.getCity())
+                        .state(region.getState())
+                        .zipCode(String.format("%05d", bounded(hash(ZIP, customerIndex), 100000)))
+                        .country("USA")
+                        .latitude(region.getLatitude() + gaussian(HOME_LAT, customerIndex) * 0.15)
+                        .longitude(region.getLongitude() + gaussian(HOME_LON, customerIndex) * 0.15)
+                        .build())
+                .build();
+    }
+
+    public CardDto card(long index) {
+        checkCardIndex(index);
+        long customer = index / cardsPerCustomer;
+        String type = cardType(index);
+        return CardDto.builder()
+                .id(identities.cardId(index))
+                .cardNumber(identities.cardNumber(index, type))
+                .cardHolderName(firstName(customer) + " " + lastName(customer))
+                .expiryDate(expiryDate)
+                .cardType(type)
+                .creditLimit(creditLimit(index))
+                .availableBalance(availableBalance(index))
+                .isActive(true)
+                .customerId(identities.customerId(customer))
+                .build();
+    }
+
+    /**
+     * CVV of card {@code index}; kept out of {@link CardDto} like it is for stored cards.
+     */
+    public String cvv(long index) {
+        checkCardIndex(index);
+        return String.format("%03d", bounded(hash(CVV, index), 1000));
+    }
+
+    private void checkCardIndex(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Card index " + index + " outside population of " + size);
+        }
+    }
+
+    private GeoRegion homeRegion(long customer) {
+        return GeoRegion.byOrdinal(bounded(hash(REGION, customer), GeoRegion.count()));
+    }
+
+    private String firstName(long customer) {
+        return FIRST_NAMES[bounded(hash(FIRST_NAME, customer), FIRST_NAMES.length)];
+    }
+
+    private String lastName(long customer) {
+        return LAST_NAMES[bounded(hash(LAST_NAME, customer), LAST_NAMES.length)];
+    }
+
+    private String cardType(long card) {
+        return (hash(CARD_TYPE, card) & 1) == 0 ? "VISA" : "MASTERCARD";
+    }
+
+    private double creditLimit(long card) {
+        return 5000.0 + unit(CREDIT_LIMIT, card) * 10000;
+    }
+
+    private double availableBalance(long card) {
+        return 1000.0 + unit(BALANCE, card) * 4000;
+    }
+
+    private long hash(long salt, long index) {
+        return mix64(seed ^ mix64(salt * GOLDEN_GAMMA + index * 0xD1B54A32D192ED03L));
+    }
+
+    private double unit(long salt, long index) {
+        return (hash(salt, index) >>> 11) * 0x1.0p-53;
+    }
+
+    private double gaussian(long salt, long index) {
+        long bits = hash(salt, index);
+        double u1 = ((bits >>> 32) + 0.5) * 0x1.0p-32;
+        double u2 = (bits & 0xFFFFFFFFL) * 0x1.0p-32;
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+
+    private static int bounded(long bits, int bound) {
+        return (int) (((bits >>> 32) * bound) >>> 32);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,126 @@
+package com.codedstream.transfraud.model.population;
+
+import java.util.UUID;
+
+/**
+ * Derives customer and card identifiers from entity indexes, unique by construction.
+ * <p>
+ * Each identifier is a keyed {@link FeistelPermutation} of the index rendered in a fixed format,
+ * so distinct indexes can never collide and no set of issued values has to be kept or checked.
+ * It is O(1) in time and memory per entity however large the population:
+ * <ul>
+ *   <li>Ids are UUID-formatted; the high half is a bijection of the index.</li>
+ *   <li>Emails are {@code first.last.<token>@example.com} with an 8-character base-36 token,
+ *   unique for up to 36^8 (about 2.8 trillion) customers.</li>
+ *   <li>PANs are 16 digits with a Luhn check digit: VISA {@code 4} plus 14 digits, MASTERCARD
+ *   {@code 51}-{@code 55} plus 13. Unique per brand for up to 5 * 10^13 cards.</li>
+ * </ul>
+ * The same seed and index always give the same identifiers.
+ */
+public final class UniqueIdentities {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final int EMAIL_TOKEN_LENGTH = 8;
+    private static final long EMAIL_TOKENS = 2821109907456L; // 36^8
+    private static final long VISA_ACCOUNTS = 100_000_000_000_000L; // 14 digits
+    private static final long MASTERCARD_ACCOUNTS = 50_000_000_000_000L; // 51-55 and 13 digits
+    private static final long MASTERCARD_RANGE = 10_000_000_000_000L;
+
+    // Id salts, shared with the procedural population so both modes format ids alike
+    public static final long CUSTOMER_ID = 1;
+    public static final long CARD_ID = 20;
+
+    private final long seed;
+    private final FeistelPermutation emailTokens;
+    private final FeistelPermutation visaAccounts;
+    private final FeistelPermutation mastercardAccounts;
+
+    public UniqueIdentities(long seed) {
+        this.seed = seed;
+        this.emailTokens = new FeistelPermutation(EMAIL_TOKENS, seed ^ 0x454D41494CL);
+        this.visaAccounts = new FeistelPermutation(VISA_ACCOUNTS, seed ^ 0x56495341L);
+        this.mastercardAccounts = new FeistelPermutation(MASTERCARD_ACCOUNTS, seed ^ 0x4D435244L);
+    }
+
+    public String customerId(long index) {
+        return id(CUSTOMER_ID, index);
+    }
+
+    public String cardId(long index) {
+        return id(CARD_ID, index);
+    }
+
+    /**
+     * UUID-formatted id; the high half is a bijection of {@code index}, so ids with the same salt
+     * never collide. They carry no version bits, which would break that.
+     */
+    public String id(long salt, long index) {
+        long high = mix64(seed + salt * GOLDEN_GAMMA + index);
+        long low = mix64(seed ^ mix64((salt + 100) * GOLDEN_GAMMA + index * 0xD1B54A32D192ED03L));
+        return new UUID(high, low).toString();
+    }
+
+    public String email(long customerIndex, String firstName, String lastName) {
+        char[] token = new char[EMAIL_TOKEN_LENGTH];
+        long value = emailTokens.permute(customerIndex);
+        for (int i = EMAIL_TOKEN_LENGTH - 1; i >= 0; i--) {
+            token[i] = Character.forDigit((int) (value % 36), 36);
+            value /= 36;
+        }
+        return firstName.toLowerCase() + "." + lastName.toLowerCase() + "." + new String(token) + "@example.com";
+    }
+
+    /**
+     * 16-digit, Luhn-valid card number for card {@code cardIndex} of the given brand.
+     */
+    public String cardNumber(long cardIndex, String cardType) {
+        StringBuilder digits = new StringBuilder(16);
+        if ("MASTERCARD".equals(cardType)) {
+            long account = mastercardAccounts.permute(cardIndex);
+            digits.append('5').append(1 + account / MASTERCARD_RANGE);
+            appendPadded(digits, account % MASTERCARD_RANGE, 13);
+        } else {
+            digits.append('4');
+            appendPadded(digits, visaAccounts.permute(cardIndex), 14);
+        }
+        return digits.append(luhnCheckDigit(digits)).toString();
+    }
+
+    /**
+     * Check digit that makes {@code payload} followed by it pass the Luhn test.
+     */
+    public static int luhnCheckDigit(CharSequence payload) {
+        int sum = 0;
+        // Doubling starts from the rightmost payload digit, as the check digit will follow it
+        for (int i = payload.length() - 1, position = 0; i >= 0; i--, position++) {
+            int digit = payload.charAt(i) - '0';
+            if ((position & 1) == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    public static boolean isLuhnValid(CharSequence number) {
+        return number.length() > 1
+                && luhnCheckDigit(number.subSequence(0, number.length() - 1)) == number.charAt(number.length() - 1) - '0';
+    }
+
+    private static void appendPadded(StringBuilder out, long value, int width) {
+        String digits = Long.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            out.append('0');
+        }
+        out.append(digits);
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -1,10 +1,13 @@
 package com.codedstream.transfraud.repository;
 
 import com.codedstream.transfraud.model.entity.Card;
+import com.codedstream.transfraud.model.population.CardProfile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -16,6 +19,16 @@ public interface CardRepository extends JpaRepository<Card, String> {
 
     List<Card> findByIsActiveTrue();
 
+    @Query("SELECT new com.codedstream.transfraud.model.population.CardProfile(" +
+            "c.id, cu.id, c.cardType, c.creditLimit, c.availableBalance, cu.address.latitude, cu.address.longitude) " +
+            "FROM Card c JOIN c.customer cu WHERE c.isActive = true")
+    List<CardProfile> findActiveCardProfiles();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Card c SET c.isActive = false WHERE c.id = :cardId")
+    int deactivateCard(@Param("cardId") String cardId);
+
     Optional<Card> findByCardNumber(String cardNumber);
 
     @Query("SELECT COUNT(c) FROM Card c WHERE c.isActive = true")
@@ -1,8 +1,11 @@
 package com.codedstream.transfraud.repository;
 
+import com.codedstream.transfraud.model.dto.CustomerSummary;
 import com.codedstream.transfraud.model.entity.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,8 +15,21 @@ import java.util.Optional;
 public interface CustomerRepository extends JpaRepository<Customer, String> {
     Optional<Customer> findByEmail(String email);
 
-    @Query("SELECT c FROM Customer c WHERE SIZE(c.cards) > 0")
-    List<Customer> findCustomersWithCards();
+    String SUMMARY = "SELECT new com.codedstream.transfraud.model.dto.CustomerSummary(" +
+            "c.id, c.firstName, c.lastName, c.email, c.phoneNumber, c.address.city, c.address.state, " +
+            "c.address.latitude, c.address.longitude, c.createdAt) FROM Customer c ";
+
+    @Query(SUMMARY + "WHERE c.id = :id")
+    Optional<CustomerSummary> findSummaryById(@Param("id") String id);
+
+    /**
+     * Keyset page of customer summaries in id order, starting after {@code afterId}.
+     */
+    @Query(SUMMARY + "WHERE c.id > :afterId ORDER BY c.id")
+    List<CustomerSummary> findSummariesAfter(@Param("afterId") String afterId, Pageable page);
+
+    @Query(SUMMARY + "WHERE c.id > :afterId AND EXISTS (SELECT k.id FROM Card k WHERE k.customer = c) ORDER BY c.id")
+    List<CustomerSummary> findSummariesWithCardsAfter(@Param("afterId") String afterId, Pageable page);
 
     long countByAddressCity(String city);
 }
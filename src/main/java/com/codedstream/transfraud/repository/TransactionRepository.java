@@ -1,11 +1,15 @@
 package com.codedstream.transfraud.repository;
 
 import com.codedstream.transfraud.model.entity.Transaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -23,4 +27,31 @@ public interface TransactionRepository extends JpaRepository<Transaction, String
 
     @Query("SELECT t FROM Transaction t WHERE t.amount > :amountThreshold")
     List<Transaction> findLargeTransactions(@Param("amountThreshold") Double amountThreshold);
+
+    /**
+     * One keyset page of the export, ordered by {@code (transactionTimestamp, id)} and starting
+     * after {@code (afterTimestamp, afterId)}; the card and customer are fetched with it.
+     * Loaded read-only, so Hibernate keeps no dirty-checking snapshot of the rows.
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.card c JOIN FETCH c.customer " +
+            "WHERE t.transactionTimestamp >= :from AND t.transactionTimestamp < :to AND t.amount > :minAmount " +
+            "AND (t.transactionTimestamp > :afterTimestamp OR (t.transactionTimestamp = :afterTimestamp AND t.id > :afterId)) " +
+            "ORDER BY t.transactionTimestamp, t.id")
+    List<Transaction> findExportPage(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                     @Param("minAmount") Double minAmount,
+                                     @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                     @Param("afterId") String afterId, Pageable page);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.readOnly", value = "true"))
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.card c JOIN FETCH c.customer " +
+            "WHERE c.id = :cardId AND t.transactionTimestamp >= :from AND t.transactionTimestamp < :to " +
+            "AND t.amount > :minAmount " +
+            "AND (t.transactionTimestamp > :afterTimestamp OR (t.transactionTimestamp = :afterTimestamp AND t.id > :afterId)) " +
+            "ORDER BY t.transactionTimestamp, t.id")
+    List<Transaction> findCardExportPage(@Param("cardId") String cardId,
+                                         @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                         @Param("minAmount") Double minAmount,
+                                         @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                         @Param("afterId") String afterId, Pageable page);
 }
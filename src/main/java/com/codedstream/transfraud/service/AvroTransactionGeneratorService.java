@@ -1,27 +1,44 @@
 package com.codedstream.transfraud.service;
 
 import com.codedstream.transfruad.library.schema.CardTransaction;
-import com.codedstream.transfraud.model.entity.Card;
-import com.codedstream.transfraud.repository.CardRepository;
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import com.codedstream.transfraud.model.geo.GeoRegion;
+import com.codedstream.transfraud.model.geo.Merchant;
+import com.codedstream.transfraud.model.population.CardProfile;
+import com.codedstream.transfraud.model.population.Population;
+import com.codedstream.transfraud.service.id.TransactionIdGenerator;
+import com.codedstream.transfraud.service.settings.GeneratorSettings;
+import com.codedstream.transfraud.service.settings.GeneratorSettingsService;
+import com.codedstream.transfraud.service.sink.TransactionSink;
+import com.codedstream.transfraud.service.stream.StreamProfile;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class AvroTransactionGeneratorService {
 
-    private final CardRepository cardRepository;
-    private final KafkaProducerService kafkaProducerService;
+    private final PopulationRegistry populationRegistry;
+    private final GeneratorStateService generatorStateService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionSink transactionSink;
+    private final DisorderInjector disorderInjector;
+    private final MerchantGridIndex merchantGridIndex;
+    private final GeneratorSettingsService generatorSettingsService;
+    private final CardBalanceLedger cardBalanceLedger;
+    private final ObjectProvider<TransactionObserver> observerProvider;
     //private final RedisTemplate<String, Object> redisTemplate;
 
     @Value("${app.redis.enabled:false}")
@@ -30,87 +47,237 @@ public class AvroTransactionGeneratorService {
     @Value("${app.avro.generator.max-bulk-size:1000}")
     private int maxBulkSize;
 
-    private final Random random = new Random();
-    private final String[] MERCHANT_NAMES = {
-            "Amazon", "Walmart", "Starbucks", "Target", "Best Buy",
-            "McDonald's", "Apple Store", "Netflix", "Uber", "Shell Gas"
-    };
-    private final String[] MERCHANT_CATEGORIES = {
-            "RETAIL", "FOOD", "ENTERTAINMENT", "TRAVEL", "SERVICES", "UTILITIES"
-    };
-    private final String[] CITIES = {"New York", "Los Angeles", "Chicago", "Houston", "Miami"};
+    @Value("${app.sink.batch-size:10}")
+    private int sinkBatchSize;
+
+    // Rejection-sampling attempts before a regional stream substitutes an out-of-region cardholder
+    private static final int REGION_SAMPLING_ATTEMPTS = 32;
+
+    private List<TransactionObserver> observers;
+
     private final String[] DEVICE_TYPES = {"MOBILE", "DESKTOP", "TABLET"};
 
-    public CardTransaction generateRandomAvroTransaction() {
-        List<Card> activeCards = cardRepository.findByIsActiveTrue();
-        if (activeCards.isEmpty()) {
-            throw new IllegalStateException("No active cards available for transaction generation");
-        }
+    @PostConstruct
+    public void resolveObservers() {
+        observers = observerProvider.orderedStream().collect(Collectors.toList());
+        log.info("Transaction observers: {}", observers.stream()
+                .map(observer -> observer.getClass().getSimpleName()).collect(Collectors.toList()));
+    }
 
-        Card randomCard = activeCards.get(random.nextInt(activeCards.size()));
-        return createRandomAvroTransaction(randomCard);
+    public CardTransaction generateRandomAvroTransaction() {
+        GeneratorSettings settings = generatorSettingsService.current();
+        return createRandomAvroTransaction(settings.defaultProfile(), settings).getTransaction();
     }
 
     public void generateAndSendRandomTransaction() {
         try {
-            CardTransaction avroTransaction = generateRandomAvroTransaction();
-            kafkaProducerService.sendTransaction(avroTransaction);
+            GeneratorSettings settings = generatorSettingsService.current();
+            AuthorizedTransaction avroTransaction = createRandomAvroTransaction(settings.defaultProfile(), settings);
+            notifyObservers(avroTransaction);
+            dispatch(null, Collections.singletonList(avroTransaction));
 
             // Only update Redis cache if enabled
 //            if (redisEnabled) {
 //                updateTransactionCache(avroTransaction);
 //            }
 
-            log.debug("Generated and sent Avro transaction: {}", avroTransaction.getTransactionId());
+            log.debug("Generated and sent Avro transaction: {}", avroTransaction.getTransaction().getTransactionId());
         } catch (Exception e) {
             log.error("Error generating Avro transaction: {}", e.getMessage());
             throw new RuntimeException("Failed to generate Avro transaction", e);
         }
     }
 
-    public void generateAndSendMultipleTransactions(int count) {
+    /**
+     * Generates {@code count} transactions and hands them to the sink in batches of
+     * {@code app.sink.batch-size}. The active card list is loaded once per call.
+     *
+     * @return number of transactions accepted by the sink
+     */
+    public int generateAndSendMultipleTransactions(int count) {
         if (count <= 0 || count > maxBulkSize) {
             throw new IllegalArgumentException("Count must be between 1 and " + maxBulkSize);
         }
 
         log.info("Generating {} random Avro transactions", count);
+        generatorStateService.bulkRequested(count);
+        List<AuthorizedTransaction> batch = new ArrayList<>(sinkBatchSize);
         int successCount = 0;
+        int progressed = 0;
 
         for (int i = 0; i < count; i++) {
+            // Read per event, so a settings change applies part way through a long run
+            GeneratorSettings settings = generatorSettingsService.current();
             try {
-                CardTransaction avroTransaction = generateRandomAvroTransaction();
-                kafkaProducerService.sendTransaction(avroTransaction);
-
-                // Only update Redis cache if enabled
-//                if (redisEnabled) {
-//                    updateTransactionCache(avroTransaction);
-//                }
+                AuthorizedTransaction avroTransaction = createRandomAvroTransaction(settings.defaultProfile(), settings);
+                notifyObservers(avroTransaction);
+                batch.add(avroTransaction);
+            } catch (Exception e) {
+                log.error("Error generating transaction {} of {}: {}", i + 1, count, e.getMessage());
+            }
 
-                successCount++;
+            if (batch.size() >= sinkBatchSize || i == count - 1) {
+                successCount += emit(batch);
+                generatorStateService.bulkProgressed(i + 1 - progressed);
+                progressed = i + 1;
 
                 // Small delay to avoid overwhelming the system
-                if (i % 10 == 0) {
-                    Thread.sleep(50);
+                if (settings.getBulkPauseMs() > 0 && i < count - 1) {
+                    try {
+                        Thread.sleep(settings.getBulkPauseMs());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
                 }
-            } catch (Exception e) {
-                log.error("Error generating transaction {} of {}: {}", i + 1, count, e.getMessage());
             }
         }
 
+        // Interrupted runs leave their remainder outstanding for resumption after a restart
         log.info("Successfully generated {} out of {} Avro transactions", successCount, count);
+        return successCount;
     }
 
-    private CardTransaction createRandomAvroTransaction(Card card) {
-        String transactionId = UUID.randomUUID().toString();
-        double amount = 10.0 + (random.nextDouble() * 490);
-        boolean isOnline = random.nextDouble() < 0.4;
-        String merchantCategory = MERCHANT_CATEGORIES[random.nextInt(MERCHANT_CATEGORIES.length)];
+    /**
+     * Generates one batch of a configured stream and hands it to the sink for {@code topic}.
+     * Called by the stream scheduler's workers; rate control happens there.
+     *
+     * @return number of transactions accepted by the sink
+     */
+    public int generateStreamBatch(String topic, StreamProfile profile, int count) {
+        GeneratorSettings settings = generatorSettingsService.current();
+        List<AuthorizedTransaction> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            AuthorizedTransaction avroTransaction = createRandomAvroTransaction(profile, settings);
+            notifyObservers(avroTransaction);
+            batch.add(avroTransaction);
+        }
+        dispatch(topic, batch);
+        return batch.size();
+    }
+
+    /**
+     * Finishes a bulk run that a previous instance was still working through when it stopped,
+     * as recorded in the generator checkpoint. Runs in the background.
+     */
+    public void resumeInterruptedBulkRun() {
+        long outstanding = generatorStateService.claimBulkOutstanding();
+        if (outstanding <= 0) {
+            return;
+        }
+
+        log.info("Resuming interrupted bulk run with {} transactions outstanding", outstanding);
+        CompletableFuture.runAsync(() -> {
+            long remaining = outstanding;
+            while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+                int chunk = (int) Math.min(remaining, maxBulkSize);
+                try {
+                    generateAndSendMultipleTransactions(chunk);
+                } catch (Exception e) {
+                    log.error("Resumed bulk run failed with {} transactions outstanding: {}", remaining, e.getMessage());
+                    generatorStateService.bulkRequested(remaining);
+                    return;
+                }
+                remaining -= chunk;
+            }
+        });
+    }
+
+    public TransactionSink getTransactionSink() {
+        return transactionSink;
+    }
+
+    private Population activePopulation() {
+        Population population = populationRegistry.current();
+        if (population.isEmpty()) {
+            throw new IllegalStateException("No active cards available for transaction generation");
+        }
+        return population;
+    }
+
+    private void notifyObservers(AuthorizedTransaction transaction) {
+        for (TransactionObserver observer : observers) {
+            try {
+                observer.onTransaction(transaction);
+            } catch (Exception e) {
+                log.warn("Transaction observer {} failed: {}", observer.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Hands a batch to the sink, minus whatever the disorder injector holds back for later.
+     */
+    private void dispatch(String topic, List<AuthorizedTransaction> batch) {
+        List<AuthorizedTransaction> immediate = disorderInjector.divert(topic, batch);
+        if (immediate.isEmpty()) {
+            return;
+        }
+        if (topic == null) {
+            transactionSink.accept(immediate);
+        } else {
+            transactionSink.accept(topic, immediate);
+        }
+    }
+
+    private int emit(List<AuthorizedTransaction> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int size = batch.size();
+        try {
+            dispatch(null, new ArrayList<>(batch));
+            return size;
+        } catch (Exception e) {
+            log.error("Error emitting batch of {} transactions to {} sink: {}",
+                    size, transactionSink.getName(), e.getMessage());
+            return 0;
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * Builds the next event of the stream. Every random choice comes from a generator positioned
+     * at {@code (seed, sequence)}, so over the same population the card, merchant, amount and
+     * channel of event {@code n} are fixed by {@code n}, and a resumed instance never repeats a
+     * sequence number. The transaction id and timestamp come from the clock at generation time
+     * and the decline from the card's current balance, so after a restart the continuation makes
+     * the same draws but is not byte-identical to an uninterrupted run. The authorisation outcome
+     * travels with the event.
+     */
+    private AuthorizedTransaction createRandomAvroTransaction(StreamProfile profile, GeneratorSettings settings) {
+        long sequence = generatorStateService.nextSequence();
+        Random random = SequenceRandom.at(generatorStateService.getSeed(), sequence);
+        // Re-read per event so churn is picked up mid-run; this is a single volatile load
+        Population population = activePopulation();
+        CardProfile card = population.random(random);
+        boolean substituted = false;
+        if (!profile.isAllRegions()) {
+            for (int attempt = 1; !profile.includes(card.getHomeRegion()); attempt++) {
+                if (attempt == REGION_SAMPLING_ATTEMPTS) {
+                    substituted = true;
+                    break;
+                }
+                card = population.random(random);
+            }
+        }
+
+        String transactionId = transactionIdGenerator.nextId();
+        long timestamp = System.currentTimeMillis();
+        double amount = profile.getMinAmount() + (random.nextDouble() * (profile.getMaxAmount() - profile.getMinAmount()));
+        boolean isOnline = random.nextDouble() < profile.getOnlineProbability();
+        boolean declined = !cardBalanceLedger.authorize(card, amount);
+        // A cardholder from outside a thinly populated region shops there instead, as a visitor
+        Merchant merchant = substituted
+                ? merchantGridIndex.sampleInRegion(profile.regionAt(random.nextInt(GeoRegion.count())), random)
+                : selectMerchant(card, settings, random);
 
         com.codedstream.transfruad.library.schema.MerchantLocation merchantLocation =
                 com.codedstream.transfruad.library.schema.MerchantLocation.newBuilder()
-                        .setLatitude(34.0522 + (random.nextDouble() - 0.5) * 10)
-                        .setLongitude(-118.2437 + (random.nextDouble() - 0.5) * 10)
-                        .setCity(CITIES[random.nextInt(CITIES.length)])
+                        .setLatitude(merchant.getLatitude())
+                        .setLongitude(merchant.getLongitude())
+                        .setCity(merchant.getRegion().getCity())
                         .setCountry("USA")
                         .build();
 
@@ -119,27 +286,46 @@ public class AvroTransactionGeneratorService {
             deviceInfo = com.codedstream.transfruad.library.schema.DeviceInfo.newBuilder()
                     .setDeviceId("DEV_" + random.nextInt(10000))
                     .setDeviceType(DEVICE_TYPES[random.nextInt(DEVICE_TYPES.length)])
-                    .setIpAddress(generateRandomIp())
-                    .setUserAgent(generateRandomUserAgent())
+                    .setIpAddress(generateRandomIp(random))
+                    .setUserAgent(generateRandomUserAgent(random))
                     .build();
         }
 
-        return CardTransaction.newBuilder()
+        CardTransaction transaction = CardTransaction.newBuilder()
                 .setTransactionId(transactionId)
-                .setCardId(card.getId())
-                .setCustomerId(card.getCustomer().getId())
-                .setTransactionTimestamp(System.currentTimeMillis())
+                .setCardId(card.getCardId())
+                .setCustomerId(card.getCustomerId())
+                .setTransactionTimestamp(timestamp)
                 .setTransactionAmount(amount)
                 .setCurrency("USD")
-                .setMerchantId("MERCH_" + random.nextInt(100000))
-                .setMerchantName(MERCHANT_NAMES[random.nextInt(MERCHANT_NAMES.length)] + " " + random.nextInt(100))
-                .setMerchantCategory(merchantCategory)
+                .setMerchantId(merchant.getId())
+                .setMerchantName(merchant.getName())
+                .setMerchantCategory(merchant.getCategory())
                 .setMerchantLocation(merchantLocation)
                 .setTransactionType(isOnline ? com.codedstream.transfruad.library.schema.TransactionType.ONLINE : com.codedstream.transfruad.library.schema.TransactionType.POS)
                 .setDeviceInfo(deviceInfo)
                 .setIsCardPresent(!isOnline)
-                .setPreviousTransactionId(generatePreviousTransactionId(card.getId()))
+                .setPreviousTransactionId(generatorStateService.advanceCardChain(card.getCardId(), transactionId, timestamp))
                 .build();
+        return new AuthorizedTransaction(transaction, declined);
+    }
+
+    /**
+     * Local transactions sample a merchant around the cardholder's home; a small share are
+     * travel transactions that jump to another region. Both are constant-time grid lookups.
+     * With a configured category mix the category is drawn first and constrains the lookup.
+     */
+    private Merchant selectMerchant(CardProfile card, GeneratorSettings settings, Random random) {
+        boolean travel = random.nextDouble() < settings.getTravelProbability();
+        if (settings.hasCategoryMix()) {
+            String category = settings.sampleCategory(random);
+            return travel
+                    ? merchantGridIndex.sampleTravel(card.getHomeRegion(), category, random)
+                    : merchantGridIndex.sampleNear(card.getHomeLatitude(), card.getHomeLongitude(), category, random);
+        }
+        return travel
+                ? merchantGridIndex.sampleTravel(card.getHomeRegion(), random)
+                : merchantGridIndex.sampleNear(card.getHomeLatitude(), card.getHomeLongitude(), random);
     }
 
 //    private void updateTransactionCache(CardTransaction transaction) {
@@ -165,11 +351,11 @@ public class AvroTransactionGeneratorService {
 //        }
 //    }
 
-    private String generateRandomIp() {
+    private String generateRandomIp(Random random) {
         return "192.168." + random.nextInt(256) + "." + random.nextInt(256);
     }
 
-    private String generateRandomUserAgent() {
+    private String generateRandomUserAgent(Random random) {
         String[] userAgents = {
                 "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36",
                 "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36",
@@ -178,8 +364,4 @@ public class AvroTransactionGeneratorService {
         };
         return userAgents[random.nextInt(userAgents.length)];
     }
-
-    private String generatePreviousTransactionId(String cardId) {
-        return random.nextDouble() < 0.7 ? null : "PREV_" + UUID.randomUUID().toString();
-    }
 }
\ No newline at end of file
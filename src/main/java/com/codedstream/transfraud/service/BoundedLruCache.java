@@ -0,0 +1,129 @@
+package com.codedstream.transfraud.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Size-bounded LRU cache split into independently locked segments, so concurrent lookups of
+ * different keys rarely wait on each other. Each segment is an access-ordered
+ * {@link LinkedHashMap} that evicts its least recently used entry when full.
+ * <p>
+ * Loading happens outside the segment lock: two threads missing the same key may both load it,
+ * which is harmless for idempotent read-through loads. A load that overlaps an invalidation is
+ * returned but not cached, so a stale row cannot outlive the write that replaced it. Absent
+ * values are not cached.
+ */
+final class BoundedLruCache<K, V> {
+
+    private final Segment<K, V>[] segments;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    BoundedLruCache(int maxSize, int segmentCount) {
+        if (Integer.bitCount(segmentCount) != 1 || maxSize < segmentCount) {
+            throw new IllegalArgumentException("Segment count must be a power of two no larger than the cache size");
+        }
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(maxSize / segmentCount, evictions);
+        }
+        mask = segmentCount - 1;
+    }
+
+    /**
+     * Cached value for {@code key}, or the result of {@code loader} (cached unless {@code null}).
+     */
+    V get(K key, Function<K, V> loader) {
+        Segment<K, V> segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value != null) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        long epoch = invalidations.get();
+        value = loader.apply(key);
+        if (value != null) {
+            synchronized (segment) {
+                if (invalidations.get() == epoch) {
+                    segment.put(key, value);
+                }
+            }
+        }
+        return value;
+    }
+
+    void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            invalidations.incrementAndGet();
+            segment.remove(key);
+        }
+    }
+
+    void clear() {
+        invalidations.incrementAndGet();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    long getHits() {
+        return hits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    long getEvictions() {
+        return evictions.sum();
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+        private final LongAdder evictions;
+
+        Segment(int capacity, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
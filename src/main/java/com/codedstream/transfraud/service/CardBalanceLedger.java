@@ -0,0 +1,305 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.population.CardProfile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory available balances of the cards the generator has used.
+ * <p>
+ * Every transaction is authorised against its card: the amount is debited with a compare-and-set
+ * on that card's own counter, or the transaction is declined when it exceeds the available
+ * balance. Workers posting to different cards never contend, and nothing on this path locks.
+ * Accounts are created on first use from the card's stored (or derived) balance.
+ * <p>
+ * Changed balances are queued once per flush and written to the {@code cards} table in JDBC
+ * batches every {@code flush-interval-ms}. Every {@code payment-interval-ms} each card repays
+ * {@code payment-fraction} of what it owes against its credit limit, so balances recover.
+ * A procedural population has no table to flush to; its settled cards are dropped from memory
+ * and derived again on next use, and at most {@code max-tracked-cards} accounts are held.
+ * Dropping first retires the account with a compare-and-set on its balance, so a worker still
+ * holding it can never debit it afterwards; the worker sees the retirement and starts over on a
+ * fresh account instead of losing its debit.
+ * <p>
+ * The outcome is returned to the generator, which carries it with the event to the sink.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardBalanceLedger {
+
+    private static final String UPDATE_BALANCE_SQL = "UPDATE cards SET available_balance = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PopulationRegistry populationRegistry;
+
+    @Value("${app.balances.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.balances.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    @Value("${app.balances.payment-fraction:0.5}")
+    private double paymentFraction;
+
+    @Value("${app.balances.max-tracked-cards:5000000}")
+    private int maxTrackedCards;
+
+    private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Account> dirty = new ConcurrentLinkedQueue<>();
+    private final LongAdder approved = new LongAdder();
+    private final LongAdder declined = new LongAdder();
+    private final LongAdder untracked = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        if (paymentFraction < 0 || paymentFraction > 1) {
+            throw new IllegalArgumentException("app.balances.payment-fraction must be between 0 and 1: " + paymentFraction);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Debits {@code amount} from the card's available balance.
+     *
+     * @return {@code false} if the transaction is declined; the balance is left unchanged then
+     */
+    public boolean authorize(CardProfile card, double amount) {
+        if (!enabled) {
+            return true;
+        }
+        long cents = toCents(amount);
+        while (true) {
+            Account account = accounts.get(card.getCardId());
+            if (account == null) {
+                if (accounts.size() >= maxTrackedCards) {
+                    untracked.increment();
+                    approved.increment();
+                    return true;
+                }
+                account = accounts.computeIfAbsent(card.getCardId(), id -> new Account(id,
+                        toCents(card.getAvailableBalance()), toCents(card.getCreditLimit())));
+            }
+            int outcome = account.debit(cents);
+            if (outcome == Account.RETIRED) {
+                // Settled and dropped by applyPayments after we looked it up; derive it again
+                accounts.remove(card.getCardId(), account);
+                continue;
+            }
+            if (outcome == Account.INSUFFICIENT) {
+                declined.increment();
+                return false;
+            }
+            markDirty(account);
+            approved.increment();
+            return true;
+        }
+    }
+
+    /**
+     * Current available balance of a tracked card, or {@code null} if it has not been used yet.
+     */
+    public Double getAvailableBalance(String cardId) {
+        Account account = accounts.get(cardId);
+        long available = account == null ? Account.RETIRED_BALANCE : account.available.get();
+        return available == Account.RETIRED_BALANCE ? null : available / 100.0;
+    }
+
+    /**
+     * Forgets every account, for when the stored population is replaced.
+     */
+    public void clear() {
+        accounts.clear();
+        dirty.clear();
+    }
+
+    /**
+     * Writes the balances changed since the last flush to the {@code cards} table.
+     */
+    @Scheduled(fixedDelayString = "${app.balances.flush-interval-ms:5000}")
+    public void flushBalances() {
+        if (!enabled || populationRegistry.isProcedural() || dirty.isEmpty()) {
+            return;
+        }
+        List<Account> flushed = new ArrayList<>(flushBatchSize);
+        List<Object[]> rows = new ArrayList<>(flushBatchSize);
+        Account account;
+        while ((account = dirty.poll()) != null) {
+            // Clear first: a debit racing with this read re-queues the account for the next flush
+            account.dirty.set(false);
+            flushed.add(account);
+            rows.add(new Object[]{account.available.get() / 100.0, account.cardId});
+            if (rows.size() >= flushBatchSize) {
+                writeRows(flushed, rows);
+            }
+        }
+        writeRows(flushed, rows);
+    }
+
+    /**
+     * Statement cycle: every card repays part of what it owes against its credit limit.
+     */
+    @Scheduled(fixedDelayString = "${app.balances.payment-interval-ms:60000}")
+    public void applyPayments() {
+        if (!enabled || paymentFraction == 0) {
+            return;
+        }
+        boolean procedural = populationRegistry.isProcedural();
+        for (Account account : accounts.values()) {
+            long available = account.available.get();
+            if (available == Account.RETIRED_BALANCE) {
+                continue;
+            }
+            long owed = account.limit - available;
+            if (owed > 0) {
+                account.credit((long) (owed * paymentFraction));
+                markDirty(account);
+            }
+            if (procedural && account.retireIfSettled()) {
+                // Settled back to at least its derived balance; it is derived again when next used
+                accounts.remove(account.cardId, account);
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long approvedCount = approved.sum();
+        long declinedCount = declined.sum();
+        stats.put("enabled", enabled);
+        stats.put("trackedCards", accounts.size());
+        stats.put("maxTrackedCards", maxTrackedCards);
+        stats.put("approved", approvedCount);
+        stats.put("declined", declinedCount);
+        stats.put("declineRate", approvedCount + declinedCount == 0 ? 0.0
+                : (double) declinedCount / (approvedCount + declinedCount));
+        stats.put("untracked", untracked.sum());
+        stats.put("pendingFlush", dirty.size());
+        stats.put("flushedRows", flushedRows.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushBalances();
+    }
+
+    private void markDirty(Account account) {
+        // Procedural cards have no row to update; only the first change per flush enqueues
+        if (!populationRegistry.isProcedural() && account.dirty.compareAndSet(false, true)) {
+            dirty.add(account);
+        }
+    }
+
+    private void writeRows(List<Account> flushed, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, rows);
+            flushedRows.add(rows.size());
+        } catch (Exception e) {
+            log.error("Failed to flush {} card balances: {}", rows.size(), e.getMessage());
+            flushed.forEach(this::markDirty);
+        } finally {
+            flushed.clear();
+            rows.clear();
+        }
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    static final class Account {
+        static final int DEBITED = 0;
+        static final int INSUFFICIENT = 1;
+        static final int RETIRED = 2;
+        // No real balance is this low, so it marks an account dropped from the ledger
+        static final long RETIRED_BALANCE = Long.MIN_VALUE;
+
+        final String cardId;
+        final long initial;
+        final long limit;
+        final AtomicLong available;
+        final AtomicBoolean dirty = new AtomicBoolean();
+
+        Account(String cardId, long available, long limit) {
+            this.cardId = cardId;
+            this.initial = available;
+            this.limit = Math.max(limit, available);
+            this.available = new AtomicLong(available);
+        }
+
+        /**
+         * @return {@link #DEBITED}, {@link #INSUFFICIENT} (balance unchanged) or {@link #RETIRED}
+         *         if the account has been dropped and must not be used any more
+         */
+        int debit(long amount) {
+            while (true) {
+                long current = available.get();
+                if (current == RETIRED_BALANCE) {
+                    return RETIRED;
+                }
+                if (amount > current) {
+                    return INSUFFICIENT;
+                }
+                if (available.compareAndSet(current, current - amount)) {
+                    return DEBITED;
+                }
+            }
+        }
+
+        void credit(long amount) {
+            while (true) {
+                long current = available.get();
+                if (current == RETIRED_BALANCE) {
+                    return;
+                }
+                long next = Math.min(limit, current + amount);
+                if (available.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Retires the account if it is back to at least its initial balance. A debit either lands
+         * before this (and the balance is judged after it) or sees the account retired.
+         */
+        boolean retireIfSettled() {
+            while (true) {
+                long current = available.get();
+                if (current == RETIRED_BALANCE) {
+                    return true;
+                }
+                if (current < initial) {
+                    return false;
+                }
+                if (available.compareAndSet(current, RETIRED_BALANCE)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -1,23 +1,65 @@
 package com.codedstream.transfraud.service;
 
+import com.codedstream.transfraud.model.dto.CustomerSummary;
 import com.codedstream.transfraud.model.entity.Customer;
 import com.codedstream.transfraud.repository.CustomerRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Customer directory. Browsing is keyset-paged by id over flat {@link CustomerSummary}
+ * projections, so no page loads the card collections and deep pages cost the same as the first.
+ * Single lookups go through a bounded LRU cache of summaries; writes through this service
+ * invalidate the affected entry.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CustomerService {
 
+    public static final int MAX_PAGE_SIZE = 1000;
+
     private final CustomerRepository customerRepository;
 
-    public List<Customer> getAllCustomers() {
-        return customerRepository.findAll();
+    @Value("${app.customers.cache.max-size:100000}")
+    private int cacheMaxSize;
+
+    @Value("${app.customers.cache.segments:16}")
+    private int cacheSegments;
+
+    private BoundedLruCache<String, CustomerSummary> summaryCache;
+
+    @PostConstruct
+    public void createCache() {
+        summaryCache = new BoundedLruCache<>(cacheMaxSize, cacheSegments);
+    }
+
+    /**
+     * Up to {@code limit} customers with ids after {@code afterId} ({@code null} for the first
+     * page), in id order. Pass the last id of a page to get the next one.
+     */
+    public List<CustomerSummary> getCustomers(String afterId, int limit, boolean withCardsOnly) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        String after = afterId == null ? "" : afterId;
+        PageRequest page = PageRequest.of(0, limit);
+        return withCardsOnly
+                ? customerRepository.findSummariesWithCardsAfter(after, page)
+                : customerRepository.findSummariesAfter(after, page);
+    }
+
+    public Optional<CustomerSummary> getCustomerSummary(String id) {
+        return Optional.ofNullable(summaryCache.get(id, key -> customerRepository.findSummaryById(key).orElse(null)));
     }
 
     public Optional<Customer> getCustomerById(String id) {
@@ -25,18 +67,37 @@ public class CustomerService {
     }
 
     public Customer saveCustomer(Customer customer) {
-        return customerRepository.save(customer);
+        Customer saved = customerRepository.save(customer);
+        summaryCache.invalidate(saved.getId());
+        return saved;
     }
 
     public void deleteCustomer(String id) {
         customerRepository.deleteById(id);
+        summaryCache.invalidate(id);
     }
 
     public long getCustomerCount() {
         return customerRepository.count();
     }
 
-    public List<Customer> getCustomersWithCards() {
-        return customerRepository.findCustomersWithCards();
+    /**
+     * Drops every cached summary, for when the stored population is replaced.
+     */
+    public void clearCache() {
+        summaryCache.clear();
+    }
+
+    public Map<String, Object> getCacheStats() {
+        long hits = summaryCache.getHits();
+        long misses = summaryCache.getMisses();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", summaryCache.size());
+        stats.put("maxSize", cacheMaxSize);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("evictions", summaryCache.getEvictions());
+        return stats;
     }
 }
@@ -2,9 +2,16 @@ package com.codedstream.transfraud.service;
 
 import com.codedstream.transfraud.model.entity.Card;
 import com.codedstream.transfraud.model.entity.Customer;
+import com.codedstream.transfraud.model.dto.CardDto;
+import com.codedstream.transfraud.model.geo.GeoRegion;
+import com.codedstream.transfraud.model.population.Population;
+import com.codedstream.transfraud.model.population.ProceduralPopulation;
+import com.codedstream.transfraud.model.population.UniqueIdentities;
 import com.codedstream.transfraud.repository.CardRepository;
 import com.codedstream.transfraud.repository.CustomerRepository;
 import com.codedstream.transfraud.repository.TransactionRepository;
+import com.codedstream.transfraud.service.id.IdentityAllocator;
+import com.codedstream.transfraud.service.settings.GeneratorSettingsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,14 +19,14 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.Set;
-import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -33,12 +40,17 @@ public class DataGeneratorService {
     private final KafkaProducerService kafkaProducerService;
 //    private final RedisTemplate<String, Object> redisTemplate;
     private final AvroTransactionGeneratorService avroTransactionGeneratorService;
+    private final PopulationSnapshotService populationSnapshotService;
+    private final PopulationRegistry populationRegistry;
+    private final GeneratorSettingsService generatorSettingsService;
+    private final CardBalanceLedger cardBalanceLedger;
+    private final CustomerService customerService;
+    private final IdentityAllocator identityAllocator;
 
     private final Random random = new Random();
     private final String[] FIRST_NAMES = {"John", "Jane", "Michael", "Sarah", "David", "Lisa", "Robert", "Maria", "William", "Elizabeth", "James", "Jennifer", "Thomas", "Linda", "Christopher", "Susan", "Daniel", "Jessica", "Matthew", "Karen"};
     private final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin"};
     private final String[] MERCHANT_CATEGORIES = {"Retail", "Restaurant", "Gas Station", "Online Shopping", "Entertainment", "Travel"};
-    private final String[] CITIES = {"New York", "Los Angeles", "Chicago", "Houston", "Phoenix", "Philadelphia", "San Antonio", "San Diego", "Dallas", "San Jose"};
 
     @Value("${app.data.generation.enabled:true}")
     private boolean generationEnabled;
@@ -49,22 +61,55 @@ public class DataGeneratorService {
     @Value("${app.data.generation.initial-cards-per-customer:2}")
     private int cardsPerCustomer;
 
-    private boolean dataInitialized = false;
+    @Value("${app.data.snapshot.import-on-startup:true}")
+    private boolean importSnapshotOnStartup;
 
-    @PostConstruct
-    public void autoInitialize() {
-        if (generationEnabled) {
-            log.info("Auto-initializing sample data on application startup...");
-            initializeSampleData();
-        }
+    @Value("${app.data.snapshot.export-after-seed:true}")
+    private boolean exportSnapshotAfterSeed;
+
+    @Value("${app.data.snapshot.export-on-shutdown:true}")
+    private boolean exportSnapshotOnShutdown;
+
+    @Value("${app.data.snapshot.periodic-export:false}")
+    private boolean periodicSnapshotExport;
+
+    @Value("${app.data.generation.seed-batch-size:500}")
+    private int seedBatchSize;
+
+    private volatile boolean dataInitialized = false;
+
+    // Scheduler thread only
+    private long lastScheduledTick;
+    private double scheduledCarry;
+
+    /**
+     * Seeds the population at most once per application lifetime. Concurrent callers
+     * (startup runner, REST endpoint, scheduler recovery) serialise on this method and
+     * return immediately once the population is in place.
+     */
+    public synchronized void initializeSampleData() {
+        initializeSampleData(importSnapshotOnStartup);
     }
 
-    public void initializeSampleData() {
+    private void initializeSampleData(boolean allowSnapshotImport) {
         if (!generationEnabled) {
             log.info("Data generation is disabled");
             return;
         }
 
+        if (dataInitialized) {
+            log.debug("Sample data already initialized. Skipping.");
+            return;
+        }
+
+        if (populationRegistry.isProcedural()) {
+            // Nothing to seed or import: every card is derived from its index on demand
+            populationRegistry.reload();
+            dataInitialized = true;
+            logActiveCards();
+            return;
+        }
+
         // Check if data already exists
         long existingCustomers = customerRepository.count();
         long existingCards = cardRepository.count();
@@ -72,61 +117,144 @@ public class DataGeneratorService {
         if (existingCustomers > 0) {
             log.info("Data already exists. Skipping initialization. Existing customers: {}, cards: {}",
                     existingCustomers, existingCards);
+            populationRegistry.reload();
             dataInitialized = true;
             return;
         }
 
+        if (allowSnapshotImport && populationSnapshotService.snapshotExists()) {
+            try {
+                populationSnapshotService.importSnapshot();
+                populationRegistry.reload();
+                dataInitialized = true;
+                logActiveCards();
+                return;
+            } catch (Exception e) {
+                log.error("Failed to import population snapshot, falling back to seeding: {}", e.getMessage(), e);
+                transactionRepository.deleteAllInBatch();
+                cardRepository.deleteAllInBatch();
+                customerRepository.deleteAllInBatch();
+            }
+        }
+
+        seedSampleData();
+
+        populationRegistry.reload();
+        dataInitialized = true;
+
+        if (exportSnapshotAfterSeed) {
+            try {
+                populationSnapshotService.exportSnapshot();
+            } catch (Exception e) {
+                log.warn("Failed to export population snapshot: {}", e.getMessage());
+            }
+        }
+
+        logActiveCards();
+    }
+
+    private void seedSampleData() {
         log.info("Initializing sample data with {} customers and {} cards per customer",
                 initialCustomers, cardsPerCustomer);
 
         int totalCardsCreated = 0;
-        Set<String> usedEmails = new HashSet<>();
+        List<Customer> customerBatch = new ArrayList<>(seedBatchSize);
+        List<Card> cardBatch = new ArrayList<>(seedBatchSize * cardsPerCustomer);
 
         for (int i = 0; i < initialCustomers; i++) {
-            Customer customer = createSampleCustomer(usedEmails);
-            if (customer == null) {
-                log.warn("Failed to create unique customer, skipping...");
-                continue;
+            Customer customer = createSampleCustomer();
+            customerBatch.add(customer);
+            for (int j = 0; j < cardsPerCustomer; j++) {
+                cardBatch.add(createSampleCard(customer));
             }
 
-            try {
-                customerRepository.save(customer);
-
-                for (int j = 0; j < cardsPerCustomer; j++) {
-                    Card card = createSampleCard(customer);
-                    cardRepository.save(card);
-                    totalCardsCreated++;
-                }
-
-                // Log progress every 20 customers
-                if ((i + 1) % 20 == 0) {
-                    log.info("Created {} customers and {} cards so far...", i + 1, totalCardsCreated);
-                }
-            } catch (Exception e) {
-                log.error("Error saving customer {}: {}", i + 1, e.getMessage());
-                // Continue with next customer instead of failing completely
+            if (customerBatch.size() >= seedBatchSize) {
+                totalCardsCreated += saveSeedBatch(customerBatch, cardBatch);
+                log.info("Created {} customers and {} cards so far...", i + 1, totalCardsCreated);
             }
         }
-
-        long totalCustomers = customerRepository.count();
-        long totalCards = cardRepository.count();
+        totalCardsCreated += saveSeedBatch(customerBatch, cardBatch);
 
         log.info("Sample data initialization completed. Created {} customers and {} cards",
-                totalCustomers, totalCards);
+                customerRepository.count(), totalCardsCreated);
+    }
 
-        dataInitialized = true;
+    private int saveSeedBatch(List<Customer> customerBatch, List<Card> cardBatch) {
+        int saved = 0;
+        try {
+            customerRepository.saveAll(customerBatch);
+            cardRepository.saveAll(cardBatch);
+            saved = cardBatch.size();
+        } catch (Exception e) {
+            log.error("Error saving batch of {} customers: {}", customerBatch.size(), e.getMessage());
+            // Continue with next batch instead of failing completely
+        }
+        customerBatch.clear();
+        cardBatch.clear();
+        return saved;
+    }
 
-        // Verify we have active cards
-        List<Card> activeCards = cardRepository.findByIsActiveTrue();
-        log.info("Active cards available for transactions: {}", activeCards.size());
+    private void logActiveCards() {
+        long activeCards = populationRegistry.current().size();
+        log.info("Active cards available for transactions: {}", activeCards);
 
-        if (activeCards.isEmpty()) {
+        if (activeCards == 0) {
             log.warn("No active cards found after data initialization!");
         }
     }
 
-    @Scheduled(fixedDelayString = "${app.data.generation.transaction-interval-ms:5000}")
+    /**
+     * Writes the current population to the snapshot file so the next start can bulk-load it.
+     */
+    public synchronized PopulationSnapshotService.SnapshotStats exportPopulationSnapshot() {
+        return populationSnapshotService.exportSnapshot();
+    }
+
+    /**
+     * Re-exports the stored population every {@code app.data.snapshot.export-interval-ms} when
+     * {@code periodic-export} is on, so onboarded customers, issued and blocked cards and
+     * balances survive a crash, not only a clean shutdown.
+     */
+    @Scheduled(fixedDelayString = "${app.data.snapshot.export-interval-ms:600000}",
+            initialDelayString = "${app.data.snapshot.export-interval-ms:600000}")
+    public void exportSnapshotPeriodically() {
+        if (periodicSnapshotExport) {
+            refreshSnapshot("periodic");
+        }
+    }
+
+    /**
+     * Re-exports the stored population on shutdown, so the next start imports the population as
+     * it was left rather than as first seeded.
+     */
+    @PreDestroy
+    public void exportSnapshotOnShutdown() {
+        if (exportSnapshotOnShutdown) {
+            refreshSnapshot("shutdown");
+        }
+    }
+
+    private synchronized void refreshSnapshot(String trigger) {
+        if (!dataInitialized || populationRegistry.isProcedural()) {
+            return;
+        }
+        try {
+            populationSnapshotService.exportSnapshot();
+        } catch (Exception e) {
+            log.warn("Failed {} export of population snapshot: {}", trigger, e.getMessage());
+        }
+    }
+
+    /**
+     * Emits the background trickle at {@code scheduledEventsPerSecond} from the live generator
+     * settings. The tick is fixed; the rate accumulates fractional events between ticks, so a
+     * changed rate applies from the next tick without rescheduling anything.
+     */
+    @Scheduled(fixedDelayString = "${app.data.generation.tick-ms:100}")
     public void generateScheduledTransaction() {
+        long now = System.nanoTime();
+        double elapsedSeconds = lastScheduledTick == 0 ? 0 : (now - lastScheduledTick) / 1e9;
+        lastScheduledTick = now;
         if (!generationEnabled) {
             return;
         }
@@ -137,8 +265,19 @@ public class DataGeneratorService {
             return;
         }
 
+        double rate = generatorSettingsService.current().getScheduledEventsPerSecond();
+        // Never bank more than a second of events, so a stall does not end in a burst
+        scheduledCarry = Math.min(Math.max(rate, 1.0), scheduledCarry + rate * elapsedSeconds);
+        int due = (int) scheduledCarry;
+        if (due == 0) {
+            return;
+        }
+        scheduledCarry -= due;
+
         try {
-            avroTransactionGeneratorService.generateAndSendRandomTransaction();
+            for (int i = 0; i < due; i++) {
+                avroTransactionGeneratorService.generateAndSendRandomTransaction();
+            }
         } catch (Exception e) {
             log.error("Error in scheduled transaction generation: {}", e.getMessage(), e);
 
@@ -157,54 +296,71 @@ public class DataGeneratorService {
         dataInitialized = false;
 
         // Optional: Clear existing data
-        transactionRepository.deleteAll();
-        cardRepository.deleteAll();
-        customerRepository.deleteAll();
+        transactionRepository.deleteAllInBatch();
+        cardRepository.deleteAllInBatch();
+        customerRepository.deleteAllInBatch();
+        cardBalanceLedger.clear();
+        customerService.clearCache();
 
         // Clear Redis cache
         //redisTemplate.getConnectionFactory().getConnection().flushDb();
         log.info("Cleared existing data and cache");
 
-        // Reinitialize data
-        initializeSampleData();
+        // Reinitialize data with a freshly seeded population rather than the stored snapshot
+        initializeSampleData(false);
+    }
+
+    /**
+     * Issues and persists one new card for an existing customer.
+     */
+    public Card issueCard(Customer customer) {
+        return cardRepository.save(createSampleCard(customer));
     }
 
-    private Customer createSampleCustomer(Set<String> usedEmails) {
+    /**
+     * Persists one new customer with {@code initial-cards-per-customer} cards, available through
+     * {@link Customer#getCards()}.
+     */
+    public Customer onboardCustomer() {
+        Customer customer = createSampleCustomer();
+        customerRepository.save(customer);
+
+        List<Card> cards = new ArrayList<>(cardsPerCustomer);
+        for (int j = 0; j < cardsPerCustomer; j++) {
+            cards.add(createSampleCard(customer));
+        }
+        customer.getCards().addAll(cardRepository.saveAll(cards));
+        return customer;
+    }
+
+    /**
+     * Builds a customer whose id and email derive from a freshly allocated index, so they are
+     * unique without checking what has been issued before.
+     */
+    private Customer createSampleCustomer() {
+        long index = identityAllocator.nextCustomerIndex();
+        UniqueIdentities identities = identityAllocator.identities();
         String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
         String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
-        String baseEmail = firstName.toLowerCase() + "." + lastName.toLowerCase() + "@example.com";
-
-        // Ensure unique email
-        String email = baseEmail;
-        int attempt = 1;
-        while (usedEmails.contains(email)) {
-            email = firstName.toLowerCase() + "." + lastName.toLowerCase() + attempt + "@example.com";
-            attempt++;
-
-            // Safety check to prevent infinite loop
-            if (attempt > 100) {
-                log.error("Unable to generate unique email for {} {}", firstName, lastName);
-                return null;
-            }
-        }
 
-        usedEmails.add(email);
+        // Home city, state and coordinates all come from the same region
+        GeoRegion region = GeoRegion.byOrdinal(random.nextInt(GeoRegion.count()));
 
         return Customer.builder()
-                .id(UUID.randomUUID().toString())
+                .id(identities.customerId(index))
                 .firstName(firstName)
                 .lastName(lastName)
-                .email(email)
+                .email(identities.email(index, firstName, lastName))
                 .phoneNumber(String.format("+1-%03d-%03d-%04d",
                         random.nextInt(1000), random.nextInt(1000), random.nextInt(10000)))
                 .address(Customer.Address.builder()
                         .street(random.nextInt(1000) + " Main St")
-                        .city(CITIES[random.nextInt(CITIES.length)])
-                        .state("CA")
+                        .city(region.getCity())
+                        .state(region.getState())
                         .zipCode(String.format("%05d", random.nextInt(100000)))
                         .country("USA")
-                        .latitude(34.0522 + (random.nextDouble() - 0.5) * 10)
-                        .longitude(-118.2437 + (random.nextDouble() - 0.5) * 10)
+                        .latitude(region.getLatitude() + random.nextGaussian() * 0.15)
+                        .longitude(region.getLongitude() + random.nextGaussian() * 0.15)
                         .build())
                 .createdAt(LocalDateTime.now())
                 .averageTransactionAmount(50.0 + random.nextDouble() * 200)
@@ -213,13 +369,16 @@ public class DataGeneratorService {
     }
 
     private Card createSampleCard(Customer customer) {
+        long index = identityAllocator.nextCardIndex();
+        UniqueIdentities identities = identityAllocator.identities();
+        String cardType = random.nextBoolean() ? "VISA" : "MASTERCARD";
         return Card.builder()
-                .id(UUID.randomUUID().toString())
-                .cardNumber(generateCardNumber())
+                .id(identities.cardId(index))
+                .cardNumber(identities.cardNumber(index, cardType))
                 .cardHolderName(customer.getFirstName() + " " + customer.getLastName())
                 .expiryDate(LocalDate.now().plusYears(3))
                 .cvv(String.format("%03d", random.nextInt(1000)))
-                .cardType(random.nextBoolean() ? "VISA" : "MASTERCARD")
+                .cardType(cardType)
                 .creditLimit(5000.0 + random.nextDouble() * 10000)
                 .availableBalance(1000.0 + random.nextDouble() * 4000)
                 .isActive(true)
@@ -228,21 +387,39 @@ public class DataGeneratorService {
                 .build();
     }
 
-    private String generateCardNumber() {
-        // Generate a more realistic card number (starts with 4 for Visa, 5 for Mastercard)
-        String prefix = random.nextBoolean() ? "4" : "5";
-        String middle = String.format("%014d", Math.abs(random.nextLong()) % 100000000000000L);
-        return prefix + middle;
-    }
-
     public long getActiveCardCount() {
-        return cardRepository.findByIsActiveTrue().size();
+        if (populationRegistry.isProcedural()) {
+            return populationRegistry.current().size();
+        }
+        return cardRepository.countActiveCards();
     }
 
     public long getTotalCustomers() {
+        Population population = populationRegistry.current();
+        if (population instanceof ProceduralPopulation) {
+            return ((ProceduralPopulation) population).getCustomerCount();
+        }
         return customerRepository.count();
     }
 
+    /**
+     * Customer and card details of procedural card {@code cardIndex}, derived on demand.
+     */
+    public Map<String, Object> describeProceduralCard(long cardIndex) {
+        Population population = populationRegistry.current();
+        if (!(population instanceof ProceduralPopulation)) {
+            throw new IllegalStateException("Card lookup by index needs app.population.mode=procedural");
+        }
+        ProceduralPopulation procedural = (ProceduralPopulation) population;
+        CardDto card = procedural.card(cardIndex);
+
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("cardIndex", cardIndex);
+        details.put("card", card);
+        details.put("customer", procedural.customer(procedural.customerIndexOf(cardIndex)));
+        return details;
+    }
+
     public long getTotalTransactions() {
         return transactionRepository.count();
     }
@@ -0,0 +1,294 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import com.codedstream.transfraud.service.sink.TransactionSink;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds back part of the stream so that downstream watermarks and allowed lateness get exercised.
+ * <p>
+ * Events keep the timestamp they were generated with, but a fraction is emitted after a delay:
+ * <ul>
+ *   <li>out-of-order events, delayed by {@code delay-distribution} (exponential, uniform or fixed)
+ *       with {@code mean-delay-ms}, capped at {@code max-delay-ms};</li>
+ *   <li>late events, delayed uniformly between {@code late-min-delay-ms} and
+ *       {@code late-max-delay-ms}, which should exceed the consumer's watermark bound;</li>
+ *   <li>duplicates, re-emitted within {@code duplicate-max-delay-ms} with the same transaction id.</li>
+ * </ul>
+ * Delayed events wait in a {@link HashedTimerWheel} owned by one ticker thread; generator threads
+ * only hand them over through a lock-free queue. Undisturbed events are emitted in the original
+ * batch without copying. At most {@code max-pending} events are held; beyond that they are emitted
+ * immediately and counted as overflow.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DisorderInjector {
+
+    private final TransactionSink transactionSink;
+
+    @Value("${app.disorder.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.disorder.out-of-order-fraction:0.05}")
+    private double outOfOrderFraction;
+
+    @Value("${app.disorder.delay-distribution:exponential}")
+    private String delayDistribution;
+
+    @Value("${app.disorder.mean-delay-ms:500}")
+    private long meanDelayMs;
+
+    @Value("${app.disorder.max-delay-ms:5000}")
+    private long maxDelayMs;
+
+    @Value("${app.disorder.late-fraction:0.01}")
+    private double lateFraction;
+
+    @Value("${app.disorder.late-min-delay-ms:30000}")
+    private long lateMinDelayMs;
+
+    @Value("${app.disorder.late-max-delay-ms:120000}")
+    private long lateMaxDelayMs;
+
+    @Value("${app.disorder.duplicate-fraction:0.005}")
+    private double duplicateFraction;
+
+    @Value("${app.disorder.duplicate-max-delay-ms:2000}")
+    private long duplicateMaxDelayMs;
+
+    @Value("${app.disorder.max-pending:1000000}")
+    private int maxPending;
+
+    @Value("${app.disorder.tick-ms:10}")
+    private long tickMs;
+
+    @Value("${app.disorder.wheel-slots:4096}")
+    private int wheelSlots;
+
+    private final ConcurrentLinkedQueue<Delayed> inbox = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder late = new LongAdder();
+    private final LongAdder duplicated = new LongAdder();
+    private final LongAdder overflow = new LongAdder();
+    private final LongAdder released = new LongAdder();
+
+    private HashedTimerWheel<Delayed> wheel;
+    private ScheduledExecutorService ticker;
+    private long startNanos;
+    private long processedTicks;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (outOfOrderFraction + lateFraction > 1 || outOfOrderFraction < 0 || lateFraction < 0 || duplicateFraction < 0) {
+            throw new IllegalArgumentException("app.disorder fractions must be non-negative and out-of-order + late <= 1");
+        }
+        if (!"exponential".equals(delayDistribution) && !"uniform".equals(delayDistribution)
+                && !"fixed".equals(delayDistribution)) {
+            throw new IllegalArgumentException("Unknown app.disorder.delay-distribution: " + delayDistribution);
+        }
+        if (lateMaxDelayMs < lateMinDelayMs) {
+            throw new IllegalArgumentException("app.disorder.late-max-delay-ms is below late-min-delay-ms");
+        }
+
+        wheel = new HashedTimerWheel<>(wheelSlots);
+        startNanos = System.nanoTime();
+        ticker = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "disorder-ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        log.info("Disorder injection enabled: {} out-of-order ({} mean {} ms), {} late, {} duplicates",
+                outOfOrderFraction, delayDistribution, meanDelayMs, lateFraction, duplicateFraction);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes the delayed share out of {@code batch} and schedules it and any duplicates.
+     * A {@code null} topic stands for the sink's default destination.
+     *
+     * @return the events to emit now; {@code batch} itself when nothing was held back
+     */
+    public List<AuthorizedTransaction> divert(String topic, List<AuthorizedTransaction> batch) {
+        if (!enabled) {
+            return batch;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<AuthorizedTransaction> immediate = null;
+        for (int i = 0; i < batch.size(); i++) {
+            AuthorizedTransaction transaction = batch.get(i);
+
+            if (duplicateFraction > 0 && random.nextDouble() < duplicateFraction
+                    && hold(topic, transaction, 1 + random.nextLong(Math.max(1, duplicateMaxDelayMs)))) {
+                duplicated.increment();
+            }
+
+            double draw = random.nextDouble();
+            boolean held = false;
+            if (draw < lateFraction) {
+                long delay = lateMinDelayMs + (long) (random.nextDouble() * (lateMaxDelayMs - lateMinDelayMs));
+                held = hold(topic, transaction, delay);
+                if (held) {
+                    late.increment();
+                }
+            } else if (draw < lateFraction + outOfOrderFraction) {
+                held = hold(topic, transaction, sampleDelay(random));
+                if (held) {
+                    delayed.increment();
+                }
+            }
+
+            if (held && immediate == null) {
+                // First held event: copy what has passed through so far, leave the rest to the loop
+                immediate = new ArrayList<>(batch.size());
+                immediate.addAll(batch.subList(0, i));
+            } else if (!held && immediate != null) {
+                immediate.add(transaction);
+            }
+        }
+        return immediate == null ? batch : immediate;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pending", pending.get());
+        stats.put("maxPending", maxPending);
+        stats.put("delayed", delayed.sum());
+        stats.put("late", late.sum());
+        stats.put("duplicated", duplicated.sum());
+        stats.put("released", released.sum());
+        stats.put("overflow", overflow.sum());
+        return stats;
+    }
+
+    private long sampleDelay(ThreadLocalRandom random) {
+        double delay;
+        switch (delayDistribution) {
+            case "uniform":
+                delay = random.nextDouble() * 2 * meanDelayMs;
+                break;
+            case "fixed":
+                delay = meanDelayMs;
+                break;
+            default:
+                delay = -Math.log(1 - random.nextDouble()) * meanDelayMs;
+        }
+        return Math.min(maxDelayMs, Math.max(1, (long) delay));
+    }
+
+    private boolean hold(String topic, AuthorizedTransaction transaction, long delayMs) {
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            overflow.increment();
+            return false;
+        }
+        inbox.add(new Delayed(topic == null ? "" : topic, transaction, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs)));
+        return true;
+    }
+
+    /**
+     * Ticker thread only: moves new arrivals into the wheel, then expires every tick that has
+     * elapsed since the last run, so a stalled ticker catches up instead of drifting.
+     */
+    private void tick() {
+        try {
+            long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+            long nowTick = (System.nanoTime() - startNanos) / tickNanos;
+
+            Delayed arrival;
+            while ((arrival = inbox.poll()) != null) {
+                long dueTick = (arrival.dueNanos - startNanos + tickNanos - 1) / tickNanos;
+                wheel.schedule(arrival, dueTick - processedTicks);
+            }
+
+            Map<String, List<AuthorizedTransaction>> due = new HashMap<>();
+            while (processedTicks < nowTick) {
+                wheel.advance(expired -> due.computeIfAbsent(expired.topic, k -> new ArrayList<>()).add(expired.transaction));
+                processedTicks++;
+            }
+            emit(due);
+        } catch (Exception e) {
+            log.error("Disorder ticker failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void emit(Map<String, List<AuthorizedTransaction>> due) {
+        for (Map.Entry<String, List<AuthorizedTransaction>> entry : due.entrySet()) {
+            List<AuthorizedTransaction> events = entry.getValue();
+            try {
+                if (entry.getKey().isEmpty()) {
+                    transactionSink.accept(events);
+                } else {
+                    transactionSink.accept(entry.getKey(), events);
+                }
+                released.add(events.size());
+            } catch (Exception e) {
+                log.error("Failed to emit {} delayed transactions: {}", events.size(), e.getMessage());
+            } finally {
+                pending.addAndGet(-events.size());
+            }
+        }
+    }
+
+    /**
+     * Emits everything still held, early, so a shutdown does not lose events.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (ticker == null) {
+            return;
+        }
+        ticker.shutdown();
+        ticker.awaitTermination(5, TimeUnit.SECONDS);
+
+        Map<String, List<AuthorizedTransaction>> remaining = new HashMap<>();
+        Delayed arrival;
+        while ((arrival = inbox.poll()) != null) {
+            remaining.computeIfAbsent(arrival.topic, k -> new ArrayList<>()).add(arrival.transaction);
+        }
+        wheel.drain(held -> remaining.computeIfAbsent(held.topic, k -> new ArrayList<>()).add(held.transaction));
+        emit(remaining);
+        transactionSink.flush();
+        log.info("Released delayed transactions at shutdown");
+    }
+
+    private static final class Delayed {
+        final String topic;
+        final AuthorizedTransaction transaction;
+        final long dueNanos;
+
+        Delayed(String topic, AuthorizedTransaction transaction, long dueNanos) {
+            this.topic = topic;
+            this.transaction = transaction;
+            this.dueNanos = dueNanos;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.codedstream.transfraud.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free counters for one emission path, reporting acknowledged records per second
+ * between the first and the latest acknowledgement.
+ */
+public class EmissionStats {
+
+    private final String name;
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private final AtomicLong firstAckNanos = new AtomicLong();
+    private final AtomicLong lastAckNanos = new AtomicLong();
+
+    public EmissionStats(String name) {
+        this.name = name;
+    }
+
+    public void recordAcked(int count, long serializedBytes) {
+        long now = System.nanoTime();
+        firstAckNanos.compareAndSet(0, now);
+        lastAckNanos.set(now);
+        records.add(count);
+        if (serializedBytes > 0) {
+            bytes.add(serializedBytes);
+        }
+    }
+
+    public void recordBatch(long elapsedNanos) {
+        batches.increment();
+        batchNanos.add(elapsedNanos);
+    }
+
+    public void recordFailed(int count) {
+        failures.add(count);
+    }
+
+    public long getRecords() {
+        return records.sum();
+    }
+
+    public double getRecordsPerSecond() {
+        long first = firstAckNanos.get();
+        long elapsed = lastAckNanos.get() - first;
+        if (first == 0 || elapsed <= 0) {
+            return 0.0;
+        }
+        return records.sum() * 1_000_000_000.0 / elapsed;
+    }
+
+    public double getBytesPerRecord() {
+        long count = records.sum();
+        return count == 0 ? 0.0 : (double) bytes.sum() / count;
+    }
+
+    public void reset() {
+        records.reset();
+        bytes.reset();
+        failures.reset();
+        batches.reset();
+        batchNanos.reset();
+        firstAckNanos.set(0);
+        lastAckNanos.set(0);
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        long batchCount = batches.sum();
+        map.put("mode", name);
+        map.put("records", records.sum());
+        map.put("failures", failures.sum());
+        map.put("recordsPerSecond", Math.round(getRecordsPerSecond()));
+        map.put("bytesPerRecord", Math.round(getBytesPerRecord() * 10) / 10.0);
+        map.put("batches", batchCount);
+        map.put("avgBatchMs", batchCount == 0 ? 0.0 : Math.round(batchNanos.sum() / 1000.0 / batchCount) / 1000.0);
+        return map;
+    }
+}
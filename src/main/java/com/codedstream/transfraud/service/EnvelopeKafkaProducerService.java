@@ -0,0 +1,161 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.envelope.CardTransactionBatch;
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import com.codedstream.transfraud.service.id.TransactionIdGenerator;
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs transactions into {@link CardTransactionBatch} envelopes, one Kafka message per
+ * {@code envelope-size} transactions, on the topic {@code <topic><envelope-topic-suffix>}.
+ * <p>
+ * The key, headers and schema id prefix are paid once per envelope instead of once per
+ * transaction. Transactions are buffered per topic; a buffer is sent when it is full or older
+ * than {@code envelope-linger-ms}. Envelopes always go through the plain producer. Declined
+ * transactions are listed by position in the envelope's {@code declined} field.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EnvelopeKafkaProducerService {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionIdGenerator idGenerator;
+    private final TransactionRecordFactory transactionRecordFactory;
+
+    @Value("${app.sink.kafka.envelope-size:200}")
+    private int envelopeSize;
+
+    @Value("${app.sink.kafka.envelope-linger-ms:50}")
+    private long lingerMs;
+
+    @Value("${app.sink.kafka.envelope-topic-suffix:-batches}")
+    private String topicSuffix;
+
+    @Value("${app.instance.id:0}")
+    private int instanceId;
+
+    private final EmissionStats stats = new EmissionStats("envelope");
+    private final Map<String, Buffer> buffers = new HashMap<>();
+
+    public void append(String topic, List<AuthorizedTransaction> batch) {
+        List<List<AuthorizedTransaction>> full = null;
+        synchronized (buffers) {
+            Buffer buffer = buffers.computeIfAbsent(topic, k -> new Buffer());
+            for (AuthorizedTransaction transaction : batch) {
+                if (buffer.transactions.isEmpty()) {
+                    buffer.openedAt = System.currentTimeMillis();
+                }
+                buffer.transactions.add(transaction);
+                if (buffer.transactions.size() >= envelopeSize) {
+                    if (full == null) {
+                        full = new ArrayList<>();
+                    }
+                    full.add(buffer.drain(envelopeSize));
+                }
+            }
+        }
+        if (full != null) {
+            for (List<AuthorizedTransaction> transactions : full) {
+                send(topic, transactions);
+            }
+        }
+    }
+
+    /**
+     * Sends buffers older than the linger time, so a slow trickle is never held back for long.
+     */
+    @Scheduled(fixedDelayString = "${app.sink.kafka.envelope-linger-ms:50}")
+    public void sendExpiredEnvelopes() {
+        drain(false);
+    }
+
+    public void flush() {
+        drain(true);
+        kafkaTemplate.flush();
+    }
+
+    public EmissionStats getStats() {
+        return stats;
+    }
+
+    public String envelopeTopic(String topic) {
+        return topic + topicSuffix;
+    }
+
+    private void drain(boolean all) {
+        Map<String, List<AuthorizedTransaction>> due = new HashMap<>();
+        synchronized (buffers) {
+            if (buffers.isEmpty()) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, Buffer> entry : buffers.entrySet()) {
+                Buffer buffer = entry.getValue();
+                if (!buffer.transactions.isEmpty() && (all || now - buffer.openedAt >= lingerMs)) {
+                    due.put(entry.getKey(), buffer.drain(envelopeSize));
+                }
+            }
+        }
+        due.forEach(this::send);
+    }
+
+    private void send(String topic, List<AuthorizedTransaction> events) {
+        List<CardTransaction> transactions = new ArrayList<>(events.size());
+        List<Integer> declined = new ArrayList<>();
+        for (AuthorizedTransaction event : events) {
+            if (event.isDeclined()) {
+                declined.add(transactions.size());
+            }
+            transactions.add(event.getTransaction());
+        }
+        CardTransactionBatch envelope = new CardTransactionBatch(
+                idGenerator.nextId(), instanceId, System.currentTimeMillis(), transactions, declined);
+        String envelopeTopic = envelopeTopic(topic);
+        int count = transactions.size();
+        try {
+            ProducerRecord<String, Object> record =
+                    new ProducerRecord<>(envelopeTopic, envelope.getBatchId().toString(), envelope);
+            transactionRecordFactory.stampLatencyHeaders(record.headers());
+            kafkaTemplate.send(record).addCallback(
+                    result -> stats.recordAcked(count, result.getRecordMetadata().serializedValueSize()
+                            + Math.max(0, result.getRecordMetadata().serializedKeySize())),
+                    ex -> {
+                        stats.recordFailed(count);
+                        log.error("Failed to send envelope of {} transactions to topic {}", count, envelopeTopic, ex);
+                    });
+        } catch (Exception e) {
+            stats.recordFailed(count);
+            log.error("Error sending envelope to Kafka: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drain(true);
+    }
+
+    private static final class Buffer {
+        private List<AuthorizedTransaction> transactions = new ArrayList<>();
+        private long openedAt;
+
+        List<AuthorizedTransaction> drain(int nextCapacity) {
+            List<AuthorizedTransaction> drained = transactions;
+            transactions = new ArrayList<>(nextCapacity);
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.service.id.TransactionIdGenerator;
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Publishes rule alerts to the {@code fraud-alerts} topic as Avro records
+ * ({@code avro/fraud-alert.avsc}), keyed by card id.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FraudAlertPublisher {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionIdGenerator idGenerator;
+
+    @Value("${app.kafka.topics.fraud-alerts}")
+    private String fraudAlertsTopic;
+
+    private Schema alertSchema;
+
+    @PostConstruct
+    public void loadSchema() throws IOException {
+        try (InputStream in = new ClassPathResource("avro/fraud-alert.avsc").getInputStream()) {
+            alertSchema = new Schema.Parser().parse(in);
+        }
+    }
+
+    public void publish(String ruleName, CardTransaction transaction, int windowMinutes,
+                        int transactionCount, double amountSum, int distinctMerchants, double threshold) {
+        GenericRecord alert = new GenericData.Record(alertSchema);
+        alert.put("alertId", idGenerator.nextId());
+        alert.put("ruleName", ruleName);
+        alert.put("cardId", transaction.getCardId().toString());
+        alert.put("customerId", transaction.getCustomerId().toString());
+        alert.put("transactionId", transaction.getTransactionId().toString());
+        alert.put("windowMinutes", windowMinutes);
+        alert.put("transactionCount", transactionCount);
+        alert.put("amountSum", amountSum);
+        alert.put("distinctMerchants", distinctMerchants);
+        alert.put("threshold", threshold);
+        alert.put("detectedAt", System.currentTimeMillis());
+
+        try {
+            kafkaTemplate.send(fraudAlertsTopic, transaction.getCardId().toString(), alert)
+                    .addCallback(
+                            result -> log.debug("Published {} alert for card {}", ruleName, transaction.getCardId()),
+                            ex -> log.error("Failed to publish {} alert for card {} to topic {}",
+                                    ruleName, transaction.getCardId(), fraudAlertsTopic, ex)
+                    );
+        } catch (Exception e) {
+            log.error("Error publishing fraud alert: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.codedstream.transfraud.service;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only checkpoint log for generator state.
+ * <p>
+ * A checkpoint appends only the cards touched since the previous one plus a small state record,
+ * then forces the file, so the write cost follows the churn of the stream rather than the size of
+ * the population. Once the log outgrows {@code compact-bytes} it is rewritten with one record per
+ * card. A torn record at the tail (crash mid-write) is ignored on load.
+ */
+@Slf4j
+@Component
+public class GeneratorCheckpointStore {
+
+    private static final int MAGIC = 0x4358434B; // "CXCK"
+    private static final short FORMAT_VERSION = 1;
+    private static final byte TAG_STATE = 'L';
+    private static final byte TAG_CARD = 'C';
+
+    @Value("${app.generator.checkpoint.path:./data/generator.checkpoint}")
+    private String path;
+
+    @Value("${app.generator.checkpoint.compact-bytes:67108864}")
+    private long compactBytes;
+
+    private FileChannel channel;
+    // Highest sequence limit ever written; state records never move it backwards
+    private long maxSequenceLimit;
+
+    public synchronized Loaded load() throws IOException {
+        Path file = Paths.get(path);
+        if (!Files.isRegularFile(file) || Files.size(file) == 0) {
+            return null;
+        }
+
+        Loaded loaded = new Loaded();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION) {
+                throw new IllegalStateException("Not a generator checkpoint file: " + path);
+            }
+            while (true) {
+                byte tag = in.readByte();
+                if (tag == TAG_STATE) {
+                    long seed = in.readLong();
+                    long sequenceLimit = in.readLong();
+                    long bulkOutstanding = in.readLong();
+                    in.readLong(); // written at
+                    loaded.seed = seed;
+                    loaded.sequenceLimit = Math.max(loaded.sequenceLimit, sequenceLimit);
+                    loaded.bulkOutstanding = bulkOutstanding;
+                    loaded.hasState = true;
+                } else if (tag == TAG_CARD) {
+                    String cardId = in.readUTF();
+                    String lastTransactionId = in.readUTF();
+                    long lastTimestamp = in.readLong();
+                    loaded.cards.put(cardId, new GeneratorStateService.CardChain(lastTransactionId, lastTimestamp));
+                } else {
+                    log.warn("Stopping checkpoint replay at unknown record tag {}", tag);
+                    break;
+                }
+            }
+        } catch (EOFException e) {
+            // End of log, or a record torn by a crash mid-append
+        }
+        maxSequenceLimit = loaded.sequenceLimit;
+        return loaded.hasState ? loaded : null;
+    }
+
+    public synchronized void appendState(long seed, long sequenceLimit, long bulkOutstanding) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeState(out, seed, sequenceLimit, bulkOutstanding);
+        append(bytes.toByteArray());
+    }
+
+    /**
+     * Appends the given card states followed by a state record, and forces both to disk.
+     */
+    public synchronized void appendCheckpoint(Map<String, GeneratorStateService.CardChain> cards,
+                                              long seed, long sequenceLimit, long bulkOutstanding) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + cards.size() * 96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Map.Entry<String, GeneratorStateService.CardChain> card : cards.entrySet()) {
+            writeCard(out, card.getKey(), card.getValue());
+        }
+        writeState(out, seed, sequenceLimit, bulkOutstanding);
+        append(bytes.toByteArray());
+    }
+
+    public synchronized boolean needsCompaction() throws IOException {
+        return channel != null && channel.size() > compactBytes;
+    }
+
+    /**
+     * Rewrites the log as a single full checkpoint and atomically replaces the old file.
+     */
+    public synchronized void compact(Map<String, GeneratorStateService.CardChain> cards,
+                                     long seed, long sequenceLimit, long bulkOutstanding) throws IOException {
+        Path target = Paths.get(path);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel compacted = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            for (Map.Entry<String, GeneratorStateService.CardChain> card : cards.entrySet()) {
+                writeCard(out, card.getKey(), card.getValue());
+                if (bytes.size() >= 1 << 16) {
+                    compacted.write(ByteBuffer.wrap(bytes.toByteArray()));
+                    bytes.reset();
+                }
+            }
+            writeState(out, seed, sequenceLimit, bulkOutstanding);
+            compacted.write(ByteBuffer.wrap(bytes.toByteArray()));
+            compacted.force(false);
+        }
+        close();
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Compacted generator checkpoint to {} cards ({} bytes)", cards.size(), Files.size(target));
+    }
+
+    private void append(byte[] record) throws IOException {
+        FileChannel out = channel();
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        out.force(false);
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Path file = Paths.get(path);
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (fresh) {
+                ByteBuffer header = ByteBuffer.allocate(6).putInt(MAGIC).putShort(FORMAT_VERSION);
+                header.flip();
+                channel.write(header);
+            }
+        }
+        return channel;
+    }
+
+    private void writeState(DataOutputStream out, long seed, long sequenceLimit, long bulkOutstanding) throws IOException {
+        maxSequenceLimit = Math.max(maxSequenceLimit, sequenceLimit);
+        out.writeByte(TAG_STATE);
+        out.writeLong(seed);
+        out.writeLong(maxSequenceLimit);
+        out.writeLong(bulkOutstanding);
+        out.writeLong(System.currentTimeMillis());
+    }
+
+    private void writeCard(DataOutputStream out, String cardId, GeneratorStateService.CardChain chain) throws IOException {
+        out.writeByte(TAG_CARD);
+        out.writeUTF(cardId);
+        out.writeUTF(chain.getLastTransactionId());
+        out.writeLong(chain.getLastTimestamp());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    @Getter
+    public static class Loaded {
+        private long seed;
+        private long sequenceLimit;
+        private long bulkOutstanding;
+        private boolean hasState;
+        private final Map<String, GeneratorStateService.CardChain> cards = new HashMap<>();
+    }
+}
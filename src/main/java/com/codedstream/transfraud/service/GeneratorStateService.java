@@ -0,0 +1,244 @@
+package com.codedstream.transfraud.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resumable generator state: the stream seed, the event sequence, the last event of every card
+ * and the number of bulk-run events still owed.
+ * <p>
+ * Sequences are handed out from leases of {@code lease-size} numbers; a lease is durably recorded
+ * before any number in it is used. A restarted instance continues from the end of the last lease,
+ * so no sequence (and therefore no event, see {@link SequenceRandom}) is ever emitted twice, at the
+ * price of a gap of at most one lease. Card chains and bulk progress are checkpointed every
+ * {@code interval-ms}.
+ * <p>
+ * A procedural population has far more cards than memory, so there at most
+ * {@code max-card-chains} chains are kept and a chain whose last event is older than
+ * {@code chain-idle-expiry-ms} is dropped. A card without a chain starts a new one: its next
+ * event has no {@code previousTransactionId}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GeneratorStateService {
+
+    private final GeneratorCheckpointStore checkpointStore;
+    private final PopulationRegistry populationRegistry;
+
+    @Value("${app.generator.checkpoint.enabled:true}")
+    private boolean checkpointEnabled;
+
+    @Value("${app.generator.seed:0}")
+    private long configuredSeed;
+
+    @Value("${app.generator.checkpoint.lease-size:100000}")
+    private long leaseSize;
+
+    @Value("${app.generator.max-card-chains:1000000}")
+    private int maxCardChains;
+
+    @Value("${app.generator.chain-idle-expiry-ms:86400000}")
+    private long chainIdleExpiryMs;
+
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicLong bulkOutstanding = new AtomicLong();
+    private final Map<String, CardChain> chains = new ConcurrentHashMap<>();
+    private final AtomicReference<Set<String>> dirtyCards = new AtomicReference<>(ConcurrentHashMap.newKeySet());
+    private final LongAdder unchainedEvents = new LongAdder();
+    private final LongAdder expiredChains = new LongAdder();
+
+    private volatile long leaseLimit;
+    private long seed;
+    private long resumedFrom = -1;
+
+    @PostConstruct
+    public void restore() {
+        seed = configuredSeed != 0 ? configuredSeed : ThreadLocalRandom.current().nextLong() | 1L;
+        if (!checkpointEnabled) {
+            leaseLimit = Long.MAX_VALUE;
+            return;
+        }
+
+        try {
+            GeneratorCheckpointStore.Loaded loaded = checkpointStore.load();
+            if (loaded != null) {
+                seed = loaded.getSeed();
+                nextSequence.set(loaded.getSequenceLimit());
+                leaseLimit = loaded.getSequenceLimit();
+                bulkOutstanding.set(loaded.getBulkOutstanding());
+                chains.putAll(loaded.getCards());
+                resumedFrom = loaded.getSequenceLimit();
+                log.info("Resumed generator state: seed {}, sequence {}, {} card chains, {} bulk events outstanding",
+                        seed, resumedFrom, chains.size(), loaded.getBulkOutstanding());
+                expireIdleChains();
+            }
+        } catch (Exception e) {
+            log.error("Failed to load generator checkpoint, starting a new stream: {}", e.getMessage(), e);
+        }
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Next event sequence number; only blocks when the current lease is exhausted.
+     */
+    public long nextSequence() {
+        long sequence = nextSequence.getAndIncrement();
+        if (sequence >= leaseLimit) {
+            extendLease(sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Records {@code transactionId} as the card's latest event.
+     *
+     * @return the card's previous transaction id, or {@code null} for its first event
+     */
+    public String advanceCardChain(String cardId, String transactionId, long timestamp) {
+        if (chains.size() >= maxCardChains && populationRegistry.isProcedural() && !chains.containsKey(cardId)) {
+            unchainedEvents.increment();
+            return null;
+        }
+        CardChain previous = chains.put(cardId, new CardChain(transactionId, timestamp));
+        if (checkpointEnabled) {
+            markDirty(cardId);
+        }
+        return previous == null ? null : previous.getLastTransactionId();
+    }
+
+    /**
+     * Adds the card to the current dirty set. A checkpoint may swap the set out between reading it
+     * and adding to it, and may already have iterated it by then; seeing a different set after the
+     * add means that happened, so the card is marked again in the set the next checkpoint takes.
+     */
+    private void markDirty(String cardId) {
+        Set<String> dirty = dirtyCards.get();
+        dirty.add(cardId);
+        Set<String> current;
+        while ((current = dirtyCards.get()) != dirty) {
+            dirty = current;
+            dirty.add(cardId);
+        }
+    }
+
+    public void bulkRequested(long count) {
+        bulkOutstanding.addAndGet(count);
+    }
+
+    public void bulkProgressed(long count) {
+        bulkOutstanding.addAndGet(-count);
+    }
+
+    /**
+     * Takes ownership of the bulk events left over by a previous run.
+     */
+    public long claimBulkOutstanding() {
+        return bulkOutstanding.getAndSet(0);
+    }
+
+    @Scheduled(fixedDelayString = "${app.generator.checkpoint.interval-ms:5000}")
+    public void checkpoint() {
+        if (!checkpointEnabled) {
+            return;
+        }
+
+        Set<String> dirty = dirtyCards.getAndSet(ConcurrentHashMap.newKeySet());
+        try {
+            if (checkpointStore.needsCompaction()) {
+                // Iterating the live map is safe; cards changed meanwhile are in the next dirty set
+                checkpointStore.compact(chains, seed, leaseLimit, bulkOutstanding.get());
+                return;
+            }
+
+            Map<String, CardChain> changed = new HashMap<>(dirty.size() * 2);
+            for (String cardId : dirty) {
+                CardChain chain = chains.get(cardId);
+                if (chain != null) {
+                    changed.put(cardId, chain);
+                }
+            }
+            checkpointStore.appendCheckpoint(changed, seed, leaseLimit, bulkOutstanding.get());
+        } catch (Exception e) {
+            // Re-queue so the next checkpoint retries these cards
+            dirtyCards.get().addAll(dirty);
+            log.error("Failed to write generator checkpoint: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Procedural mode only: drops the chains of cards idle for {@code chain-idle-expiry-ms}. The
+     * checkpoint forgets them at its next compaction.
+     */
+    @Scheduled(fixedDelayString = "${app.population.procedural.sweep-interval-ms:60000}")
+    public void expireIdleChains() {
+        if (!populationRegistry.isProcedural()) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - chainIdleExpiryMs;
+        chains.values().removeIf(chain -> {
+            if (chain.getLastTimestamp() >= cutoff) {
+                return false;
+            }
+            expiredChains.increment();
+            return true;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("checkpointEnabled", checkpointEnabled);
+        stats.put("seed", seed);
+        stats.put("nextSequence", nextSequence.get());
+        stats.put("leaseLimit", leaseLimit);
+        stats.put("resumedFromSequence", resumedFrom);
+        stats.put("cardChains", chains.size());
+        stats.put("unchainedEvents", unchainedEvents.sum());
+        stats.put("expiredChains", expiredChains.sum());
+        stats.put("bulkOutstanding", bulkOutstanding.get());
+        return stats;
+    }
+
+    private synchronized void extendLease(long sequence) {
+        if (sequence < leaseLimit) {
+            return;
+        }
+        long newLimit = sequence + leaseSize;
+        try {
+            checkpointStore.appendState(seed, newLimit, bulkOutstanding.get());
+        } catch (Exception e) {
+            // Keep generating; a restart may then reuse part of this lease
+            log.error("Failed to persist sequence lease up to {}: {}", newLimit, e.getMessage());
+        }
+        leaseLimit = newLimit;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        checkpoint();
+    }
+
+    @lombok.Value
+    public static class CardChain {
+        String lastTransactionId;
+        long lastTimestamp;
+    }
+}
@@ -0,0 +1,124 @@
+package com.codedstream.transfraud.service;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel holding items until a later tick. Scheduling and expiry are O(1) per item;
+ * delays longer than one revolution are kept as remaining rounds in their slot.
+ * <p>
+ * Not thread-safe: one thread owns the wheel and feeds it from a queue.
+ */
+final class HashedTimerWheel<T> {
+
+    private final Slot<T>[] slots;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    HashedTimerWheel(int slotCount) {
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Timer wheel size must be a power of two: " + slotCount);
+        }
+        slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot<>();
+        }
+        mask = slotCount - 1;
+    }
+
+    /**
+     * Schedules {@code item} to expire {@code delayTicks} ticks after the current one (at least one).
+     */
+    void schedule(T item, long delayTicks) {
+        long ticks = Math.max(1, delayTicks);
+        long due = currentTick + ticks;
+        slots[(int) (due & mask)].add(item, (ticks - 1) / slots.length);
+        size++;
+    }
+
+    /**
+     * Moves to the next tick and hands every item due in it to {@code expired}.
+     */
+    void advance(Consumer<T> expired) {
+        currentTick++;
+        size -= slots[(int) (currentTick & mask)].expire(expired);
+    }
+
+    /**
+     * Hands every remaining item to {@code drained}, in slot order rather than due order.
+     */
+    void drain(Consumer<T> drained) {
+        for (Slot<T> slot : slots) {
+            size -= slot.drainAll(drained);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Items and their remaining rounds in parallel arrays; expiry compacts survivors in place.
+     */
+    private static final class Slot<T> {
+        private Object[] items = new Object[4];
+        private long[] rounds = new long[4];
+        private int count;
+
+        void add(T item, long remainingRounds) {
+            if (count == items.length) {
+                int capacity = count * 2;
+                items = Arrays.copyOf(items, capacity);
+                rounds = Arrays.copyOf(rounds, capacity);
+            }
+            items[count] = item;
+            rounds[count] = remainingRounds;
+            count++;
+        }
+
+        @SuppressWarnings("unchecked")
+        int expire(Consumer<T> expired) {
+            int kept = 0;
+            int released = 0;
+            for (int i = 0; i < count; i++) {
+                if (rounds[i] == 0) {
+                    expired.accept((T) items[i]);
+                    released++;
+                } else {
+                    items[kept] = items[i];
+                    rounds[kept] = rounds[i] - 1;
+                    kept++;
+                }
+            }
+            for (int i = kept; i < count; i++) {
+                items[i] = null;
+            }
+            count = kept;
+            shrinkIfSparse();
+            return released;
+        }
+
+        @SuppressWarnings("unchecked")
+        int drainAll(Consumer<T> drained) {
+            int drainedCount = count;
+            for (int i = 0; i < count; i++) {
+                drained.accept((T) items[i]);
+                items[i] = null;
+            }
+            count = 0;
+            shrinkIfSparse();
+            return drainedCount;
+        }
+
+        // Gives back memory after a burst so an idle wheel returns to its small footprint
+        private void shrinkIfSparse() {
+            if (items.length > 64 && count < items.length / 4) {
+                int capacity = Math.max(4, count * 2);
+                items = Arrays.copyOf(items, capacity);
+                rounds = Arrays.copyOf(rounds, capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spreads plain (non-transactional) sends over {@code app.kafka.producer-pool.size} independent
+ * {@code KafkaProducer}s, each with its own record accumulator, {@code buffer.memory} and sender
+ * I/O thread, so one sender thread no longer caps a generator running on many cores.
+ * <p>
+ * Selection is either by {@code partition}: the record's partition is computed with Kafka's own
+ * murmur2 key hash and set explicitly, and partition {@code p} always goes to producer
+ * {@code p % size}. Each producer then batches for a disjoint set of partitions and per-key
+ * ordering is kept. A producer beyond the partition count would never be picked, so the pool is
+ * capped at {@code app.kafka.topics.partitions} in this mode. Or by {@code thread}: each sending thread is pinned to one producer
+ * round-robin on first use, which avoids contention on an accumulator's partition locks but
+ * lets records of one key leave through different producers.
+ * <p>
+ * A size of 1 keeps using Boot's auto-configured template, so the default behaviour is unchanged,
+ * unless producer tuning is on: the pool then owns its producers so it can
+ * {@link #reconfigure(Map) rebuild} them with new settings.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KafkaProducerPool {
+
+    private static final List<String> REPORTED_METRICS = Arrays.asList(
+            "record-send-rate", "batch-size-avg", "records-per-request-avg", "request-latency-avg",
+            "buffer-available-bytes", "bufferpool-wait-ratio", "io-ratio");
+
+    private final KafkaTemplate<String, CardTransaction> kafkaTemplate;
+    private final KafkaProperties kafkaProperties;
+
+    @Value("${app.kafka.producer-pool.size:1}")
+    private int size;
+
+    // partition | thread
+    @Value("${app.kafka.producer-pool.selection:partition}")
+    private String selection;
+
+    @Value("${app.kafka.topics.partitions:3}")
+    private int topicPartitions;
+
+    @Value("${app.kafka.producer-pool.client-id-prefix:codedx-generator-${app.instance.id:0}-pool-}")
+    private String clientIdPrefix;
+
+    @Value("${app.kafka.producer-tuning.enabled:false}")
+    private boolean tuningEnabled;
+
+    private final Map<String, Integer> partitionCounts = new ConcurrentHashMap<>();
+    private final AtomicInteger nextThreadSlot = new AtomicInteger();
+    private final ThreadLocal<Integer> threadSlot = ThreadLocal.withInitial(nextThreadSlot::getAndIncrement);
+    private final List<LongAdder> sentCounts = new ArrayList<>();
+    private volatile List<Member> members;
+    private List<DefaultKafkaProducerFactory<String, CardTransaction>> factories = new ArrayList<>();
+    private List<DefaultKafkaProducerFactory<String, CardTransaction>> retiredFactories = new ArrayList<>();
+    private Map<String, Object> overrides = new LinkedHashMap<>();
+    private boolean byPartition;
+
+    @PostConstruct
+    public void init() {
+        if (size < 1) {
+            throw new IllegalArgumentException("app.kafka.producer-pool.size must be at least 1: " + size);
+        }
+        if (!"partition".equals(selection) && !"thread".equals(selection)) {
+            throw new IllegalArgumentException("Unknown app.kafka.producer-pool.selection: " + selection);
+        }
+        byPartition = "partition".equals(selection);
+        if (byPartition && size > topicPartitions) {
+            log.warn("app.kafka.producer-pool.size {} exceeds the {} partitions per topic; partition selection"
+                    + " would leave {} producers idle, so only {} are created", size, topicPartitions,
+                    size - topicPartitions, topicPartitions);
+            size = topicPartitions;
+        }
+        for (int i = 0; i < size; i++) {
+            sentCounts.add(new LongAdder());
+        }
+        if (size == 1 && !tuningEnabled) {
+            members = Collections.singletonList(new Member(0, kafkaTemplate, sentCounts.get(0)));
+            return;
+        }
+        members = createMembers();
+        log.info("Created a pool of {} Kafka producers selected by {}", size, selection);
+    }
+
+    /**
+     * Replaces every producer with one built from the Boot producer properties plus
+     * {@code producerOverrides}, as batching settings cannot be changed on a live producer.
+     * <p>
+     * Sends switch to the new producers at once; the old ones are flushed, and closed on the next
+     * reconfiguration or at shutdown so a send that picked one up just before the swap still
+     * completes. Send counts carry over.
+     */
+    public synchronized void reconfigure(Map<String, Object> producerOverrides) {
+        if (factories.isEmpty()) {
+            throw new IllegalStateException("The pool is using the shared template; enable app.kafka.producer-tuning or size > 1");
+        }
+        overrides = new LinkedHashMap<>(producerOverrides);
+        List<DefaultKafkaProducerFactory<String, CardTransaction>> previousFactories = factories;
+        List<Member> previous = members;
+        members = createMembers();
+        for (Member member : previous) {
+            member.template.flush();
+        }
+        destroy(retiredFactories);
+        retiredFactories = previousFactories;
+        log.info("Recreated {} Kafka producers with {}", size, overrides);
+    }
+
+    /**
+     * Current value of a client metric on every producer, skipping producers that do not report
+     * it (yet).
+     */
+    public List<Double> metricValues(String metric) {
+        List<Double> values = new ArrayList<>();
+        for (Member member : members) {
+            Object value = producerMetrics(member.template, Collections.singletonList(metric)).get(metric);
+            if (value instanceof Double && !((Double) value).isNaN() && !((Double) value).isInfinite()) {
+                values.add((Double) value);
+            }
+        }
+        return values;
+    }
+
+    private List<Member> createMembers() {
+        List<Member> created = new ArrayList<>(size);
+        List<DefaultKafkaProducerFactory<String, CardTransaction>> createdFactories = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Map<String, Object> props = kafkaProperties.buildProducerProperties();
+            props.putAll(overrides);
+            props.put(ProducerConfig.CLIENT_ID_CONFIG, clientIdPrefix + i);
+            DefaultKafkaProducerFactory<String, CardTransaction> factory = new DefaultKafkaProducerFactory<>(props);
+            createdFactories.add(factory);
+            created.add(new Member(i, new KafkaTemplate<>(factory), sentCounts.get(i)));
+        }
+        factories = createdFactories;
+        return Collections.unmodifiableList(created);
+    }
+
+    /**
+     * Sends through the producer that owns the record's partition or the calling thread; the
+     * returned future completes as {@link KafkaTemplate#send(ProducerRecord)}'s does.
+     */
+    public ListenableFuture<SendResult<String, CardTransaction>> send(ProducerRecord<String, CardTransaction> record) {
+        List<Member> current = members;
+        Member member;
+        if (size == 1) {
+            member = current.get(0);
+        } else if (byPartition) {
+            int partition = partitionOf(current.get(0), record);
+            record = new ProducerRecord<>(record.topic(), partition, record.timestamp(),
+                    record.key(), record.value(), record.headers());
+            member = current.get(partition % size);
+        } else {
+            member = current.get(Math.floorMod(threadSlot.get(), size));
+        }
+        member.sent.increment();
+        return member.template.send(record);
+    }
+
+    public void flush() {
+        for (Member member : members) {
+            member.template.flush();
+        }
+    }
+
+    /**
+     * Forgets the cached partition counts so added partitions are picked up.
+     */
+    @Scheduled(fixedDelayString = "${app.kafka.producer-pool.metadata-refresh-ms:300000}")
+    public void refreshPartitionCounts() {
+        partitionCounts.clear();
+    }
+
+    /**
+     * Records sent per producer, their share of the total and each producer's own client metrics.
+     * {@code imbalance} is the busiest producer's share over an even share; 1.0 is perfect balance.
+     */
+    public Map<String, Object> getStats() {
+        List<Member> current = members;
+        long total = 0;
+        long busiest = 0;
+        for (Member member : current) {
+            long sent = member.sent.sum();
+            total += sent;
+            busiest = Math.max(busiest, sent);
+        }
+
+        List<Map<String, Object>> perProducer = new ArrayList<>();
+        for (Member member : current) {
+            long sent = member.sent.sum();
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("index", member.index);
+            entry.put("sent", sent);
+            entry.put("share", total == 0 ? 0.0 : Math.round(sent * 10000.0 / total) / 10000.0);
+            entry.put("metrics", producerMetrics(member.template, REPORTED_METRICS));
+            perProducer.add(entry);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size);
+        stats.put("selection", selection);
+        stats.put("sent", total);
+        stats.put("overrides", overrides);
+        stats.put("imbalance", total == 0 ? 1.0 : Math.round(busiest * (double) size / total * 1000) / 1000.0);
+        stats.put("producers", perProducer);
+        return stats;
+    }
+
+    public void resetStats() {
+        for (LongAdder sent : sentCounts) {
+            sent.reset();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        flush();
+        destroy(retiredFactories);
+        destroy(factories);
+    }
+
+    private static void destroy(List<DefaultKafkaProducerFactory<String, CardTransaction>> factoriesToClose) {
+        for (DefaultKafkaProducerFactory<String, CardTransaction> factory : factoriesToClose) {
+            factory.destroy();
+        }
+    }
+
+    private int partitionOf(Member member, ProducerRecord<String, CardTransaction> record) {
+        if (record.partition() != null) {
+            return record.partition();
+        }
+        // Same choice as Kafka's default partitioner for keyed records
+        int partitions = partitionCounts.computeIfAbsent(record.topic(),
+                topic -> readPartitionCount(member, topic));
+        return Utils.toPositive(Utils.murmur2(record.key().getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    private int readPartitionCount(Member member, String topic) {
+        int partitions = member.template.partitionsFor(topic).size();
+        if (byPartition && partitions < size) {
+            log.warn("Topic {} has {} partitions, fewer than the {} pooled producers; {} of them stay idle for it",
+                    topic, partitions, size, size - partitions);
+        }
+        return partitions;
+    }
+
+    private static Map<String, Object> producerMetrics(KafkaTemplate<String, CardTransaction> template, List<String> names) {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<MetricName, ? extends Metric> entry : template.metrics().entrySet()) {
+                MetricName name = entry.getKey();
+                if ("producer-metrics".equals(name.group()) && names.contains(name.name())) {
+                    Object value = entry.getValue().metricValue();
+                    metrics.put(name.name(), value instanceof Double && !((Double) value).isNaN()
+                            ? Math.round((Double) value * 1000) / 1000.0 : value);
+                }
+            }
+        } catch (Exception e) {
+            // No producer has been created yet
+        }
+        return metrics;
+    }
+
+    private static final class Member {
+        final int index;
+        final KafkaTemplate<String, CardTransaction> template;
+        final LongAdder sent;
+
+        Member(int index, KafkaTemplate<String, CardTransaction> template, LongAdder sent) {
+            this.index = index;
+            this.template = template;
+            this.sent = sent;
+        }
+    }
+}
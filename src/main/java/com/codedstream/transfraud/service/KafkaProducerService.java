@@ -1,10 +1,14 @@
 package com.codedstream.transfraud.service;
 
 import com.codedstream.transfraud.model.entity.Transaction;
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import com.codedstream.transfraud.service.latency.LatencyHistogram;
+import com.codedstream.transfraud.service.spool.DiskSpool;
 import com.codedstream.transfruad.library.schema.CardTransaction;
 import com.codedstream.transfruad.library.schema.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
@@ -12,39 +16,132 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.ListenableFutureCallback;
 
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class KafkaProducerService {
 
     private final KafkaTemplate<String, CardTransaction> kafkaTemplate;
+    private final TransactionalKafkaProducerService transactionalProducerService;
+    private final EnvelopeKafkaProducerService envelopeProducerService;
+    private final TransactionRecordFactory transactionRecordFactory;
+    private final KafkaProducerPool producerPool;
+    private final DiskSpool diskSpool;
 
     @Value("${app.kafka.topics.transactions}")
     private String transactionsTopic;
 
+    @Value("${app.kafka.transactional.enabled:false}")
+    private volatile boolean transactionalMode;
+
+    // record: one message per transaction (default) | envelope: batched envelopes | both
+    @Value("${app.sink.kafka.format:record}")
+    private String format;
+
+    private final EmissionStats plainStats = new EmissionStats("plain");
+    private final AtomicReference<LatencyHistogram> plainAckLatency = new AtomicReference<>(new LatencyHistogram());
+    private boolean sendRecords;
+    private boolean sendEnvelopes;
+
+    @PostConstruct
+    public void resolveFormat() {
+        switch (format) {
+            case "record":
+                sendRecords = true;
+                break;
+            case "envelope":
+                sendEnvelopes = true;
+                break;
+            case "both":
+                sendRecords = true;
+                sendEnvelopes = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown app.sink.kafka.format: " + format);
+        }
+        if (sendEnvelopes && transactionalMode) {
+            log.warn("Envelopes are sent with the plain producer; transactional mode only covers per-record output");
+        }
+    }
+
+    /**
+     * Sends a batch in the configured output format(s); a {@code null} topic means the default
+     * transactions topic.
+     */
+    public void sendTransactions(String topic, List<AuthorizedTransaction> batch) {
+        String target = topic == null ? transactionsTopic : topic;
+        if (sendRecords) {
+            for (AuthorizedTransaction transaction : batch) {
+                sendTransaction(target, transaction);
+            }
+        }
+        if (sendEnvelopes) {
+            envelopeProducerService.append(target, batch);
+        }
+    }
+
     public void sendTransaction(CardTransaction cardTransaction) {
+        sendTransaction(transactionsTopic, AuthorizedTransaction.approved(cardTransaction));
+    }
+
+    /**
+     * Sends to an explicit topic; the configured streams share this producer.
+     */
+    public void sendTransaction(String topic, AuthorizedTransaction transaction) {
+        if (transactionalMode) {
+            transactionalProducerService.send(topic, transaction);
+            return;
+        }
+
+        CardTransaction cardTransaction = transaction.getTransaction();
+        ProducerRecord<String, CardTransaction> record = transactionRecordFactory.create(topic, transaction);
+        if (diskSpool.appendIfActive(record)) {
+            // Earlier records are still waiting on disk; queue behind them
+            return;
+        }
         try {
-            ListenableFuture<SendResult<String, CardTransaction>> future =
-                    kafkaTemplate.send(transactionsTopic, (String) cardTransaction.getTransactionId(), cardTransaction);
+            long sentAt = System.nanoTime();
+            ListenableFuture<SendResult<String, CardTransaction>> future = producerPool.send(record);
 
             future.addCallback(new ListenableFutureCallback<SendResult<String, CardTransaction>>() {
                 @Override
                 public void onSuccess(SendResult<String, CardTransaction> result) {
+                    plainAckLatency.get().record((System.nanoTime() - sentAt) / 1000);
+                    plainStats.recordAcked(1, result.getRecordMetadata().serializedValueSize()
+                            + Math.max(0, result.getRecordMetadata().serializedKeySize()));
                     log.debug("Successfully sent transaction {} to topic {}",
-                            cardTransaction.getTransactionId(), transactionsTopic);
+                            cardTransaction.getTransactionId(), topic);
                 }
 
                 @Override
                 public void onFailure(Throwable ex) {
-                    log.error("Failed to send transaction {} to topic {}",
-                            cardTransaction.getTransactionId(), transactionsTopic, ex);
+                    plainStats.recordFailed(1);
+                    if (spool(record)) {
+                        log.debug("Spooled transaction {} for topic {} after send failure: {}",
+                                cardTransaction.getTransactionId(), topic, ex.getMessage());
+                    } else {
+                        log.error("Failed to send transaction {} to topic {}",
+                                cardTransaction.getTransactionId(), topic, ex);
+                    }
                 }
             });
         } catch (Exception e) {
-            log.error("Error sending transaction to Kafka: {}", e.getMessage(), e);
+            if (!spool(record)) {
+                log.error("Error sending transaction to Kafka: {}", e.getMessage(), e);
+            }
         }
     }
 
+    private boolean spool(ProducerRecord<String, CardTransaction> record) {
+        return diskSpool.isEnabled() && diskSpool.append(record);
+    }
+
     // Lambda version (more concise)
     public void sendTransactionWithLambda(CardTransaction cardTransaction) {
         try {
@@ -60,10 +157,83 @@ public class KafkaProducerService {
         }
     }
 
+    /**
+     * Forces out anything buffered: the open transactional batch, or the plain producer's
+     * accumulated batches.
+     */
+    public void flush() {
+        if (sendEnvelopes) {
+            envelopeProducerService.flush();
+        }
+        if (transactionalMode) {
+            transactionalProducerService.flush();
+        } else {
+            producerPool.flush();
+        }
+    }
+
+    public boolean isTransactionalMode() {
+        return transactionalMode;
+    }
+
+    /**
+     * Switches between plain and transactional emission at runtime. Records buffered by the
+     * transactional path are committed before plain sends resume.
+     */
+    public void setTransactionalMode(boolean transactional) {
+        if (!transactional && transactionalMode) {
+            transactionalMode = false;
+            transactionalProducerService.flush();
+        } else {
+            transactionalMode = transactional;
+        }
+        log.info("Kafka emission mode set to {}", transactional ? "transactional" : "plain");
+    }
+
+    /**
+     * Acknowledged throughput of both emission modes, so the cost of exactly-once can be read off
+     * directly after running the same load in each mode.
+     */
+    public Map<String, Object> getThroughputReport() {
+        Map<String, Object> plain = plainStats.toMap();
+        Map<String, Object> transactional = transactionalProducerService.getStats().toMap();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("activeMode", transactionalMode ? "transactional" : "plain");
+        report.put("format", format);
+        report.put("plain", plain);
+        report.put("plainAckLatency", plainAckLatency.get().summary());
+        report.put("transactional", transactional);
+        report.put("transactionalCommit", transactionalProducerService.getCommitStatus());
+        report.put("envelope", envelopeProducerService.getStats().toMap());
+        report.put("pool", producerPool.getStats());
+
+        double plainRate = plainStats.getRecordsPerSecond();
+        double transactionalRate = transactionalProducerService.getStats().getRecordsPerSecond();
+        if (plainRate > 0 && transactionalRate > 0) {
+            report.put("transactionalThroughputRatio", Math.round(transactionalRate / plainRate * 1000) / 1000.0);
+        }
+        double plainBytes = plainStats.getBytesPerRecord();
+        double envelopeBytes = envelopeProducerService.getStats().getBytesPerRecord();
+        if (plainBytes > 0 && envelopeBytes > 0) {
+            report.put("envelopeBytesPerEventRatio", Math.round(envelopeBytes / plainBytes * 1000) / 1000.0);
+        }
+        return report;
+    }
+
+    public void resetThroughputStats() {
+        plainStats.reset();
+        plainAckLatency.set(new LatencyHistogram());
+        transactionalProducerService.getStats().reset();
+        envelopeProducerService.getStats().reset();
+        producerPool.resetStats();
+    }
+
     public void sendTransaction(Transaction transaction) {
         try {
             CardTransaction cardTransaction = convertToAvro(transaction);
-            sendTransaction(cardTransaction);
+            sendTransaction(transactionsTopic, new AuthorizedTransaction(cardTransaction,
+                    AuthorizedTransaction.DECLINED.equalsIgnoreCase(transaction.getStatus())));
         } catch (Exception e) {
             log.error("Error converting and sending transaction: {}", e.getMessage(), e);
         }
@@ -0,0 +1,198 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.geo.GeoRegion;
+import com.codedstream.transfraud.model.geo.Merchant;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fixed-size grid index over a synthetic merchant catalogue.
+ * <p>
+ * Merchants are scattered around each {@link GeoRegion} and bucketed into square lat/lon cells.
+ * Sampling a merchant near a cardholder is a single hash lookup of the home cell; cells without
+ * merchants are resolved once (3x3 neighbourhood, then nearest region) and memoised, so every
+ * lookup after the first for a cell is O(1).
+ * <p>
+ * Category-constrained sampling tries a few draws from the same cell and otherwise falls back to
+ * the category's merchants in that cell's region, so a configured category mix never scans.
+ */
+@Slf4j
+@Component
+public class MerchantGridIndex {
+
+    private static final String[][] BRANDS = {
+            {"Amazon", "RETAIL"}, {"Walmart", "RETAIL"}, {"Starbucks", "FOOD"}, {"Target", "RETAIL"},
+            {"Best Buy", "RETAIL"}, {"McDonald's", "FOOD"}, {"Apple Store", "RETAIL"},
+            {"Netflix", "ENTERTAINMENT"}, {"Uber", "TRAVEL"}, {"Shell Gas", "UTILITIES"},
+            {"AMC Theatres", "ENTERTAINMENT"}, {"Delta Air Lines", "TRAVEL"}, {"FedEx Office", "SERVICES"},
+            {"Comcast", "UTILITIES"}, {"Chipotle", "FOOD"}, {"Great Clips", "SERVICES"}
+    };
+
+    // Draws from the home cell before a category lookup falls back to the whole region
+    private static final int CATEGORY_CELL_ATTEMPTS = 8;
+
+    @Value("${app.merchants.per-region:2000}")
+    private int merchantsPerRegion;
+
+    @Value("${app.merchants.spread-degrees:0.25}")
+    private double spreadDegrees;
+
+    @Value("${app.merchants.grid.cell-degrees:0.1}")
+    private double cellDegrees;
+
+    @Value("${app.merchants.seed:42}")
+    private long seed;
+
+    private Map<Long, Merchant[]> cells;
+    private Merchant[][] merchantsByRegion;
+    private Map<String, Merchant[][]> merchantsByCategory;
+    private final Map<Long, Merchant[]> resolvedCells = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void buildIndex() {
+        Random builder = new Random(seed);
+        Map<Long, List<Merchant>> buckets = new HashMap<>();
+        merchantsByRegion = new Merchant[GeoRegion.count()][];
+
+        int merchantId = 0;
+        for (GeoRegion region : GeoRegion.values()) {
+            Merchant[] regionMerchants = new Merchant[merchantsPerRegion];
+            for (int i = 0; i < merchantsPerRegion; i++) {
+                String[] brand = BRANDS[builder.nextInt(BRANDS.length)];
+                Merchant merchant = new Merchant(
+                        "MERCH_" + merchantId++,
+                        brand[0] + " " + region.getCity() + " #" + (i + 1),
+                        brand[1],
+                        region.getLatitude() + builder.nextGaussian() * spreadDegrees,
+                        region.getLongitude() + builder.nextGaussian() * spreadDegrees,
+                        region);
+                regionMerchants[i] = merchant;
+                buckets.computeIfAbsent(cellKey(merchant.getLatitude(), merchant.getLongitude()),
+                        k -> new ArrayList<>()).add(merchant);
+            }
+            merchantsByRegion[region.ordinal()] = regionMerchants;
+        }
+
+        Map<String, Merchant[][]> byCategory = new TreeMap<>();
+        for (String[] brand : BRANDS) {
+            byCategory.computeIfAbsent(brand[1], category -> {
+                Merchant[][] perRegion = new Merchant[GeoRegion.count()][];
+                for (GeoRegion region : GeoRegion.values()) {
+                    Merchant[] matching = Arrays.stream(merchantsByRegion[region.ordinal()])
+                            .filter(merchant -> merchant.getCategory().equals(category))
+                            .toArray(Merchant[]::new);
+                    // A tiny catalogue may lack the category in a region; use the region as a whole
+                    perRegion[region.ordinal()] = matching.length > 0 ? matching : merchantsByRegion[region.ordinal()];
+                }
+                return perRegion;
+            });
+        }
+        merchantsByCategory = byCategory;
+
+        Map<Long, Merchant[]> index = new HashMap<>(buckets.size() * 2);
+        buckets.forEach((key, merchants) -> index.put(key, merchants.toArray(new Merchant[0])));
+        cells = index;
+
+        log.info("Built merchant grid index: {} merchants in {} cells of {} degrees",
+                merchantId, cells.size(), cellDegrees);
+    }
+
+    /**
+     * Merchant in the cardholder's home cell, or the closest populated area around it.
+     */
+    public Merchant sampleNear(double latitude, double longitude, Random random) {
+        long key = cellKey(latitude, longitude);
+        Merchant[] candidates = cells.get(key);
+        if (candidates == null) {
+            candidates = resolvedCells.computeIfAbsent(key, k -> resolveEmptyCell(latitude, longitude));
+        }
+        return candidates[random.nextInt(candidates.length)];
+    }
+
+    /**
+     * Merchant of {@code category} near the cardholder's home, or in the home cell's region.
+     */
+    public Merchant sampleNear(double latitude, double longitude, String category, Random random) {
+        Merchant candidate = sampleNear(latitude, longitude, random);
+        for (int attempt = 1; attempt < CATEGORY_CELL_ATTEMPTS && !candidate.getCategory().equals(category); attempt++) {
+            candidate = sampleNear(latitude, longitude, random);
+        }
+        return candidate.getCategory().equals(category)
+                ? candidate : sampleInRegion(candidate.getRegion(), category, random);
+    }
+
+    /**
+     * Merchant in a region other than {@code home}, for travel transactions.
+     */
+    public Merchant sampleTravel(GeoRegion home, Random random) {
+        return sampleInRegion(travelDestination(home, random), random);
+    }
+
+    public Merchant sampleTravel(GeoRegion home, String category, Random random) {
+        return sampleInRegion(travelDestination(home, random), category, random);
+    }
+
+    public Merchant sampleInRegion(GeoRegion region, Random random) {
+        Merchant[] merchants = merchantsByRegion[region.ordinal()];
+        return merchants[random.nextInt(merchants.length)];
+    }
+
+    public Merchant sampleInRegion(GeoRegion region, String category, Random random) {
+        Merchant[][] perRegion = merchantsByCategory.get(category);
+        if (perRegion == null) {
+            throw new IllegalArgumentException("Unknown merchant category: " + category);
+        }
+        Merchant[] merchants = perRegion[region.ordinal()];
+        return merchants[random.nextInt(merchants.length)];
+    }
+
+    public Set<String> getCategories() {
+        return Collections.unmodifiableSet(merchantsByCategory.keySet());
+    }
+
+    public int getCellCount() {
+        return cells.size();
+    }
+
+    private GeoRegion travelDestination(GeoRegion home, Random random) {
+        int offset = 1 + random.nextInt(GeoRegion.count() - 1);
+        return GeoRegion.byOrdinal((home.ordinal() + offset) % GeoRegion.count());
+    }
+
+    private Merchant[] resolveEmptyCell(double latitude, double longitude) {
+        List<Merchant> neighbours = new ArrayList<>();
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                Merchant[] merchants = cells.get(cellKey(latitude + dLat * cellDegrees, longitude + dLon * cellDegrees));
+                if (merchants != null) {
+                    for (Merchant merchant : merchants) {
+                        neighbours.add(merchant);
+                    }
+                }
+            }
+        }
+        if (!neighbours.isEmpty()) {
+            return neighbours.toArray(new Merchant[0]);
+        }
+        return merchantsByRegion[GeoRegion.nearest(latitude, longitude).ordinal()];
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        long row = (long) Math.floor((latitude + 90.0) / cellDegrees);
+        long col = (long) Math.floor((longitude + 180.0) / cellDegrees);
+        return (row << 32) | (col & 0xFFFFFFFFL);
+    }
+}
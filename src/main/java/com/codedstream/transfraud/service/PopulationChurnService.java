@@ -0,0 +1,137 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.entity.Card;
+import com.codedstream.transfraud.model.entity.Customer;
+import com.codedstream.transfraud.model.population.CardProfile;
+import com.codedstream.transfraud.repository.CardRepository;
+import com.codedstream.transfraud.repository.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live population churn for soak tests: cards get blocked, new cards get issued to existing
+ * customers and new customers onboard at configured per-minute rates.
+ * <p>
+ * Each tick persists its changes and then publishes them to generators as one snapshot swap
+ * through {@link PopulationRegistry}, so churn never takes a lock on the generation path.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PopulationChurnService {
+
+    private final PopulationRegistry populationRegistry;
+    private final DataGeneratorService dataGeneratorService;
+    private final CardRepository cardRepository;
+    private final CustomerRepository customerRepository;
+
+    @Value("${app.population.churn.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.population.churn.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${app.population.churn.card-blocks-per-minute:6.0}")
+    private double cardBlocksPerMinute;
+
+    @Value("${app.population.churn.card-issues-per-minute:6.0}")
+    private double cardIssuesPerMinute;
+
+    @Value("${app.population.churn.customer-onboardings-per-minute:2.0}")
+    private double customerOnboardingsPerMinute;
+
+    private double blockCarry;
+    private double issueCarry;
+    private double onboardCarry;
+
+    private final AtomicLong blockedCards = new AtomicLong();
+    private final AtomicLong issuedCards = new AtomicLong();
+    private final AtomicLong onboardedCustomers = new AtomicLong();
+
+    @Scheduled(fixedDelayString = "${app.population.churn.tick-ms:1000}")
+    public void churn() {
+        // Procedural populations are a pure function of their index and have nothing to churn
+        if (!enabled || populationRegistry.isProcedural() || !dataGeneratorService.isDataInitialized()
+                || populationRegistry.current().isEmpty()) {
+            return;
+        }
+
+        double ticksPerMinute = 60_000.0 / tickMs;
+        blockCarry += cardBlocksPerMinute / ticksPerMinute;
+        issueCarry += cardIssuesPerMinute / ticksPerMinute;
+        onboardCarry += customerOnboardingsPerMinute / ticksPerMinute;
+
+        int blocks = (int) blockCarry;
+        int issues = (int) issueCarry;
+        int onboardings = (int) onboardCarry;
+        blockCarry -= blocks;
+        issueCarry -= issues;
+        onboardCarry -= onboardings;
+
+        if (blocks + issues + onboardings == 0) {
+            return;
+        }
+
+        try {
+            populationRegistry.update(editor -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+
+                for (int i = 0; i < blocks && editor.size() > 1; i++) {
+                    CardProfile blocked = editor.remove(random.nextInt(editor.size()));
+                    cardRepository.deactivateCard(blocked.getCardId());
+                    blockedCards.incrementAndGet();
+                }
+
+                for (int i = 0; i < issues && editor.size() > 0; i++) {
+                    CardProfile holder = editor.get(random.nextInt(editor.size()));
+                    Optional<Customer> customer = customerRepository.findById(holder.getCustomerId());
+                    if (customer.isPresent()) {
+                        editor.add(toProfile(dataGeneratorService.issueCard(customer.get()), customer.get()));
+                        issuedCards.incrementAndGet();
+                    }
+                }
+
+                for (int i = 0; i < onboardings; i++) {
+                    Customer customer = dataGeneratorService.onboardCustomer();
+                    for (Card card : customer.getCards()) {
+                        editor.add(toProfile(card, customer));
+                    }
+                    onboardedCustomers.incrementAndGet();
+                }
+            });
+            log.debug("Population churn: {} blocked, {} issued, {} onboarded", blocks, issues, onboardings);
+        } catch (Exception e) {
+            log.error("Population churn tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("churnEnabled", enabled && !populationRegistry.isProcedural());
+        stats.put("populationMode", populationRegistry.isProcedural() ? "procedural" : "stored");
+        stats.put("activeCards", populationRegistry.current().size());
+        stats.put("snapshotVersion", populationRegistry.current().getVersion());
+        stats.put("blockedCards", blockedCards.get());
+        stats.put("issuedCards", issuedCards.get());
+        stats.put("onboardedCustomers", onboardedCustomers.get());
+        return stats;
+    }
+
+    private CardProfile toProfile(Card card, Customer customer) {
+        Customer.Address address = customer.getAddress();
+        return new CardProfile(card.getId(), customer.getId(), card.getCardType(), card.getCreditLimit(),
+                card.getAvailableBalance(),
+                address == null ? null : address.getLatitude(),
+                address == null ? null : address.getLongitude());
+    }
+}
@@ -0,0 +1,96 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.population.CardProfile;
+import com.codedstream.transfraud.model.population.Population;
+import com.codedstream.transfraud.model.population.PopulationSnapshot;
+import com.codedstream.transfraud.model.population.ProceduralPopulation;
+import com.codedstream.transfraud.repository.CardRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Holds the current {@link Population}. Generator threads read it with a single volatile load and
+ * never lock or query the database; writers (reload, churn) build the next population off to the
+ * side and publish it with one reference swap.
+ * <p>
+ * With {@code app.population.mode: stored} (default) the population is a {@link PopulationSnapshot}
+ * of the active cards in the database. With {@code procedural} it is a {@link ProceduralPopulation}
+ * derived from a seed and an index, with nothing stored at all.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PopulationRegistry {
+
+    private final CardRepository cardRepository;
+    private final AtomicReference<Population> current = new AtomicReference<>(PopulationSnapshot.EMPTY);
+
+    @Value("${app.population.mode:stored}")
+    private String mode;
+
+    @Value("${app.population.procedural.seed:42}")
+    private long proceduralSeed;
+
+    @Value("${app.population.procedural.customers:50000000}")
+    private long proceduralCustomers;
+
+    @Value("${app.population.procedural.cards-per-customer:2}")
+    private int proceduralCardsPerCustomer;
+
+    @PostConstruct
+    public void validateMode() {
+        if (!"stored".equals(mode) && !"procedural".equals(mode)) {
+            throw new IllegalArgumentException("Unknown app.population.mode: " + mode);
+        }
+    }
+
+    public Population current() {
+        return current.get();
+    }
+
+    public boolean isProcedural() {
+        return "procedural".equals(mode);
+    }
+
+    /**
+     * Rebuilds the population: from the active cards in the database, or procedurally.
+     */
+    public synchronized Population reload() {
+        long start = System.currentTimeMillis();
+        Population population;
+        if (isProcedural()) {
+            population = new ProceduralPopulation(proceduralSeed, proceduralCustomers, proceduralCardsPerCustomer,
+                    current.get().getVersion() + 1);
+        } else {
+            List<CardProfile> profiles = cardRepository.findActiveCardProfiles();
+            population = PopulationSnapshot.of(profiles, current.get().getVersion() + 1);
+        }
+        current.set(population);
+        log.info("Loaded {} population v{} with {} active cards in {} ms",
+                mode, population.getVersion(), population.size(), System.currentTimeMillis() - start);
+        return population;
+    }
+
+    /**
+     * Applies {@code changes} to a copy-on-write editor of the current snapshot and publishes the
+     * result. Writers are serialised; readers are never blocked.
+     */
+    public synchronized PopulationSnapshot update(Consumer<PopulationSnapshot.Editor> changes) {
+        Population population = current.get();
+        if (!(population instanceof PopulationSnapshot)) {
+            throw new IllegalStateException("A procedural population cannot be edited");
+        }
+        PopulationSnapshot.Editor editor = ((PopulationSnapshot) population).edit();
+        changes.accept(editor);
+        PopulationSnapshot snapshot = editor.build();
+        current.set(snapshot);
+        return snapshot;
+    }
+}
@@ -0,0 +1,343 @@
+package com.codedstream.transfraud.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports the seeded customer/card population to a compact binary snapshot file and
+ * bulk-loads it back, so a restart does not have to regenerate the population row by row.
+ * <p>
+ * Both directions bypass JPA: export streams rows through a JDBC cursor and import
+ * writes them with JDBC batch inserts, so memory stays flat whatever the population size.
+ * <p>
+ * The header records the {@code initial-customers} and {@code initial-cards-per-customer} the
+ * population was seeded with; a snapshot seeded with other settings is refused on import.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PopulationSnapshotService {
+
+    private static final int MAGIC = 0x43585053; // "CXPS"
+    private static final short FORMAT_VERSION = 2;
+    // Version 1 headers carry no seeding settings
+    private static final short UNCHECKED_FORMAT_VERSION = 1;
+
+    private static final byte TAG_CUSTOMER = 'C';
+    private static final byte TAG_CARD = 'K';
+    private static final byte TAG_END = 'E';
+
+    private static final String SELECT_CUSTOMERS =
+            "SELECT id, first_name, last_name, email, phone_number, street, city, state, zip_code, country, " +
+            "latitude, longitude, created_at, average_transaction_amount, typical_transaction_hours FROM customers";
+
+    private static final String SELECT_CARDS =
+            "SELECT id, customer_id, card_number, card_holder_name, expiry_date, cvv, card_type, " +
+            "credit_limit, available_balance, is_active, created_at FROM cards";
+
+    private static final String INSERT_CUSTOMER =
+            "INSERT INTO customers (id, first_name, last_name, email, phone_number, street, city, state, zip_code, " +
+            "country, latitude, longitude, created_at, average_transaction_amount, typical_transaction_hours) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_CARD =
+            "INSERT INTO cards (id, customer_id, card_number, card_holder_name, expiry_date, cvv, card_type, " +
+            "credit_limit, available_balance, is_active, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.data.snapshot.path:./data/population.snapshot}")
+    private String snapshotPath;
+
+    @Value("${app.data.snapshot.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${app.data.snapshot.fetch-size:5000}")
+    private int fetchSize;
+
+    @Value("${app.data.generation.initial-customers:100}")
+    private int initialCustomers;
+
+    @Value("${app.data.generation.initial-cards-per-customer:2}")
+    private int cardsPerCustomer;
+
+    public boolean snapshotExists() {
+        return Files.isRegularFile(Paths.get(snapshotPath));
+    }
+
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    /**
+     * Streams the current customers and cards into the snapshot file. The file is written
+     * to a temporary sibling first and moved into place, so a crash never leaves a torn snapshot.
+     *
+     * @return number of customers and cards written
+     */
+    public SnapshotStats exportSnapshot() {
+        Path target = Paths.get(snapshotPath);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long start = System.currentTimeMillis();
+        long[] counts = new long[2];
+
+        try {
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 20))) {
+                out.writeInt(MAGIC);
+                out.writeShort(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(initialCustomers);
+                out.writeInt(cardsPerCustomer);
+
+                // Dedicated template so the fetch size does not leak into the shared bean
+                JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+                cursor.setFetchSize(fetchSize);
+                cursor.query(SELECT_CUSTOMERS, rs -> {
+                    writeCustomer(out, rs);
+                    counts[0]++;
+                });
+                cursor.query(SELECT_CARDS, rs -> {
+                    writeCard(out, rs);
+                    counts[1]++;
+                });
+
+                out.writeByte(TAG_END);
+            }
+
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalStateException("Failed to export population snapshot to " + snapshotPath, e);
+        }
+
+        SnapshotStats stats = new SnapshotStats(counts[0], counts[1], System.currentTimeMillis() - start);
+        log.info("Exported population snapshot to {}: {} customers, {} cards in {} ms",
+                snapshotPath, stats.getCustomers(), stats.getCards(), stats.getElapsedMs());
+        return stats;
+    }
+
+    /**
+     * Bulk-loads the snapshot file into empty {@code customers}/{@code cards} tables.
+     * Customers precede cards in the file, so foreign keys are always satisfied.
+     *
+     * @throws IllegalStateException if the file is not a readable snapshot or was seeded with
+     *         different {@code initial-customers} / {@code initial-cards-per-customer}; nothing
+     *         has been inserted in that case
+     */
+    public SnapshotStats importSnapshot() {
+        Path source = Paths.get(snapshotPath);
+        if (!Files.isRegularFile(source)) {
+            throw new IllegalStateException("Population snapshot not found: " + snapshotPath);
+        }
+
+        long start = System.currentTimeMillis();
+        long customers = 0;
+        long cards = 0;
+        List<Object[]> customerBatch = new ArrayList<>(batchSize);
+        List<Object[]> cardBatch = new ArrayList<>(batchSize);
+
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(source), 1 << 20))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalStateException("Not a population snapshot: " + snapshotPath);
+            }
+            short version = in.readShort();
+            if (version != FORMAT_VERSION && version != UNCHECKED_FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported population snapshot version: " + version);
+            }
+            in.readLong(); // export timestamp
+            if (version == FORMAT_VERSION) {
+                checkSeedSettings(in.readInt(), in.readInt());
+            } else {
+                log.warn("Population snapshot {} predates seed settings in its header; importing it unchecked",
+                        snapshotPath);
+            }
+
+            while (true) {
+                byte tag = in.readByte();
+                if (tag == TAG_END) {
+                    break;
+                } else if (tag == TAG_CUSTOMER) {
+                    customerBatch.add(readCustomer(in));
+                    customers++;
+                    if (customerBatch.size() >= batchSize) {
+                        flush(INSERT_CUSTOMER, customerBatch);
+                    }
+                } else if (tag == TAG_CARD) {
+                    // All customers are written before the first card
+                    flush(INSERT_CUSTOMER, customerBatch);
+                    cardBatch.add(readCard(in));
+                    cards++;
+                    if (cardBatch.size() >= batchSize) {
+                        flush(INSERT_CARD, cardBatch);
+                    }
+                } else {
+                    throw new IllegalStateException("Corrupt population snapshot, unknown record tag: " + tag);
+                }
+            }
+
+            flush(INSERT_CUSTOMER, customerBatch);
+            flush(INSERT_CARD, cardBatch);
+        } catch (EOFException e) {
+            throw new IllegalStateException("Truncated population snapshot: " + snapshotPath, e);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read population snapshot " + snapshotPath, e);
+        }
+
+        SnapshotStats stats = new SnapshotStats(customers, cards, System.currentTimeMillis() - start);
+        log.info("Imported population snapshot from {}: {} customers, {} cards in {} ms",
+                snapshotPath, stats.getCustomers(), stats.getCards(), stats.getElapsedMs());
+        return stats;
+    }
+
+    private void checkSeedSettings(int snapshotCustomers, int snapshotCardsPerCustomer) {
+        if (snapshotCustomers != initialCustomers || snapshotCardsPerCustomer != cardsPerCustomer) {
+            throw new IllegalStateException(String.format(
+                    "Population snapshot %s was seeded with %d customers and %d cards per customer, "
+                            + "but app.data.generation asks for %d and %d",
+                    snapshotPath, snapshotCustomers, snapshotCardsPerCustomer, initialCustomers, cardsPerCustomer));
+        }
+    }
+
+    private void flush(String sql, List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+            batch.clear();
+        }
+    }
+
+    private void writeCustomer(DataOutputStream out, ResultSet rs) throws SQLException {
+        try {
+            out.writeByte(TAG_CUSTOMER);
+            out.writeUTF(rs.getString("id"));
+            out.writeUTF(rs.getString("first_name"));
+            out.writeUTF(rs.getString("last_name"));
+            out.writeUTF(rs.getString("email"));
+            writeNullableString(out, rs.getString("phone_number"));
+            writeNullableString(out, rs.getString("street"));
+            writeNullableString(out, rs.getString("city"));
+            writeNullableString(out, rs.getString("state"));
+            writeNullableString(out, rs.getString("zip_code"));
+            writeNullableString(out, rs.getString("country"));
+            writeNullableDouble(out, rs, "latitude");
+            writeNullableDouble(out, rs, "longitude");
+            out.writeLong(rs.getTimestamp("created_at").getTime());
+            writeNullableDouble(out, rs, "average_transaction_amount");
+            writeNullableString(out, rs.getString("typical_transaction_hours"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeCard(DataOutputStream out, ResultSet rs) throws SQLException {
+        try {
+            out.writeByte(TAG_CARD);
+            out.writeUTF(rs.getString("id"));
+            out.writeUTF(rs.getString("customer_id"));
+            out.writeUTF(rs.getString("card_number"));
+            out.writeUTF(rs.getString("card_holder_name"));
+            out.writeLong(rs.getDate("expiry_date").toLocalDate().toEpochDay());
+            out.writeUTF(rs.getString("cvv"));
+            out.writeUTF(rs.getString("card_type"));
+            out.writeDouble(rs.getDouble("credit_limit"));
+            out.writeDouble(rs.getDouble("available_balance"));
+            out.writeBoolean(rs.getBoolean("is_active"));
+            out.writeLong(rs.getTimestamp("created_at").getTime());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Object[] readCustomer(DataInputStream in) throws IOException {
+        return new Object[]{
+                in.readUTF(),                       // id
+                in.readUTF(),                       // first_name
+                in.readUTF(),                       // last_name
+                in.readUTF(),                       // email
+                readNullableString(in),             // phone_number
+                readNullableString(in),             // street
+                readNullableString(in),             // city
+                readNullableString(in),             // state
+                readNullableString(in),             // zip_code
+                readNullableString(in),             // country
+                readNullableDouble(in),             // latitude
+                readNullableDouble(in),             // longitude
+                new Timestamp(in.readLong()),       // created_at
+                readNullableDouble(in),             // average_transaction_amount
+                readNullableString(in)              // typical_transaction_hours
+        };
+    }
+
+    private Object[] readCard(DataInputStream in) throws IOException {
+        return new Object[]{
+                in.readUTF(),                                           // id
+                in.readUTF(),                                           // customer_id
+                in.readUTF(),                                           // card_number
+                in.readUTF(),                                           // card_holder_name
+                Date.valueOf(LocalDate.ofEpochDay(in.readLong())),      // expiry_date
+                in.readUTF(),                                           // cvv
+                in.readUTF(),                                           // card_type
+                in.readDouble(),                                        // credit_limit
+                in.readDouble(),                                        // available_balance
+                in.readBoolean(),                                       // is_active
+                new Timestamp(in.readLong())                            // created_at
+        };
+    }
+
+    private void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private void writeNullableDouble(DataOutputStream out, ResultSet rs, String column) throws IOException, SQLException {
+        double value = rs.getDouble(column);
+        boolean present = !rs.wasNull();
+        out.writeBoolean(present);
+        if (present) {
+            out.writeDouble(value);
+        }
+    }
+
+    private String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private Double readNullableDouble(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readDouble() : null;
+    }
+
+    @lombok.Value
+    public static class SnapshotStats {
+        long customers;
+        long cards;
+        long elapsedMs;
+    }
+}
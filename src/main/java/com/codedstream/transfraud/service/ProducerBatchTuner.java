@@ -0,0 +1,218 @@
+package com.codedstream.transfraud.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adapts {@code batch.size}, {@code linger.ms} and {@code compression.type} of the pooled
+ * producers to the load actually observed, instead of one fixed setting for every workload.
+ * <p>
+ * Every {@code interval-ms} it reads the producers' own client metrics: send rate, records per
+ * request, average batch size against {@code batch.size} (the fill ratio), compression ratio,
+ * queue time and request latency. It then takes at most one multiplicative step toward the goal:
+ * <ul>
+ *   <li>{@code throughput}: full batches double {@code batch.size}; batches closed by linger
+ *   before filling double {@code linger.ms}. Data that compresses well gets zstd, other data lz4.</li>
+ *   <li>{@code latency}: while queue time plus request latency exceeds {@code latency-target-ms},
+ *   {@code linger.ms} is halved; full batches still double {@code batch.size}, and nearly empty
+ *   ones halve it once well under target. Compression is lz4, or none if the data barely
+ *   compresses.</li>
+ * </ul>
+ * A changed setting recreates the producers through {@link KafkaProducerPool#reconfigure}.
+ * Below {@code min-records-per-second} nothing is changed, as idle metrics say nothing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProducerBatchTuner {
+
+    private static final int HISTORY_SIZE = 20;
+
+    private final KafkaProducerPool producerPool;
+    private final KafkaProperties kafkaProperties;
+
+    @Value("${app.kafka.producer-tuning.enabled:false}")
+    private boolean enabled;
+
+    // throughput | latency
+    @Value("${app.kafka.producer-tuning.goal:throughput}")
+    private volatile String goal;
+
+    @Value("${app.kafka.producer-tuning.min-records-per-second:100}")
+    private double minRecordsPerSecond;
+
+    @Value("${app.kafka.producer-tuning.latency-target-ms:50}")
+    private double latencyTargetMs;
+
+    @Value("${app.kafka.producer-tuning.min-batch-size:16384}")
+    private int minBatchSize;
+
+    @Value("${app.kafka.producer-tuning.max-batch-size:1048576}")
+    private int maxBatchSize;
+
+    @Value("${app.kafka.producer-tuning.max-linger-ms:100}")
+    private int maxLingerMs;
+
+    @Value("${app.kafka.producer-tuning.tune-compression:true}")
+    private boolean tuneCompression;
+
+    private int batchSize;
+    private int lingerMs;
+    private String compression;
+    private Map<String, Object> lastObservation = new LinkedHashMap<>();
+    private final Deque<Map<String, Object>> history = new ArrayDeque<>();
+
+    @PostConstruct
+    public void init() {
+        checkGoal(goal);
+        Map<String, Object> props = kafkaProperties.buildProducerProperties();
+        batchSize = intProperty(props, ProducerConfig.BATCH_SIZE_CONFIG, 16384);
+        lingerMs = intProperty(props, ProducerConfig.LINGER_MS_CONFIG, 0);
+        Object configuredCompression = props.get(ProducerConfig.COMPRESSION_TYPE_CONFIG);
+        compression = configuredCompression == null ? "none" : configuredCompression.toString();
+        if (enabled) {
+            log.info("Producer tuning toward {} from batch.size={} linger.ms={} compression.type={}",
+                    goal, batchSize, lingerMs, compression);
+        }
+    }
+
+    public void setGoal(String goal) {
+        checkGoal(goal);
+        this.goal = goal;
+        log.info("Producer tuning goal set to {}", goal);
+    }
+
+    @Scheduled(fixedDelayString = "${app.kafka.producer-tuning.interval-ms:30000}",
+            initialDelayString = "${app.kafka.producer-tuning.interval-ms:30000}")
+    public synchronized void tune() {
+        if (!enabled) {
+            return;
+        }
+        double sendRate = sum(producerPool.metricValues("record-send-rate"));
+        double batchSizeAvg = mean(producerPool.metricValues("batch-size-avg"));
+        double recordsPerRequest = mean(producerPool.metricValues("records-per-request-avg"));
+        double compressionRate = mean(producerPool.metricValues("compression-rate-avg"));
+        double queueTimeMs = mean(producerPool.metricValues("record-queue-time-avg"));
+        double requestLatencyMs = mean(producerPool.metricValues("request-latency-avg"));
+        double fill = batchSizeAvg / batchSize;
+
+        Map<String, Object> observation = new LinkedHashMap<>();
+        observation.put("recordsPerSecond", Math.round(sendRate));
+        observation.put("recordsPerRequest", round(recordsPerRequest));
+        observation.put("batchFill", round(fill));
+        observation.put("compressionRate", round(compressionRate));
+        observation.put("queueTimeMs", round(queueTimeMs));
+        observation.put("requestLatencyMs", round(requestLatencyMs));
+        lastObservation = observation;
+        if (Double.isNaN(sendRate) || sendRate < minRecordsPerSecond || Double.isNaN(fill)) {
+            return;
+        }
+
+        int nextBatchSize = batchSize;
+        int nextLingerMs = lingerMs;
+        String nextCompression = compression;
+        if ("throughput".equals(goal)) {
+            if (fill >= 0.8 && batchSize < maxBatchSize) {
+                nextBatchSize = Math.min(maxBatchSize, batchSize * 2);
+            } else if (fill < 0.5 && lingerMs < maxLingerMs) {
+                nextLingerMs = Math.min(maxLingerMs, Math.max(5, lingerMs * 2));
+            }
+            if (tuneCompression && !Double.isNaN(compressionRate)) {
+                nextCompression = compressionRate <= 0.6 ? "zstd" : "lz4";
+            }
+        } else {
+            double latencyMs = queueTimeMs + requestLatencyMs;
+            if (latencyMs > latencyTargetMs && lingerMs > 0) {
+                nextLingerMs = lingerMs / 2;
+            } else if (fill >= 0.9 && batchSize < maxBatchSize) {
+                nextBatchSize = Math.min(maxBatchSize, batchSize * 2);
+            } else if (fill < 0.25 && latencyMs < latencyTargetMs / 2 && batchSize > minBatchSize) {
+                nextBatchSize = Math.max(minBatchSize, batchSize / 2);
+            }
+            if (tuneCompression && !Double.isNaN(compressionRate)) {
+                nextCompression = compressionRate >= 0.9 ? "none" : "lz4";
+            }
+        }
+
+        if (nextBatchSize == batchSize && nextLingerMs == lingerMs && nextCompression.equals(compression)) {
+            return;
+        }
+        batchSize = nextBatchSize;
+        lingerMs = nextLingerMs;
+        compression = nextCompression;
+        producerPool.reconfigure(currentSettings());
+
+        Map<String, Object> change = new LinkedHashMap<>();
+        change.put("at", System.currentTimeMillis());
+        change.put("goal", goal);
+        change.put("observed", observation);
+        change.put("settings", currentSettings());
+        history.addFirst(change);
+        if (history.size() > HISTORY_SIZE) {
+            history.removeLast();
+        }
+        log.info("Producer tuning ({}): {} at {} records/s, batch fill {}", goal, currentSettings(),
+                Math.round(sendRate), round(fill));
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("goal", goal);
+        status.put("settings", currentSettings());
+        status.put("lastObservation", lastObservation);
+        status.put("changes", new ArrayList<>(history));
+        return status;
+    }
+
+    private Map<String, Object> currentSettings() {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        settings.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        settings.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        return settings;
+    }
+
+    private static void checkGoal(String goal) {
+        if (!"throughput".equals(goal) && !"latency".equals(goal)) {
+            throw new IllegalArgumentException("Producer tuning goal must be throughput or latency: " + goal);
+        }
+    }
+
+    private static int intProperty(Map<String, Object> props, String name, int defaultValue) {
+        Object value = props.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.toString());
+    }
+
+    private static double sum(List<Double> values) {
+        if (values.isEmpty()) {
+            return Double.NaN;
+        }
+        double total = 0;
+        for (double value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    private static double mean(List<Double> values) {
+        return values.isEmpty() ? Double.NaN : sum(values) / values.size();
+    }
+
+    private static double round(double value) {
+        return Double.isNaN(value) ? value : Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,67 @@
+package com.codedstream.transfraud.service;
+
+import java.util.Random;
+
+/**
+ * Counter-based {@link Random}: positioning it at {@code (seed, sequence)} fully determines every
+ * value drawn afterwards, so event {@code n} of a stream can be regenerated, or skipped, without
+ * replaying events {@code 0..n-1}. Backed by SplitMix64; not thread-safe, use one per thread.
+ */
+final class SequenceRandom extends Random {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final ThreadLocal<SequenceRandom> PER_THREAD = ThreadLocal.withInitial(SequenceRandom::new);
+
+    private long state;
+
+    private SequenceRandom() {
+        super(0L);
+    }
+
+    /**
+     * This thread's instance, positioned at the start of event {@code sequence} of stream {@code seed}.
+     */
+    static SequenceRandom at(long seed, long sequence) {
+        SequenceRandom random = PER_THREAD.get();
+        random.state = mix64(seed ^ mix64(sequence * GOLDEN_GAMMA));
+        return random;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        // Called by Random's constructor; no synchronised state to reset here
+        state = seed;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextRaw() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        return nextRaw();
+    }
+
+    /**
+     * Box-Muller without the cached second value of {@link Random#nextGaussian()}, which would
+     * leak state from one event into the next.
+     */
+    @Override
+    public double nextGaussian() {
+        double u1 = (nextRaw() >>> 11) * 0x1.0p-53;
+        double u2 = (nextRaw() >>> 11) * 0x1.0p-53;
+        return Math.sqrt(-2.0 * Math.log(1.0 - u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+
+    private long nextRaw() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
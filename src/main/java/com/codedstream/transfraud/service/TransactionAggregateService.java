@@ -0,0 +1,204 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.dto.TransactionAggregateDto;
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-card and per-customer running aggregates, updated incrementally as each transaction is
+ * generated. Replaces per-event JPQL aggregate queries ({@code countTransactionsSince},
+ * {@code findAverageTransactionAmountByCustomer}) with constant-time lookups.
+ * <p>
+ * Rolling windows use one bucket per minute over the last hour, so a window query sums at most
+ * 60 buckets whatever the history size. Declined transactions are left out: the aggregates
+ * describe approved spend, consistent with the balances in {@link CardBalanceLedger}.
+ * <p>
+ * A procedural population has far more cards than memory, so there at most {@code max-tracked}
+ * cards and as many customers are aggregated, and an aggregate untouched for
+ * {@code idle-expiry-ms} is dropped; its totals start again from its next transaction.
+ */
+@Service
+@RequiredArgsConstructor
+public class TransactionAggregateService implements TransactionObserver {
+
+    static final int[] WINDOW_MINUTES = {1, 5, 15, 60};
+    private static final int BUCKETS = 60;
+
+    private final PopulationRegistry populationRegistry;
+
+    @Value("${app.aggregates.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.aggregates.max-tracked:1000000}")
+    private int maxTracked;
+
+    @Value("${app.aggregates.idle-expiry-ms:3600000}")
+    private long idleExpiryMs;
+
+    private final Map<String, RunningAggregate> cards = new ConcurrentHashMap<>();
+    private final Map<String, RunningAggregate> customers = new ConcurrentHashMap<>();
+    private final LongAdder untracked = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    @Override
+    public void onTransaction(AuthorizedTransaction event) {
+        // Aggregates describe posted spend; a declined attempt moved no money
+        if (!enabled || event.isDeclined()) {
+            return;
+        }
+        CardTransaction transaction = event.getTransaction();
+        long timestamp = transaction.getTransactionTimestamp();
+        double amount = transaction.getTransactionAmount();
+        boolean bounded = populationRegistry.isProcedural();
+        track(cards, transaction.getCardId().toString(), bounded, timestamp, amount);
+        track(customers, transaction.getCustomerId().toString(), bounded, timestamp, amount);
+    }
+
+    /**
+     * Procedural mode only: drops the aggregates that have been idle for {@code idle-expiry-ms}.
+     */
+    @Scheduled(fixedDelayString = "${app.population.procedural.sweep-interval-ms:60000}")
+    public void expireIdle() {
+        if (!enabled || !populationRegistry.isProcedural()) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - idleExpiryMs;
+        expireIdle(cards, cutoff);
+        expireIdle(customers, cutoff);
+    }
+
+    public Optional<TransactionAggregateDto> getCardAggregate(String cardId) {
+        return Optional.ofNullable(cards.get(cardId)).map(aggregate -> aggregate.toDto(cardId, "card"));
+    }
+
+    public Optional<TransactionAggregateDto> getCustomerAggregate(String customerId) {
+        return Optional.ofNullable(customers.get(customerId)).map(aggregate -> aggregate.toDto(customerId, "customer"));
+    }
+
+    /**
+     * Transactions for the card in the last {@code minutes} (at most 60), the in-memory
+     * counterpart of {@code TransactionRepository.countTransactionsSince}.
+     */
+    public long countCardTransactionsSince(String cardId, int minutes) {
+        RunningAggregate aggregate = cards.get(cardId);
+        return aggregate == null ? 0 : aggregate.window(minutes, System.currentTimeMillis()).getTransactionCount();
+    }
+
+    public int getTrackedCards() {
+        return cards.size();
+    }
+
+    public int getTrackedCustomers() {
+        return customers.size();
+    }
+
+    public long getUntracked() {
+        return untracked.sum();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    private void track(Map<String, RunningAggregate> aggregates, String id, boolean bounded,
+                       long timestamp, double amount) {
+        RunningAggregate aggregate = aggregates.get(id);
+        if (aggregate == null) {
+            if (bounded && aggregates.size() >= maxTracked) {
+                untracked.increment();
+                return;
+            }
+            aggregate = aggregates.computeIfAbsent(id, k -> new RunningAggregate());
+        }
+        aggregate.add(timestamp, amount);
+    }
+
+    private void expireIdle(Map<String, RunningAggregate> aggregates, long cutoff) {
+        aggregates.values().removeIf(aggregate -> {
+            if (aggregate.touchedAt >= cutoff) {
+                return false;
+            }
+            expired.increment();
+            return true;
+        });
+    }
+
+    static final class RunningAggregate {
+        private long count;
+        private double sum;
+        private double min = Double.MAX_VALUE;
+        private double max = -Double.MAX_VALUE;
+        private long firstTimestamp;
+        private long lastTimestamp;
+        private final long[] bucketMinute = new long[BUCKETS];
+        private final long[] bucketCount = new long[BUCKETS];
+        private final double[] bucketSum = new double[BUCKETS];
+        private volatile long touchedAt;
+
+        synchronized void add(long timestamp, double amount) {
+            touchedAt = System.currentTimeMillis();
+            if (count == 0) {
+                firstTimestamp = timestamp;
+            }
+            count++;
+            sum += amount;
+            min = Math.min(min, amount);
+            max = Math.max(max, amount);
+            lastTimestamp = Math.max(lastTimestamp, timestamp);
+
+            long minute = timestamp / 60_000L;
+            int index = (int) (minute % BUCKETS);
+            if (bucketMinute[index] != minute) {
+                bucketMinute[index] = minute;
+                bucketCount[index] = 0;
+                bucketSum[index] = 0;
+            }
+            bucketCount[index]++;
+            bucketSum[index] += amount;
+        }
+
+        synchronized TransactionAggregateDto.WindowDto window(int minutes, long now) {
+            long nowMinute = now / 60_000L;
+            long oldest = nowMinute - Math.min(minutes, BUCKETS) + 1;
+            long windowCount = 0;
+            double windowSum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (bucketMinute[i] >= oldest && bucketMinute[i] <= nowMinute) {
+                    windowCount += bucketCount[i];
+                    windowSum += bucketSum[i];
+                }
+            }
+            return new TransactionAggregateDto.WindowDto(windowCount, windowSum);
+        }
+
+        synchronized TransactionAggregateDto toDto(String id, String scope) {
+            long now = System.currentTimeMillis();
+            Map<String, TransactionAggregateDto.WindowDto> windows = new LinkedHashMap<>();
+            for (int minutes : WINDOW_MINUTES) {
+                windows.put(minutes + "m", window(minutes, now));
+            }
+            return TransactionAggregateDto.builder()
+                    .id(id)
+                    .scope(scope)
+                    .transactionCount(count)
+                    .amountSum(sum)
+                    .averageAmount(count == 0 ? 0.0 : sum / count)
+                    .minAmount(count == 0 ? 0.0 : min)
+                    .maxAmount(count == 0 ? 0.0 : max)
+                    .firstTransactionTimestamp(firstTimestamp)
+                    .lastTransactionTimestamp(lastTimestamp)
+                    .windows(windows)
+                    .build();
+        }
+    }
+}
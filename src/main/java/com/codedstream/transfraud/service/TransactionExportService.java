@@ -0,0 +1,186 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.mapper.AvroMapper;
+import com.codedstream.transfraud.model.dto.TransactionDto;
+import com.codedstream.transfraud.model.entity.Transaction;
+import com.codedstream.transfraud.repository.TransactionRepository;
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Streams stored transactions out as NDJSON or an Avro container file.
+ * <p>
+ * Rows are read in keyset pages ordered by {@code (transactionTimestamp, id)}: each page starts
+ * strictly after the last row of the previous one, so every page is an index range scan however
+ * deep the export is. Each page is written and flushed before the next is read.
+ * <p>
+ * Only one page is in memory at a time: rows are loaded read-only and the persistence context is
+ * cleared after every page. Otherwise an entity manager bound to the whole request, as
+ * open-in-view binds one to the streaming response thread, would keep every exported
+ * transaction with its card and customer until the request ends.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionExportService {
+
+    public enum Format {
+        NDJSON, AVRO
+    }
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final TransactionRepository transactionRepository;
+    private final AvroMapper avroMapper;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    @Value("${app.export.page-size:1000}")
+    private int pageSize;
+
+    /**
+     * Writes every transaction in {@code [from, to)} with an amount above {@code minAmount},
+     * optionally for one card. {@code null} bounds are open.
+     *
+     * @return number of transactions written
+     */
+    public long export(LocalDateTime from, LocalDateTime to, String cardId, Double minAmount,
+                       Format format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        RowWriter writer = format == Format.AVRO ? new AvroRowWriter(out) : new NdjsonRowWriter(out);
+        long count = 0;
+        try {
+            LocalDateTime lower = from == null ? EARLIEST : from;
+            LocalDateTime upper = to == null ? LATEST : to;
+            double threshold = minAmount == null ? -Double.MAX_VALUE : minAmount;
+            Pageable page = PageRequest.of(0, pageSize);
+
+            LocalDateTime afterTimestamp = lower;
+            String afterId = "";
+            while (true) {
+                List<Transaction> rows = cardId == null
+                        ? transactionRepository.findExportPage(lower, upper, threshold, afterTimestamp, afterId, page)
+                        : transactionRepository.findCardExportPage(cardId, lower, upper, threshold, afterTimestamp, afterId, page);
+                for (Transaction row : rows) {
+                    writer.write(row);
+                }
+                count += rows.size();
+                writer.flush();
+                if (rows.size() < pageSize) {
+                    break;
+                }
+                Transaction last = rows.get(rows.size() - 1);
+                afterTimestamp = last.getTransactionTimestamp();
+                afterId = last.getId();
+                // The export only reads, so nothing is lost by detaching the page just written
+                entityManager.clear();
+            }
+        } finally {
+            writer.close();
+        }
+        log.info("Exported {} transactions as {} in {} ms", count, format, System.currentTimeMillis() - start);
+        return count;
+    }
+
+    private TransactionDto toDto(Transaction transaction) {
+        Transaction.MerchantLocation location = transaction.getMerchantLocation();
+        Transaction.DeviceInfo device = transaction.getDeviceInfo();
+        return TransactionDto.builder()
+                .id(transaction.getId())
+                .amount(transaction.getAmount())
+                .currency(transaction.getCurrency())
+                .merchantId(transaction.getMerchantId())
+                .merchantName(transaction.getMerchantName())
+                .merchantCategory(transaction.getMerchantCategory())
+                .merchantLocation(location == null ? null : TransactionDto.MerchantLocationDto.builder()
+                        .latitude(location.getLatitude())
+                        .longitude(location.getLongitude())
+                        .city(location.getCity())
+                        .country(location.getCountry())
+                        .build())
+                .transactionType(transaction.getTransactionType())
+                .isCardPresent(transaction.getIsCardPresent())
+                .deviceInfo(device == null ? null : TransactionDto.DeviceInfoDto.builder()
+                        .deviceId(device.getDeviceId())
+                        .deviceType(device.getDeviceType())
+                        .ipAddress(device.getIpAddress())
+                        .userAgent(device.getUserAgent())
+                        .build())
+                .transactionTimestamp(transaction.getTransactionTimestamp())
+                .status(transaction.getStatus())
+                .cardId(transaction.getCard().getId())
+                .customerId(transaction.getCard().getCustomer().getId())
+                .build();
+    }
+
+    private interface RowWriter {
+        void write(Transaction transaction) throws IOException;
+
+        void flush() throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final OutputStream out;
+
+        NdjsonRowWriter(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            out.write(objectMapper.writeValueAsBytes(toDto(transaction)));
+            out.write('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    private final class AvroRowWriter implements RowWriter {
+        private final DataFileWriter<CardTransaction> writer;
+
+        AvroRowWriter(OutputStream out) throws IOException {
+            writer = new DataFileWriter<>(new SpecificDatumWriter<>(CardTransaction.class));
+            writer.create(CardTransaction.getClassSchema(), out);
+        }
+
+        @Override
+        public void write(Transaction transaction) throws IOException {
+            writer.append(avroMapper.toAvro(transaction));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
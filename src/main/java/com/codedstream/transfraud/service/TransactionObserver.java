@@ -0,0 +1,15 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+
+/**
+ * In-process consumer of the generated stream, called on the generating thread for every
+ * transaction before it is handed to the sink. Implementations must be thread-safe and cheap.
+ * <p>
+ * Declined transactions are delivered too; each observer decides whether an attempt that moved
+ * no money counts for it.
+ */
+public interface TransactionObserver {
+
+    void onTransaction(AuthorizedTransaction event);
+}
@@ -0,0 +1,100 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the Kafka record for one transaction, keyed by transaction id.
+ * <p>
+ * With balance accounting on, each record carries a {@code transaction-status} header of
+ * {@code APPROVED} or {@code DECLINED}, taken from the event, as the Avro schema has no status
+ * field.
+ * <p>
+ * With {@code app.sink.kafka.latency-headers} on, it also carries the wall-clock time it was
+ * handed to the producer in epoch nanoseconds, for measuring end-to-end latency independently of
+ * the business timestamp. With {@code sequence-headers} on, it carries the instance id, a run id
+ * (the instance's start time) and a dense per-run send sequence, so a delivery audit can find
+ * lost and duplicated records. Numeric headers are big-endian, as Kafka's {@code LongSerializer}
+ * and {@code IntegerSerializer} write them.
+ */
+@Component
+@RequiredArgsConstructor
+public class TransactionRecordFactory {
+
+    public static final String STATUS_HEADER = "transaction-status";
+    public static final String GENERATED_AT_HEADER = "generated-at-ns";
+    public static final String INSTANCE_HEADER = "generator-instance";
+    public static final String SEQUENCE_HEADER = "generator-sequence";
+    public static final String RUN_HEADER = "generator-run";
+
+    private static final byte[] APPROVED = AuthorizedTransaction.APPROVED.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DECLINED = AuthorizedTransaction.DECLINED.getBytes(StandardCharsets.UTF_8);
+
+    private final CardBalanceLedger cardBalanceLedger;
+
+    @Value("${app.sink.kafka.latency-headers:true}")
+    private boolean latencyHeaders;
+
+    @Value("${app.sink.kafka.sequence-headers:true}")
+    private boolean sequenceHeaders;
+
+    @Value("${app.instance.id:0}")
+    private int instanceId;
+
+    private final long runId = System.currentTimeMillis();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public ProducerRecord<String, CardTransaction> create(String topic, AuthorizedTransaction transaction) {
+        CardTransaction cardTransaction = transaction.getTransaction();
+        ProducerRecord<String, CardTransaction> record =
+                new ProducerRecord<>(topic, cardTransaction.getTransactionId().toString(), cardTransaction);
+        if (cardBalanceLedger.isEnabled()) {
+            record.headers().add(STATUS_HEADER, transaction.isDeclined() ? DECLINED : APPROVED);
+        }
+        if (latencyHeaders) {
+            record.headers().add(GENERATED_AT_HEADER, longBytes(epochNanos(Instant.now())));
+        }
+        if (latencyHeaders || sequenceHeaders) {
+            record.headers().add(INSTANCE_HEADER, intBytes(instanceId));
+        }
+        if (sequenceHeaders) {
+            record.headers().add(RUN_HEADER, longBytes(runId));
+            record.headers().add(SEQUENCE_HEADER, longBytes(sequence.getAndIncrement()));
+        }
+        return record;
+    }
+
+    /**
+     * Adds the generation time and instance id, without a sequence number; used for envelopes,
+     * which would otherwise leave gaps in the per-record sequence.
+     */
+    public void stampLatencyHeaders(Headers headers) {
+        if (!latencyHeaders) {
+            return;
+        }
+        headers.add(GENERATED_AT_HEADER, longBytes(epochNanos(Instant.now())));
+        headers.add(INSTANCE_HEADER, intBytes(instanceId));
+    }
+
+    public static long epochNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    private static byte[] intBytes(int value) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(value).array();
+    }
+}
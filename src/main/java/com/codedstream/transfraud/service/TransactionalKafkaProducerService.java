@@ -0,0 +1,262 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exactly-once emission: records are buffered and written in Kafka transactions that commit
+ * every {@code commit-records} records or {@code commit-interval-ms}, whichever comes first.
+ * <p>
+ * A failed commit aborts the whole batch, which is then retried in a fresh transaction, so
+ * {@code read_committed} consumers see each record exactly once. Larger batches amortise the
+ * commit round trip and keep most of the plain-mode throughput.
+ * <p>
+ * A batch is never dropped. The sender whose record filled it retries with exponential backoff
+ * from {@code retry-backoff-ms} up to {@code max-retry-backoff-ms} until it commits, which blocks
+ * that sender and so pushes back on generation. After {@code commit-retries} failed attempts the
+ * service reports itself stalled and logs an error. The interval commit makes one attempt per
+ * tick and puts the batch back on failure, so the scheduler thread is never held. Only a batch
+ * still failing after {@code shutdown-timeout-ms} at shutdown is lost, and that is logged.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransactionalKafkaProducerService {
+
+    private final KafkaProperties kafkaProperties;
+    private final TransactionRecordFactory transactionRecordFactory;
+
+    @Value("${app.kafka.topics.transactions}")
+    private String transactionsTopic;
+
+    @Value("${app.kafka.transactional.transactional-id-prefix:codedx-generator-${app.instance.id:0}-}")
+    private String transactionalIdPrefix;
+
+    @Value("${app.kafka.transactional.commit-records:500}")
+    private int commitRecords;
+
+    @Value("${app.kafka.transactional.commit-interval-ms:200}")
+    private long commitIntervalMs;
+
+    @Value("${app.kafka.transactional.commit-retries:3}")
+    private int commitRetries;
+
+    @Value("${app.kafka.transactional.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    @Value("${app.kafka.transactional.max-retry-backoff-ms:5000}")
+    private long maxRetryBackoffMs;
+
+    @Value("${app.kafka.transactional.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    private final EmissionStats stats = new EmissionStats("transactional");
+    private final Object lock = new Object();
+
+    private volatile KafkaTemplate<String, CardTransaction> transactionalTemplate;
+    private DefaultKafkaProducerFactory<String, CardTransaction> producerFactory;
+    private List<ProducerRecord<String, CardTransaction>> pending = new ArrayList<>();
+    private long batchOpenedAt;
+    private final AtomicLong abortedAttempts = new AtomicLong();
+    private volatile boolean stalled;
+    private volatile String lastCommitError;
+
+    public void send(AuthorizedTransaction transaction) {
+        send(transactionsTopic, transaction);
+    }
+
+    public void send(String topic, AuthorizedTransaction transaction) {
+        ProducerRecord<String, CardTransaction> record = transactionRecordFactory.create(topic, transaction);
+        List<ProducerRecord<String, CardTransaction>> batch = null;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                batchOpenedAt = System.currentTimeMillis();
+            }
+            pending.add(record);
+            if (pending.size() >= commitRecords) {
+                batch = drainPending();
+            }
+        }
+        if (batch != null) {
+            commitOrRequeue(batch, Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Commits the open batch once it is older than the commit interval, so a slow trickle of
+     * records is never held back longer than {@code commit-interval-ms}.
+     */
+    @Scheduled(fixedDelayString = "${app.kafka.transactional.commit-interval-ms:200}")
+    public void commitExpiredBatch() {
+        List<ProducerRecord<String, CardTransaction>> batch = null;
+        synchronized (lock) {
+            if (!pending.isEmpty() && System.currentTimeMillis() - batchOpenedAt >= commitIntervalMs) {
+                batch = drainPending();
+            }
+        }
+        if (batch != null) {
+            // One attempt only: a failed batch goes back and is retried on the next tick
+            commitOrRequeue(batch, System.nanoTime());
+        }
+    }
+
+    /**
+     * Commits everything buffered, retrying until it succeeds.
+     */
+    public void flush() {
+        flush(Long.MAX_VALUE);
+    }
+
+    public EmissionStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Whether commits are failing and senders are blocked retrying them, with the last error.
+     */
+    public Map<String, Object> getCommitStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("stalled", stalled);
+        status.put("abortedAttempts", abortedAttempts.get());
+        status.put("lastCommitError", lastCommitError);
+        synchronized (lock) {
+            status.put("pendingRecords", pending.size());
+        }
+        return status;
+    }
+
+    /**
+     * @return {@code false} if records were left uncommitted at {@code giveUpAtNanos}
+     */
+    private boolean flush(long giveUpAtNanos) {
+        List<ProducerRecord<String, CardTransaction>> batch;
+        synchronized (lock) {
+            batch = drainPending();
+        }
+        return batch.isEmpty() || commitOrRequeue(batch, giveUpAtNanos);
+    }
+
+    private List<ProducerRecord<String, CardTransaction>> drainPending() {
+        List<ProducerRecord<String, CardTransaction>> batch = pending;
+        pending = new ArrayList<>(commitRecords);
+        return batch;
+    }
+
+    /**
+     * Commits {@code batch}, retrying with backoff until it succeeds or {@code giveUpAtNanos}
+     * ({@code Long.MAX_VALUE} for never) passes; then it is put back in front of the open batch.
+     *
+     * @return whether the batch was committed
+     */
+    private boolean commitOrRequeue(List<ProducerRecord<String, CardTransaction>> batch, long giveUpAtNanos) {
+        KafkaTemplate<String, CardTransaction> template = template();
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                template.executeInTransaction(operations -> {
+                    for (ProducerRecord<String, CardTransaction> record : batch) {
+                        operations.send(record);
+                    }
+                    return null;
+                });
+                stats.recordBatch(System.nanoTime() - start);
+                stats.recordAcked(batch.size(), 0);
+                if (stalled) {
+                    stalled = false;
+                    log.info("Kafka transactions are committing again");
+                }
+                log.debug("Committed transaction of {} records", batch.size());
+                return true;
+            } catch (Exception e) {
+                abortedAttempts.incrementAndGet();
+                lastCommitError = e.getMessage();
+                if (attempt == commitRetries) {
+                    stalled = true;
+                    log.error("Kafka transaction of {} records aborted {} times; senders are blocked until it commits: {}",
+                            batch.size(), attempt, e.getMessage());
+                } else {
+                    log.warn("Kafka transaction of {} records aborted (attempt {}): {}",
+                            batch.size(), attempt, e.getMessage());
+                }
+            }
+
+            if (giveUpAtNanos != Long.MAX_VALUE
+                    && giveUpAtNanos - System.nanoTime() < TimeUnit.MILLISECONDS.toNanos(backoffMs)) {
+                requeue(batch);
+                return false;
+            }
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                requeue(batch);
+                return false;
+            }
+            backoffMs = Math.min(maxRetryBackoffMs, backoffMs * 2);
+        }
+    }
+
+    /**
+     * Puts an uncommitted batch back in front of the open one, due at the next interval commit.
+     */
+    private void requeue(List<ProducerRecord<String, CardTransaction>> batch) {
+        synchronized (lock) {
+            batch.addAll(pending);
+            pending = batch;
+            batchOpenedAt = 0;
+        }
+    }
+
+    private KafkaTemplate<String, CardTransaction> template() {
+        KafkaTemplate<String, CardTransaction> template = transactionalTemplate;
+        if (template == null) {
+            synchronized (this) {
+                template = transactionalTemplate;
+                if (template == null) {
+                    // Built here rather than as a bean so Boot's auto-configured plain template stays in place
+                    Map<String, Object> props = kafkaProperties.buildProducerProperties();
+                    producerFactory = new DefaultKafkaProducerFactory<>(props);
+                    producerFactory.setTransactionIdPrefix(transactionalIdPrefix);
+                    template = new KafkaTemplate<>(producerFactory);
+                    transactionalTemplate = template;
+                    log.info("Created transactional producer with transactional id prefix {}", transactionalIdPrefix);
+                }
+            }
+        }
+        return template;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!flush(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs))) {
+            int lost;
+            synchronized (lock) {
+                lost = pending.size();
+            }
+            stats.recordFailed(lost);
+            log.error("Shutting down with {} records that Kafka would not commit within {} ms; they are lost",
+                    lost, shutdownTimeoutMs);
+        }
+        if (producerFactory != null) {
+            producerFactory.destroy();
+        }
+    }
+}
@@ -0,0 +1,369 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streaming velocity checks over the generated transactions, as a baseline for the Flink job.
+ * <p>
+ * Each card keeps a sliding window over the last {@code window-minutes} in primitive ring buffers
+ * (timestamps, amounts, merchant keys) with a running amount sum and a per-merchant count, so an
+ * update and all three checks are O(1) amortised and allocation-free once the ring has reached the
+ * card's working size. Merchants are keyed by a 64-bit hash of their id, so distinct merchants
+ * are not merged by 32-bit hash collisions. After each update the
+ * window is checked against three threshold rules: transaction count, amount sum and distinct
+ * merchants. A threshold of 0 disables that rule.
+ * <p>
+ * A ring starts at {@code ring-capacity} and doubles while the window holds more transactions,
+ * up to {@code max-ring-capacity}, so all three rules see every transaction in the window. A card
+ * that exceeds even that in one window loses its oldest in-window entries: the count rule has
+ * long fired by then (max-count is below the cap), but amount and merchants are from then on only
+ * computed over the newest {@code max-ring-capacity} transactions. Those drops are reported as
+ * {@code overflowedEvents}.
+ * Alerts go to the {@code fraud-alerts} topic, at most one per card per cooldown period.
+ * Declined transactions count like approved ones: a burst of attempts is suspicious whether or
+ * not the balance covered them.
+ * <p>
+ * A card idle for longer than both the window and the cooldown has nothing left that could affect
+ * a later decision, so its window is dropped every {@code sweep-interval-ms}. A procedural
+ * population additionally caps the windows at {@code max-tracked-cards}; cards beyond that are
+ * not checked until others expire.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VelocityRuleEngine implements TransactionObserver {
+
+    static final String RULE_COUNT = "VELOCITY_COUNT";
+    static final String RULE_AMOUNT = "VELOCITY_AMOUNT";
+    static final String RULE_MERCHANTS = "VELOCITY_DISTINCT_MERCHANTS";
+
+    private final FraudAlertPublisher fraudAlertPublisher;
+    private final PopulationRegistry populationRegistry;
+
+    @Value("${app.rules.velocity.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.rules.velocity.window-minutes:10}")
+    private int windowMinutes;
+
+    @Value("${app.rules.velocity.ring-capacity:32}")
+    private int ringCapacity;
+
+    @Value("${app.rules.velocity.max-ring-capacity:1024}")
+    private int maxRingCapacity;
+
+    @Value("${app.rules.velocity.max-count:8}")
+    private int maxCount;
+
+    @Value("${app.rules.velocity.max-amount:2500.0}")
+    private double maxAmount;
+
+    @Value("${app.rules.velocity.max-distinct-merchants:5}")
+    private int maxDistinctMerchants;
+
+    @Value("${app.rules.velocity.alert-cooldown-ms:60000}")
+    private long alertCooldownMs;
+
+    @Value("${app.rules.velocity.max-tracked-cards:1000000}")
+    private int maxTrackedCards;
+
+    private final Map<String, CardWindow> windows = new ConcurrentHashMap<>();
+    private final LongAdder evaluated = new LongAdder();
+    private final LongAdder alerts = new LongAdder();
+    private final LongAdder untracked = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private long windowMillis;
+
+    @PostConstruct
+    public void validate() {
+        if (ringCapacity < 1 || ringCapacity > maxRingCapacity) {
+            throw new IllegalArgumentException("app.rules.velocity.ring-capacity (" + ringCapacity +
+                    ") must be between 1 and max-ring-capacity (" + maxRingCapacity + ")");
+        }
+        if (maxCount >= maxRingCapacity) {
+            throw new IllegalArgumentException("app.rules.velocity.max-count (" + maxCount +
+                    ") must be below max-ring-capacity (" + maxRingCapacity + ")");
+        }
+        windowMillis = windowMinutes * 60_000L;
+        if (enabled) {
+            log.info("Velocity rules enabled: window {} min, max count {}, max amount {}, max merchants {}",
+                    windowMinutes, maxCount, maxAmount, maxDistinctMerchants);
+        }
+    }
+
+    @Override
+    public void onTransaction(AuthorizedTransaction event) {
+        if (!enabled) {
+            return;
+        }
+
+        // Declined attempts count: repeated attempts on one card are themselves the velocity signal
+        CardTransaction transaction = event.getTransaction();
+        String cardId = transaction.getCardId().toString();
+        long timestamp = transaction.getTransactionTimestamp();
+        CardWindow window = windows.get(cardId);
+        if (window == null) {
+            if (windows.size() >= maxTrackedCards && populationRegistry.isProcedural()) {
+                untracked.increment();
+                return;
+            }
+            window = windows.computeIfAbsent(cardId, k -> new CardWindow(ringCapacity, maxRingCapacity));
+        }
+
+        String rule = null;
+        double threshold = 0;
+        int count;
+        double sum;
+        int merchants;
+        synchronized (window) {
+            if (!window.add(timestamp, transaction.getTransactionAmount(), merchantKey(transaction.getMerchantId()),
+                    windowMillis)) {
+                overflowed.increment();
+            }
+            count = window.size;
+            sum = window.sum;
+            merchants = window.distinctMerchants();
+
+            if (timestamp - window.lastAlertAt >= alertCooldownMs) {
+                if (maxCount > 0 && count > maxCount) {
+                    rule = RULE_COUNT;
+                    threshold = maxCount;
+                } else if (maxAmount > 0 && sum > maxAmount) {
+                    rule = RULE_AMOUNT;
+                    threshold = maxAmount;
+                } else if (maxDistinctMerchants > 0 && merchants > maxDistinctMerchants) {
+                    rule = RULE_MERCHANTS;
+                    threshold = maxDistinctMerchants;
+                }
+                if (rule != null) {
+                    window.lastAlertAt = timestamp;
+                }
+            }
+        }
+        evaluated.increment();
+
+        if (rule != null) {
+            alerts.increment();
+            fraudAlertPublisher.publish(rule, transaction, windowMinutes, count, sum, merchants, threshold);
+        }
+    }
+
+    /**
+     * Drops the windows of cards idle for longer than both the window and the alert cooldown.
+     */
+    @Scheduled(fixedDelayString = "${app.population.procedural.sweep-interval-ms:60000}")
+    public void expireIdle() {
+        if (!enabled) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - Math.max(windowMillis, alertCooldownMs);
+        windows.values().removeIf(window -> {
+            if (window.touchedAt >= cutoff) {
+                return false;
+            }
+            expired.increment();
+            return true;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("windowMinutes", windowMinutes);
+        stats.put("trackedCards", windows.size());
+        stats.put("untrackedEvents", untracked.sum());
+        stats.put("expiredWindows", expired.sum());
+        stats.put("overflowedEvents", overflowed.sum());
+        stats.put("evaluated", evaluated.sum());
+        stats.put("alerts", alerts.sum());
+        stats.put("maxCount", maxCount);
+        stats.put("maxAmount", maxAmount);
+        stats.put("maxDistinctMerchants", maxDistinctMerchants);
+        return stats;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a merchant id, computed on the characters so an Avro {@code Utf8} and a
+     * {@code String} with the same id give the same key.
+     */
+    static long merchantKey(CharSequence merchantId) {
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < merchantId.length(); i++) {
+            hash ^= merchantId.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Per-card ring of the transactions inside the window, oldest at {@code head}. Grows by doubling
+     * up to its maximum and shrinks back once a burst has left the window.
+     * Guarded by its own monitor; cards are independent, so contention is negligible.
+     */
+    static final class CardWindow {
+        private final int initialCapacity;
+        private final int maxCapacity;
+        long[] timestamps;
+        double[] amounts;
+        long[] merchants;
+        MerchantCounts merchantCounts;
+        int head;
+        int size;
+        double sum;
+        long lastAlertAt = Long.MIN_VALUE / 2;
+        volatile long touchedAt;
+
+        CardWindow(int initialCapacity, int maxCapacity) {
+            this.initialCapacity = initialCapacity;
+            this.maxCapacity = maxCapacity;
+            timestamps = new long[initialCapacity];
+            amounts = new double[initialCapacity];
+            merchants = new long[initialCapacity];
+            merchantCounts = new MerchantCounts(initialCapacity);
+        }
+
+        /**
+         * Adds a transaction after dropping those that left the window.
+         *
+         * @return false if the ring was at its maximum and an entry still inside the window was dropped
+         */
+        boolean add(long timestamp, double amount, long merchantKey, long windowMillis) {
+            touchedAt = System.currentTimeMillis();
+            long cutoff = timestamp - windowMillis;
+            while (size > 0 && timestamps[head] <= cutoff) {
+                evictOldest();
+            }
+            boolean complete = true;
+            if (size == timestamps.length) {
+                if (size < maxCapacity) {
+                    resize(Math.min(maxCapacity, size * 2));
+                } else {
+                    evictOldest();
+                    complete = false;
+                }
+            } else if (timestamps.length > initialCapacity && size < timestamps.length / 4) {
+                // Gives back memory after a burst so a quiet card returns to its small footprint
+                resize(Math.max(initialCapacity, size * 2));
+            }
+            int tail = (head + size) % timestamps.length;
+            timestamps[tail] = timestamp;
+            amounts[tail] = amount;
+            merchants[tail] = merchantKey;
+            merchantCounts.increment(merchantKey);
+            sum += amount;
+            size++;
+            return complete;
+        }
+
+        int distinctMerchants() {
+            return merchantCounts.distinct;
+        }
+
+        private void resize(int capacity) {
+            long[] newTimestamps = new long[capacity];
+            double[] newAmounts = new double[capacity];
+            long[] newMerchants = new long[capacity];
+            MerchantCounts newCounts = new MerchantCounts(capacity);
+            for (int i = 0; i < size; i++) {
+                int from = (head + i) % timestamps.length;
+                newTimestamps[i] = timestamps[from];
+                newAmounts[i] = amounts[from];
+                newMerchants[i] = merchants[from];
+                newCounts.increment(merchants[from]);
+            }
+            timestamps = newTimestamps;
+            amounts = newAmounts;
+            merchants = newMerchants;
+            merchantCounts = newCounts;
+            head = 0;
+        }
+
+        private void evictOldest() {
+            sum -= amounts[head];
+            merchantCounts.decrement(merchants[head]);
+            head = (head + 1) % timestamps.length;
+            size--;
+            if (size == 0) {
+                // Reset to avoid floating point drift accumulating over long runs
+                sum = 0;
+            }
+        }
+    }
+
+    /**
+     * Open-addressed map from merchant key to the number of window entries with that merchant,
+     * with linear probing and backward-shift deletion. A slot is empty when its count is 0.
+     * Sized for at most {@code capacity} keys at under half load, so it never needs to grow.
+     */
+    static final class MerchantCounts {
+        private final long[] keys;
+        private final int[] counts;
+        private final int shift;
+        int distinct;
+
+        MerchantCounts(int capacity) {
+            int slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+            keys = new long[slots];
+            counts = new int[slots];
+            shift = 64 - Integer.numberOfTrailingZeros(slots);
+        }
+
+        void increment(long key) {
+            int mask = keys.length - 1;
+            int slot = home(key);
+            while (counts[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (counts[slot]++ == 0) {
+                keys[slot] = key;
+                distinct++;
+            }
+        }
+
+        void decrement(long key) {
+            int mask = keys.length - 1;
+            int slot = home(key);
+            while (keys[slot] != key || counts[slot] == 0) {
+                slot = (slot + 1) & mask;
+            }
+            if (--counts[slot] > 0) {
+                return;
+            }
+            distinct--;
+            // Shift later entries of the probe run back so lookups never stop at the new hole
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (counts[next] != 0) {
+                int wanted = home(keys[next]);
+                if (((next - wanted) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    counts[hole] = counts[next];
+                    counts[next] = 0;
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+        }
+
+        private int home(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+    }
+}
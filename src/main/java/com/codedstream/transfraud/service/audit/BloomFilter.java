@@ -0,0 +1,108 @@
+package com.codedstream.transfraud.service.audit;
+
+import java.util.Arrays;
+
+/**
+ * Two-generation Bloom filter over byte keys with a fixed memory footprint.
+ * <p>
+ * Keys go into the current generation; lookups check both. Once the current generation holds
+ * {@code capacity} keys it becomes the previous one and the old previous generation is
+ * dropped, so the filter remembers at least the last {@code capacity} keys at about the
+ * configured false-positive rate while its size never grows.
+ * <p>
+ * Not thread-safe: owned by the audit consumer thread.
+ */
+final class BloomFilter {
+
+    private final int bitMask;
+    private final int hashCount;
+    private final long capacity;
+    private long[] current;
+    private long[] previous;
+    private long inserted;
+
+    /**
+     * @param sizeBits  bits per generation, a power of two
+     * @param hashCount bit positions set per key
+     * @param capacity  keys per generation before it rotates
+     */
+    BloomFilter(int sizeBits, int hashCount, long capacity) {
+        if (Integer.bitCount(sizeBits) != 1 || sizeBits < 64) {
+            throw new IllegalArgumentException("Bloom filter size must be a power of two of at least 64 bits: " + sizeBits);
+        }
+        this.bitMask = sizeBits - 1;
+        this.hashCount = hashCount;
+        this.capacity = capacity;
+        this.current = new long[sizeBits >>> 6];
+        this.previous = new long[sizeBits >>> 6];
+    }
+
+    /**
+     * Adds {@code key}.
+     *
+     * @return {@code true} if the key was probably added before
+     */
+    boolean put(byte[] key) {
+        return put(hash(key, 0x9E3779B97F4A7C15L), hash(key, 0xC2B2AE3D27D4EB4FL) | 1);
+    }
+
+    /**
+     * Adds the key {@code (high, low)} without materialising it as bytes.
+     *
+     * @return {@code true} if the key was probably added before
+     */
+    boolean put(long high, long low) {
+        long h1 = mix(high * 0x9E3779B97F4A7C15L + low);
+        long h2 = mix(low * 0xC2B2AE3D27D4EB4FL ^ high) | 1;
+        return putHashed(h1, h2);
+    }
+
+    private boolean putHashed(long h1, long h2) {
+        boolean inCurrent = true;
+        boolean inPrevious = true;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = (int) ((h1 + i * h2) & bitMask);
+            int word = bit >>> 6;
+            long mask = 1L << (bit & 63);
+            if ((current[word] & mask) == 0) {
+                inCurrent = false;
+                current[word] |= mask;
+            }
+            if ((previous[word] & mask) == 0) {
+                inPrevious = false;
+            }
+        }
+        if (inCurrent) {
+            return true;
+        }
+        if (++inserted >= capacity) {
+            long[] recycled = previous;
+            Arrays.fill(recycled, 0);
+            previous = current;
+            current = recycled;
+            inserted = 0;
+        }
+        return inPrevious;
+    }
+
+    /**
+     * False-positive rate of one full generation; a lookup checks two, so at most about twice this.
+     */
+    double designFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-hashCount * (double) capacity / (bitMask + 1.0)), hashCount);
+    }
+
+    private static long hash(byte[] key, long seed) {
+        long h = seed;
+        for (byte b : key) {
+            h = (h ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
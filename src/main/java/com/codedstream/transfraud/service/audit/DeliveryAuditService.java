@@ -0,0 +1,296 @@
+package com.codedstream.transfraud.service.audit;
+
+import com.codedstream.transfraud.service.TransactionRecordFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional consumer that checks that every record the generators sent arrived exactly once.
+ * <p>
+ * Records carrying {@code generator-instance}, {@code generator-run} and
+ * {@code generator-sequence} headers are tracked per run in a {@link SequenceWindow}. That finds
+ * duplicates directly and counts a sequence number as lost once the window has moved past it.
+ * Records that turn up below the window are checked against a Bloom filter of the sequence
+ * numbers seen. A record seen before is a duplicate; otherwise it was late, not lost.
+ * Records without sequence headers are checked for repeated keys (transaction ids) in the same
+ * filter.
+ * <p>
+ * Memory is bounded: one window per run, for at most {@code max-runs} runs, plus one
+ * fixed-size filter. Results are published every {@code report-interval-ms}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeliveryAuditService {
+
+    private final KafkaProperties kafkaProperties;
+
+    @Value("${app.delivery-audit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.delivery-audit.topics:${app.kafka.topics.transactions}}")
+    private List<String> topics;
+
+    @Value("${app.delivery-audit.group-id:delivery-audit-${app.instance.id:0}}")
+    private String groupId;
+
+    @Value("${app.delivery-audit.window-bits:16777216}")
+    private int windowBits;
+
+    @Value("${app.delivery-audit.max-runs:16}")
+    private int maxRuns;
+
+    @Value("${app.delivery-audit.bloom-bits:134217728}")
+    private int bloomBits;
+
+    @Value("${app.delivery-audit.bloom-hashes:7}")
+    private int bloomHashes;
+
+    @Value("${app.delivery-audit.bloom-capacity:10000000}")
+    private long bloomCapacity;
+
+    @Value("${app.delivery-audit.report-interval-ms:10000}")
+    private long reportIntervalMs;
+
+    @Value("${app.kafka.transactional.enabled:false}")
+    private boolean readCommitted;
+
+    // Consumer thread only
+    private final Map<RunKey, RunAudit> runs = new HashMap<>();
+    private BloomFilter seen;
+    private long unsequenced;
+    private long unsequencedDuplicates;
+    private long retiredReceived;
+    private long retiredDuplicates;
+    private long retiredLost;
+    private long lastReportAt;
+    private long lastReportedLost;
+    private long lastReportedDuplicates;
+
+    private volatile Map<String, Object> report = Collections.emptyMap();
+    private KafkaConsumer<byte[], byte[]> consumer;
+    private Thread pollThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        seen = new BloomFilter(bloomBits, bloomHashes, bloomCapacity);
+        // Validate the window size up front rather than on the first record
+        new SequenceWindow(windowBits, 0);
+
+        Map<String, Object> config = kafkaProperties.buildConsumerProperties();
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        // A complete run can only be audited from its first record
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, readCommitted ? "read_committed" : "read_uncommitted");
+        consumer = new KafkaConsumer<>(config);
+
+        running = true;
+        pollThread = new Thread(this::pollLoop, "delivery-audit");
+        pollThread.setDaemon(true);
+        pollThread.start();
+        log.info("Delivery audit consuming {} as group {} with {}-bit windows", topics, groupId, windowBits);
+    }
+
+    public Map<String, Object> getReport() {
+        Map<String, Object> current = new LinkedHashMap<>();
+        current.put("enabled", enabled);
+        current.putAll(report);
+        return current;
+    }
+
+    private void pollLoop() {
+        try {
+            consumer.subscribe(topics);
+            while (running) {
+                for (ConsumerRecord<byte[], byte[]> record : consumer.poll(Duration.ofMillis(200))) {
+                    audit(record);
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastReportAt >= reportIntervalMs) {
+                    publishReport();
+                    lastReportAt = now;
+                }
+            }
+        } catch (WakeupException e) {
+            // Shutdown
+        } catch (Exception e) {
+            log.error("Delivery audit stopped: {}", e.getMessage(), e);
+        } finally {
+            consumer.close();
+        }
+    }
+
+    private void audit(ConsumerRecord<byte[], byte[]> record) {
+        Headers headers = record.headers();
+        Header instance = headers.lastHeader(TransactionRecordFactory.INSTANCE_HEADER);
+        Header run = headers.lastHeader(TransactionRecordFactory.RUN_HEADER);
+        Header sequence = headers.lastHeader(TransactionRecordFactory.SEQUENCE_HEADER);
+        if (instance == null || run == null || sequence == null) {
+            unsequenced++;
+            if (record.key() != null && seen.put(record.key())) {
+                unsequencedDuplicates++;
+            }
+            return;
+        }
+
+        RunKey key = new RunKey(ByteBuffer.wrap(instance.value()).getInt(), ByteBuffer.wrap(run.value()).getLong());
+        long number = ByteBuffer.wrap(sequence.value()).getLong();
+        RunAudit audit = runs.get(key);
+        if (audit == null) {
+            audit = new RunAudit(new SequenceWindow(windowBits, number));
+            admit(key, audit);
+        }
+        audit.lastSeenAt = System.currentTimeMillis();
+
+        boolean seenBefore = seen.put(key.hash(), number);
+        if (!audit.window.record(number) && audit.window.isTracked(number)) {
+            if (seenBefore) {
+                audit.window.recordLateDuplicate();
+            } else {
+                audit.window.recoverLate();
+            }
+        }
+    }
+
+    /**
+     * Starts tracking a new run, retiring the least recently active one if at the limit.
+     */
+    private void admit(RunKey key, RunAudit audit) {
+        if (runs.size() >= maxRuns) {
+            RunKey oldest = null;
+            for (Map.Entry<RunKey, RunAudit> entry : runs.entrySet()) {
+                if (oldest == null || entry.getValue().lastSeenAt < runs.get(oldest).lastSeenAt) {
+                    oldest = entry.getKey();
+                }
+            }
+            SequenceWindow retired = runs.remove(oldest).window;
+            retiredReceived += retired.getReceived();
+            retiredDuplicates += retired.getDuplicates();
+            retiredLost += retired.getLost() + retired.countOutstanding();
+            log.info("Delivery audit retired run {} of instance {}", oldest.run, oldest.instance);
+        }
+        runs.put(key, audit);
+        log.info("Delivery audit tracking run {} of instance {}", key.run, key.instance);
+    }
+
+    private void publishReport() {
+        long received = retiredReceived;
+        long duplicates = retiredDuplicates;
+        long lost = retiredLost;
+        long outstanding = 0;
+        List<Map<String, Object>> perRun = new ArrayList<>();
+        for (Map.Entry<RunKey, RunAudit> entry : runs.entrySet()) {
+            SequenceWindow window = entry.getValue().window;
+            long runOutstanding = window.countOutstanding();
+            received += window.getReceived();
+            duplicates += window.getDuplicates();
+            lost += window.getLost();
+            outstanding += runOutstanding;
+
+            Map<String, Object> runReport = new LinkedHashMap<>();
+            runReport.put("instance", entry.getKey().instance);
+            runReport.put("run", entry.getKey().run);
+            runReport.put("received", window.getReceived());
+            runReport.put("highestSequence", window.getHighest());
+            runReport.put("duplicates", window.getDuplicates());
+            runReport.put("lost", window.getLost());
+            runReport.put("outstanding", runOutstanding);
+            runReport.put("belowWindow", window.getBelowWindow());
+            perRun.add(runReport);
+        }
+
+        Map<String, Object> next = new LinkedHashMap<>();
+        next.put("topics", topics);
+        next.put("reportedAt", System.currentTimeMillis());
+        next.put("received", received);
+        next.put("duplicates", duplicates);
+        next.put("lost", lost);
+        next.put("outstanding", outstanding);
+        next.put("unsequenced", unsequenced);
+        next.put("unsequencedDuplicates", unsequencedDuplicates);
+        next.put("bloomFalsePositiveRate", seen.designFalsePositiveRate());
+        next.put("runs", perRun);
+        report = Collections.unmodifiableMap(next);
+
+        if (lost != lastReportedLost || duplicates != lastReportedDuplicates) {
+            log.warn("Delivery audit: {} received, {} lost, {} duplicates, {} outstanding",
+                    received, lost, duplicates, outstanding);
+            lastReportedLost = lost;
+            lastReportedDuplicates = duplicates;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        consumer.wakeup();
+        pollThread.join(5000);
+    }
+
+    private static final class RunAudit {
+        final SequenceWindow window;
+        long lastSeenAt;
+
+        RunAudit(SequenceWindow window) {
+            this.window = window;
+        }
+    }
+
+    private static final class RunKey {
+        final int instance;
+        final long run;
+
+        RunKey(int instance, long run) {
+            this.instance = instance;
+            this.run = run;
+        }
+
+        long hash() {
+            return run * 31 + instance;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof RunKey)) {
+                return false;
+            }
+            RunKey that = (RunKey) other;
+            return instance == that.instance && run == that.run;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.codedstream.transfraud.service.audit;
+
+/**
+ * Sliding bitset over one producer run's dense sequence numbers.
+ * <p>
+ * The window covers {@code [base, base + size)} with one bit per sequence number in a ring of
+ * longs. A sequence number seen twice is a duplicate. When a sequence number beyond the window
+ * arrives, whole words slide out at the bottom and every bit still clear in them is counted as
+ * lost. The window therefore has to span the largest reordering between partitions, plus
+ * deliberately delayed events, at the production rate. Memory is {@code size / 8} bytes whatever
+ * the length of the run.
+ * <p>
+ * The first delivery seen does not have to be the lowest: with several partitions read from the
+ * earliest offset, lower sequence numbers from other partitions arrive later. Until the window
+ * first slides, a lower sequence number that still fits moves the floor of the audit down to it.
+ * Sequence numbers below the floor are taken to predate the audit and are never counted as lost.
+ * <p>
+ * Not thread-safe: owned by the audit consumer thread.
+ */
+final class SequenceWindow {
+
+    private final long[] words;
+    private final int wordMask;
+    private final long size;
+    private long floor;
+    private boolean slid;
+    private long base;
+    private long highest = -1;
+    private long received;
+    private long duplicates;
+    private long lost;
+    private long belowWindow;
+
+    /**
+     * @param sizeBits  window size, a power of two and at least 64
+     * @param firstSeen first sequence number observed; the floor of the audit until a lower one
+     *                  arrives
+     */
+    SequenceWindow(int sizeBits, long firstSeen) {
+        if (Integer.bitCount(sizeBits) != 1 || sizeBits < 64) {
+            throw new IllegalArgumentException("Window size must be a power of two of at least 64 bits: " + sizeBits);
+        }
+        words = new long[sizeBits >>> 6];
+        wordMask = words.length - 1;
+        size = sizeBits;
+        base = firstSeen & ~63L;
+        floor = firstSeen;
+    }
+
+    /**
+     * Records one delivery.
+     *
+     * @return {@code false} if the sequence number is below the window and could not be checked
+     */
+    boolean record(long sequence) {
+        if (sequence < floor && !slid && highest - sequence < size) {
+            // Nothing has slid out yet, so the words below the base are unused and can be claimed
+            floor = sequence;
+            base = Math.min(base, sequence & ~63L);
+        }
+        if (sequence < base) {
+            belowWindow++;
+            return false;
+        }
+        if (sequence >= base + size) {
+            slideTo(sequence - size + 1);
+        }
+        received++;
+        if (!set(sequence)) {
+            duplicates++;
+        }
+        highest = Math.max(highest, sequence);
+        return true;
+    }
+
+    /**
+     * Whether {@code sequence} was ever inside the window, as opposed to predating the audit.
+     */
+    boolean isTracked(long sequence) {
+        return sequence >= floor;
+    }
+
+    /**
+     * A delivery below the window that was counted as lost when it slid out, but has now arrived.
+     */
+    void recoverLate() {
+        lost--;
+        received++;
+    }
+
+    /**
+     * A delivery below the window that had already been received: a duplicate found by the
+     * Bloom filter fallback.
+     */
+    void recordLateDuplicate() {
+        duplicates++;
+    }
+
+    long getReceived() {
+        return received;
+    }
+
+    long getDuplicates() {
+        return duplicates;
+    }
+
+    long getLost() {
+        return lost;
+    }
+
+    long getBelowWindow() {
+        return belowWindow;
+    }
+
+    long getHighest() {
+        return highest;
+    }
+
+    /**
+     * Sequence numbers up to the highest seen that have not arrived yet and are still inside
+     * the window, so may still be in flight.
+     */
+    long countOutstanding() {
+        if (highest < base) {
+            return 0;
+        }
+        long present = 0;
+        for (long word = base >>> 6; word <= highest >>> 6; word++) {
+            long bits = wordBits(word);
+            if (word == highest >>> 6) {
+                bits &= -1L >>> (63 - (highest & 63));
+            }
+            present += Long.bitCount(bits);
+        }
+        return highest - base + 1 - present;
+    }
+
+    /**
+     * The bits of one word, with the positions below the floor reported as present.
+     */
+    private long wordBits(long word) {
+        long bits = words[(int) (word & wordMask)];
+        if (word == floor >>> 6) {
+            bits |= (1L << (floor & 63)) - 1;
+        }
+        return bits;
+    }
+
+    private boolean set(long sequence) {
+        int word = (int) ((sequence >>> 6) & wordMask);
+        long bit = 1L << (sequence & 63);
+        if ((words[word] & bit) != 0) {
+            return false;
+        }
+        words[word] |= bit;
+        return true;
+    }
+
+    private void slideTo(long newBase) {
+        long targetWord = newBase >>> 6;
+        if (newBase % 64 != 0) {
+            targetWord++;
+        }
+        long word = base >>> 6;
+        // A jump past the whole window retires every tracked word, then skips untracked ones
+        long lastTracked = Math.min(targetWord, word + words.length);
+        for (; word < lastTracked; word++) {
+            lost += 64 - Long.bitCount(wordBits(word));
+            words[(int) (word & wordMask)] = 0;
+        }
+        lost += (targetWord - lastTracked) * 64;
+        base = targetWord << 6;
+        slid = true;
+    }
+}
@@ -0,0 +1,99 @@
+package com.codedstream.transfraud.service.id;
+
+import com.codedstream.transfraud.model.population.UniqueIdentities;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Hands out customer and card indexes for the stored population, which
+ * {@link UniqueIdentities} turns into ids, emails and card numbers.
+ * <p>
+ * Indexes are reserved in blocks of {@code block-size} (hi/lo): the end of the reserved range is
+ * written to {@code allocation-path} before any index in it is used, so after a restart issuing
+ * resumes past everything a previous run may have issued and imported snapshots never collide
+ * with new entities. Keep the file next to the population snapshot. A crash skips at most the
+ * rest of one block.
+ */
+@Slf4j
+@Component
+public class IdentityAllocator {
+
+    private final UniqueIdentities identities;
+    private final Path path;
+    private final long blockSize;
+
+    private long nextCustomer;
+    private long customerLimit;
+    private long nextCard;
+    private long cardLimit;
+
+    public IdentityAllocator(@Value("${app.ids.identity-seed:7340032}") long identitySeed,
+                             @Value("${app.ids.allocation-path:./data/identity.hwm}") String allocationPath,
+                             @Value("${app.ids.block-size:65536}") long blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("app.ids.block-size must be positive: " + blockSize);
+        }
+        this.identities = new UniqueIdentities(identitySeed);
+        this.path = Paths.get(allocationPath);
+        this.blockSize = blockSize;
+        load();
+    }
+
+    public UniqueIdentities identities() {
+        return identities;
+    }
+
+    public synchronized long nextCustomerIndex() {
+        if (nextCustomer == customerLimit) {
+            customerLimit += blockSize;
+            store();
+        }
+        return nextCustomer++;
+    }
+
+    public synchronized long nextCardIndex() {
+        if (nextCard == cardLimit) {
+            cardLimit += blockSize;
+            store();
+        }
+        return nextCard++;
+    }
+
+    private void load() {
+        try {
+            if (Files.isRegularFile(path) && Files.size(path) == 2 * Long.BYTES) {
+                ByteBuffer limits = ByteBuffer.wrap(Files.readAllBytes(path));
+                customerLimit = limits.getLong();
+                cardLimit = limits.getLong();
+                nextCustomer = customerLimit;
+                nextCard = cardLimit;
+                log.info("Resuming identity allocation at customer {} and card {}", nextCustomer, nextCard);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read identity allocation from " + path, e);
+        }
+    }
+
+    private void store() {
+        ByteBuffer limits = ByteBuffer.allocate(2 * Long.BYTES).putLong(customerLimit).putLong(cardLimit);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            Files.write(temp, limits.array());
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to reserve identities in " + path, e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.codedstream.transfraud.service.id;
+
+/**
+ * Source of event ids, selected with {@code app.ids.type} ({@code ulid} or {@code uuid}).
+ * Ids are plain strings so they fit the Avro {@code transactionId} field unchanged.
+ */
+public interface TransactionIdGenerator {
+
+    String nextId();
+}
@@ -0,0 +1,119 @@
+package com.codedstream.transfraud.service.id;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered, k-sortable 128-bit ids rendered as 26-character ULID strings (Crockford base32).
+ * <p>
+ * Layout: 48-bit epoch milliseconds, 16-bit instance id, 12-bit thread slot, 52-bit per-thread
+ * counter. Each thread owns its slot and counter, so generation is lock-free and needs no shared
+ * random source; ids from one thread are strictly increasing even if the clock steps back.
+ * <p>
+ * Up to 4096 live generating threads per instance get distinct slots. Once all slots have been
+ * handed out, a new thread takes over the slot of one that has died, together with its last
+ * millisecond and counter, so it continues that slot's sequence rather than repeating it.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ids.type", havingValue = "ulid", matchIfMissing = true)
+public class UlidTransactionIdGenerator implements TransactionIdGenerator {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final long COUNTER_MASK = (1L << 52) - 1;
+    private static final int SLOTS = 1 << 12;
+
+    private final long instanceBits;
+    private final LongSupplier clock;
+    // Index is the slot; only touched when a thread generates its first id
+    private final List<SlotOwner> owners = new ArrayList<>();
+    private final ThreadLocal<ThreadState> threadState = ThreadLocal.withInitial(this::claimSlot);
+
+    public UlidTransactionIdGenerator(@Value("${app.instance.id:0}") int instanceId) {
+        this(instanceId, System::currentTimeMillis);
+    }
+
+    UlidTransactionIdGenerator(int instanceId, LongSupplier clock) {
+        this.instanceBits = (long) (instanceId & 0xFFFF);
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        ThreadState state = threadState.get();
+        long now = clock.getAsLong();
+        if (now > state.lastMillis) {
+            state.lastMillis = now;
+            state.counter = 0;
+        } else if (++state.counter > COUNTER_MASK) {
+            // Counter exhausted within one millisecond: borrow the next one to stay monotonic
+            state.lastMillis++;
+            state.counter = 0;
+        }
+
+        long high = (state.lastMillis << 16) | instanceBits;
+        long low = ((long) state.slot << 52) | state.counter;
+        return encode(high, low);
+    }
+
+    private ThreadState claimSlot() {
+        Thread current = Thread.currentThread();
+        synchronized (owners) {
+            if (owners.size() < SLOTS) {
+                ThreadState state = new ThreadState(owners.size());
+                owners.add(new SlotOwner(current, state));
+                return state;
+            }
+            for (int slot = 0; slot < SLOTS; slot++) {
+                SlotOwner owner = owners.get(slot);
+                Thread thread = owner.thread.get();
+                // A terminated thread's last writes to its state are visible once isAlive() is false
+                if (thread == null || !thread.isAlive()) {
+                    owners.set(slot, new SlotOwner(current, owner.state));
+                    return owner.state;
+                }
+            }
+        }
+        throw new IllegalStateException("More than " + SLOTS + " live threads are generating ULIDs");
+    }
+
+    static String encode(long high, long low) {
+        char[] chars = new char[26];
+        // 128 bits as 26 base32 digits: the first digit holds only the top 3 bits
+        chars[0] = ALPHABET[(int) ((high >>> 61) & 0x7)];
+        for (int i = 1; i < 13; i++) {
+            chars[i] = ALPHABET[(int) ((high >>> (61 - 5 * i)) & 0x1F)];
+        }
+        // Digit 13 straddles the two longs: last bit of high, top 4 bits of low
+        chars[13] = ALPHABET[(int) (((high & 0x1) << 4) | (low >>> 60))];
+        for (int i = 14; i < 26; i++) {
+            chars[i] = ALPHABET[(int) ((low >>> (60 - 5 * (i - 13))) & 0x1F)];
+        }
+        return new String(chars);
+    }
+
+    private static final class SlotOwner {
+        final WeakReference<Thread> thread;
+        final ThreadState state;
+
+        SlotOwner(Thread thread, ThreadState state) {
+            this.thread = new WeakReference<>(thread);
+            this.state = state;
+        }
+    }
+
+    private static final class ThreadState {
+        final int slot;
+        long lastMillis;
+        long counter;
+
+        ThreadState(int slot) {
+            this.slot = slot;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.codedstream.transfraud.service.id;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Random version 4 UUIDs, as generated before time-ordered ids were introduced. Every call draws
+ * from the shared {@code SecureRandom}, which serialises under multithreaded load.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ids.type", havingValue = "uuid")
+public class UuidTransactionIdGenerator implements TransactionIdGenerator {
+
+    @Override
+    public String nextId() {
+        return UUID.randomUUID().toString();
+    }
+}
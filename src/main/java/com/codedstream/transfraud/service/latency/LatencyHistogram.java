@@ -0,0 +1,106 @@
+package com.codedstream.transfraud.service.latency;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of latencies in microseconds: exact below 128 us, then 64 linear
+ * buckets per power of two, so every reported percentile is within about 1.6% of the true
+ * value while the whole histogram is a fixed array of a few thousand counters.
+ * <p>
+ * Counters are atomic, so several threads may record (producer callbacks do) while others read.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    // Values above 2^40 us (about 12 days) are clamped into the last bucket
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_EXPONENT - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+    private final AtomicLong negative = new AtomicLong();
+
+    /**
+     * Records one latency. Negative values, from clocks out of step between hosts, are counted
+     * separately instead of being folded into the distribution.
+     */
+    public void record(long micros) {
+        if (micros < 0) {
+            negative.incrementAndGet();
+            return;
+        }
+        counts.incrementAndGet(bucketOf(micros));
+        total.incrementAndGet();
+        sum.addAndGet(micros);
+        if (micros > max.get()) {
+            max.accumulateAndGet(micros, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    /**
+     * Upper bound of the bucket holding the {@code percentile}th value, in microseconds.
+     */
+    public long percentile(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public Map<String, Object> summary() {
+        long count = total.get();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        summary.put("meanMicros", count == 0 ? 0.0 : (double) sum.get() / count);
+        summary.put("p50Micros", percentile(50));
+        summary.put("p90Micros", percentile(90));
+        summary.put("p99Micros", percentile(99));
+        summary.put("p999Micros", percentile(99.9));
+        summary.put("maxMicros", max.get());
+        summary.put("negative", negative.get());
+        return summary;
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS;
+        int mantissa = (int) (micros >>> shift) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + mantissa;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = SUB_BUCKET_BITS + 1 + (bucket - LINEAR_LIMIT) / SUB_BUCKETS;
+        long mantissa = SUB_BUCKETS + (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
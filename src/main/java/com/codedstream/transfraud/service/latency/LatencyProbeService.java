@@ -0,0 +1,181 @@
+package com.codedstream.transfraud.service.latency;
+
+import com.codedstream.transfraud.service.TransactionRecordFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Optional consumer that reads the generated topics back and measures the time from the
+ * {@code generated-at-ns} header to consumption on this host.
+ * <p>
+ * Values are read as raw bytes and never deserialized, so the probe adds no Avro or schema
+ * registry work of its own. It runs in its own consumer group on one daemon thread. The
+ * histogram covers everything since start or the last reset. Producer and probe clocks must be
+ * in step (same host, or NTP); records that appear to arrive before they were sent are counted
+ * as {@code negative}. Per instance it also tracks the highest send sequence seen, so loss can
+ * be estimated when the probe reads every topic an instance writes to.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LatencyProbeService {
+
+    private final KafkaProperties kafkaProperties;
+
+    @Value("${app.latency-probe.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.latency-probe.topics:${app.kafka.topics.transactions}}")
+    private List<String> topics;
+
+    @Value("${app.latency-probe.group-id:latency-probe-${app.instance.id:0}}")
+    private String groupId;
+
+    @Value("${app.latency-probe.poll-ms:100}")
+    private long pollMs;
+
+    @Value("${app.kafka.transactional.enabled:false}")
+    private boolean readCommitted;
+
+    private final AtomicReference<LatencyHistogram> histogram = new AtomicReference<>(new LatencyHistogram());
+    private final AtomicLong withoutHeader = new AtomicLong();
+    private final Map<Integer, InstanceProgress> instances = new ConcurrentHashMap<>();
+    private volatile long resetAt = System.currentTimeMillis();
+
+    private KafkaConsumer<byte[], byte[]> consumer;
+    private Thread pollThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Object> config = kafkaProperties.buildConsumerProperties();
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        // Only live traffic is meaningful; a backlog would be measured as latency
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        config.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, readCommitted ? "read_committed" : "read_uncommitted");
+        consumer = new KafkaConsumer<>(config);
+
+        running = true;
+        pollThread = new Thread(this::pollLoop, "latency-probe");
+        pollThread.setDaemon(true);
+        pollThread.start();
+        log.info("Latency probe consuming {} as group {}", topics, groupId);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void reset() {
+        histogram.set(new LatencyHistogram());
+        withoutHeader.set(0);
+        instances.clear();
+        resetAt = System.currentTimeMillis();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("topics", topics);
+        stats.put("since", resetAt);
+        stats.put("latency", histogram.get().summary());
+        stats.put("withoutHeader", withoutHeader.get());
+
+        Map<Integer, Object> perInstance = new TreeMap<>();
+        instances.forEach((instance, progress) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("consumed", progress.consumed.get());
+            entry.put("highestSequence", progress.highestSequence.get());
+            perInstance.put(instance, entry);
+        });
+        stats.put("instances", perInstance);
+        return stats;
+    }
+
+    private void pollLoop() {
+        try {
+            consumer.subscribe(topics);
+            while (running) {
+                ConsumerRecords<byte[], byte[]> records = consumer.poll(Duration.ofMillis(pollMs));
+                if (records.isEmpty()) {
+                    continue;
+                }
+                LatencyHistogram current = histogram.get();
+                for (ConsumerRecord<byte[], byte[]> record : records) {
+                    measure(current, record);
+                }
+            }
+        } catch (WakeupException e) {
+            // Shutdown
+        } catch (Exception e) {
+            log.error("Latency probe stopped: {}", e.getMessage(), e);
+        } finally {
+            consumer.close();
+        }
+    }
+
+    private void measure(LatencyHistogram current, ConsumerRecord<byte[], byte[]> record) {
+        Header generatedAt = record.headers().lastHeader(TransactionRecordFactory.GENERATED_AT_HEADER);
+        if (generatedAt == null || generatedAt.value().length != Long.BYTES) {
+            withoutHeader.incrementAndGet();
+            return;
+        }
+        long latencyNanos = TransactionRecordFactory.epochNanos(Instant.now()) - ByteBuffer.wrap(generatedAt.value()).getLong();
+        current.record(Math.floorDiv(latencyNanos, 1000L));
+
+        Header instance = record.headers().lastHeader(TransactionRecordFactory.INSTANCE_HEADER);
+        if (instance == null || instance.value().length != Integer.BYTES) {
+            return;
+        }
+        InstanceProgress progress = instances.computeIfAbsent(ByteBuffer.wrap(instance.value()).getInt(),
+                id -> new InstanceProgress());
+        progress.consumed.incrementAndGet();
+        Header sequence = record.headers().lastHeader(TransactionRecordFactory.SEQUENCE_HEADER);
+        if (sequence != null && sequence.value().length == Long.BYTES) {
+            progress.highestSequence.accumulateAndGet(ByteBuffer.wrap(sequence.value()).getLong(), Math::max);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        consumer.wakeup();
+        pollThread.join(5000);
+    }
+
+    private static final class InstanceProgress {
+        final AtomicLong consumed = new AtomicLong();
+        final AtomicLong highestSequence = new AtomicLong(-1);
+    }
+}
@@ -0,0 +1,111 @@
+package com.codedstream.transfraud.service.settings;
+
+import com.codedstream.transfraud.service.stream.StreamProfile;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Immutable generator knobs, swapped as a whole by {@link GeneratorSettingsService}. Workers read
+ * the current instance once per event or batch, so an update is never seen half applied.
+ * Derived lookup structures (default profile, cumulative category weights) are built once here
+ * rather than on the hot path.
+ */
+@Getter
+public final class GeneratorSettings {
+
+    public static final int MAX_STREAM_WORKERS = 256;
+
+    private final long version;
+    private final long updatedAt;
+    private final double onlineProbability;
+    private final double minAmount;
+    private final double maxAmount;
+    private final double travelProbability;
+    private final Map<String, Double> categoryWeights;
+    private final double scheduledEventsPerSecond;
+    private final long bulkPauseMs;
+    private final int streamWorkers;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final StreamProfile defaultProfile;
+    @Getter(lombok.AccessLevel.NONE)
+    private final String[] categories;
+    @Getter(lombok.AccessLevel.NONE)
+    private final double[] cumulativeWeights;
+
+    @Builder(toBuilder = true)
+    private GeneratorSettings(long version, long updatedAt, double onlineProbability, double minAmount,
+                              double maxAmount, double travelProbability, Map<String, Double> categoryWeights,
+                              double scheduledEventsPerSecond, long bulkPauseMs, int streamWorkers) {
+        if (travelProbability < 0 || travelProbability > 1) {
+            throw new IllegalArgumentException("travelProbability must be between 0 and 1: " + travelProbability);
+        }
+        if (scheduledEventsPerSecond < 0 || bulkPauseMs < 0) {
+            throw new IllegalArgumentException("scheduledEventsPerSecond and bulkPauseMs must not be negative");
+        }
+        if (streamWorkers < 1 || streamWorkers > MAX_STREAM_WORKERS) {
+            throw new IllegalArgumentException("streamWorkers must be between 1 and " + MAX_STREAM_WORKERS + ": " + streamWorkers);
+        }
+        // Validates the amount range and online probability
+        this.defaultProfile = new StreamProfile(null, minAmount, maxAmount, onlineProbability);
+
+        Map<String, Double> weights = new LinkedHashMap<>();
+        if (categoryWeights != null) {
+            categoryWeights.forEach((category, weight) -> {
+                if (weight == null || weight < 0) {
+                    throw new IllegalArgumentException("Category weight must not be negative: " + category);
+                }
+                if (weight > 0) {
+                    weights.put(category.toUpperCase(), weight);
+                }
+            });
+        }
+        this.categories = weights.keySet().toArray(new String[0]);
+        this.cumulativeWeights = new double[categories.length];
+        double total = 0;
+        for (int i = 0; i < categories.length; i++) {
+            total += weights.get(categories[i]);
+            cumulativeWeights[i] = total;
+        }
+
+        this.version = version;
+        this.updatedAt = updatedAt;
+        this.onlineProbability = onlineProbability;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.travelProbability = travelProbability;
+        this.categoryWeights = Collections.unmodifiableMap(weights);
+        this.scheduledEventsPerSecond = scheduledEventsPerSecond;
+        this.bulkPauseMs = bulkPauseMs;
+        this.streamWorkers = streamWorkers;
+    }
+
+    /**
+     * Profile for events that do not belong to a configured stream.
+     */
+    public StreamProfile defaultProfile() {
+        return defaultProfile;
+    }
+
+    public boolean hasCategoryMix() {
+        return categories.length > 0;
+    }
+
+    /**
+     * Merchant category drawn from the configured mix; only meaningful when {@link #hasCategoryMix()}.
+     */
+    public String sampleCategory(Random random) {
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (target < cumulativeWeights[i]) {
+                return categories[i];
+            }
+        }
+        return categories[categories.length - 1];
+    }
+}
@@ -0,0 +1,13 @@
+package com.codedstream.transfraud.service.settings;
+
+import lombok.Value;
+
+/**
+ * Published after a new {@link GeneratorSettings} has been swapped in, for components that have
+ * to act on a change (such as resizing the worker pool) rather than just read the new values.
+ */
+@Value
+public class GeneratorSettingsChangedEvent {
+    GeneratorSettings previous;
+    GeneratorSettings current;
+}
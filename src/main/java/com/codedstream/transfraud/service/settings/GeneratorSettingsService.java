@@ -0,0 +1,159 @@
+package com.codedstream.transfraud.service.settings;
+
+import com.codedstream.transfraud.config.GeneratorStreamProperties;
+import com.codedstream.transfraud.model.dto.GeneratorSettingsUpdate;
+import com.codedstream.transfraud.service.MerchantGridIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Owns the live {@link GeneratorSettings}. Startup values come from configuration; the control
+ * API replaces them while the generator runs. Readers do a single volatile load and never lock;
+ * updates build a complete new instance, validate it and publish it with one reference swap, so
+ * worker threads see the change on their next event.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GeneratorSettingsService {
+
+    private final GeneratorStreamProperties streamProperties;
+    private final MerchantGridIndex merchantGridIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.avro.generator.online-probability:0.4}")
+    private double onlineProbability;
+
+    @Value("${app.avro.generator.min-amount:10.0}")
+    private double minAmount;
+
+    @Value("${app.avro.generator.max-amount:500.0}")
+    private double maxAmount;
+
+    @Value("${app.avro.generator.travel-probability:0.05}")
+    private double travelProbability;
+
+    // "RETAIL:3,FOOD:2"; empty keeps the catalogue's natural mix
+    @Value("${app.avro.generator.category-weights:}")
+    private String categoryWeights;
+
+    @Value("${app.data.generation.transaction-interval-ms:5000}")
+    private long transactionIntervalMs;
+
+    @Value("${app.avro.generator.bulk-pause-ms:50}")
+    private long bulkPauseMs;
+
+    private final AtomicReference<GeneratorSettings> current = new AtomicReference<>();
+
+    @PostConstruct
+    public void loadInitialSettings() {
+        GeneratorSettings initial = GeneratorSettings.builder()
+                .version(1)
+                .updatedAt(System.currentTimeMillis())
+                .onlineProbability(onlineProbability)
+                .minAmount(minAmount)
+                .maxAmount(maxAmount)
+                .travelProbability(travelProbability)
+                .categoryWeights(parseCategoryWeights(categoryWeights))
+                .scheduledEventsPerSecond(transactionIntervalMs > 0 ? 1000.0 / transactionIntervalMs : 0)
+                .bulkPauseMs(bulkPauseMs)
+                .streamWorkers(streamProperties.getWorkers())
+                .build();
+        checkCategories(initial);
+        current.set(initial);
+    }
+
+    public GeneratorSettings current() {
+        return current.get();
+    }
+
+    /**
+     * Applies the non-null fields of {@code update} on top of the current settings.
+     *
+     * @throws IllegalArgumentException if the resulting settings are invalid; nothing changes then
+     */
+    public synchronized GeneratorSettings update(GeneratorSettingsUpdate update) {
+        GeneratorSettings previous = current.get();
+        GeneratorSettings.GeneratorSettingsBuilder builder = previous.toBuilder()
+                .version(previous.getVersion() + 1)
+                .updatedAt(System.currentTimeMillis());
+        if (update.getOnlineProbability() != null) {
+            builder.onlineProbability(update.getOnlineProbability());
+        }
+        if (update.getMinAmount() != null) {
+            builder.minAmount(update.getMinAmount());
+        }
+        if (update.getMaxAmount() != null) {
+            builder.maxAmount(update.getMaxAmount());
+        }
+        if (update.getTravelProbability() != null) {
+            builder.travelProbability(update.getTravelProbability());
+        }
+        if (update.getCategoryWeights() != null) {
+            builder.categoryWeights(update.getCategoryWeights());
+        }
+        if (update.getScheduledEventsPerSecond() != null) {
+            builder.scheduledEventsPerSecond(update.getScheduledEventsPerSecond());
+        }
+        if (update.getBulkPauseMs() != null) {
+            builder.bulkPauseMs(update.getBulkPauseMs());
+        }
+        if (update.getStreamWorkers() != null) {
+            builder.streamWorkers(update.getStreamWorkers());
+        }
+
+        GeneratorSettings next = builder.build();
+        checkCategories(next);
+        current.set(next);
+        log.info("Generator settings updated to v{}: {}", next.getVersion(), describe(next));
+        eventPublisher.publishEvent(new GeneratorSettingsChangedEvent(previous, next));
+        return next;
+    }
+
+    public Map<String, Object> describe(GeneratorSettings settings) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("version", settings.getVersion());
+        description.put("updatedAt", settings.getUpdatedAt());
+        description.put("onlineProbability", settings.getOnlineProbability());
+        description.put("minAmount", settings.getMinAmount());
+        description.put("maxAmount", settings.getMaxAmount());
+        description.put("travelProbability", settings.getTravelProbability());
+        description.put("categoryWeights", settings.getCategoryWeights());
+        description.put("scheduledEventsPerSecond", settings.getScheduledEventsPerSecond());
+        description.put("bulkPauseMs", settings.getBulkPauseMs());
+        description.put("streamWorkers", settings.getStreamWorkers());
+        return description;
+    }
+
+    private static Map<String, Double> parseCategoryWeights(String spec) {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        for (String entry : spec.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid app.avro.generator.category-weights entry: " + entry);
+            }
+            weights.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    private void checkCategories(GeneratorSettings settings) {
+        for (String category : settings.getCategoryWeights().keySet()) {
+            if (!merchantGridIndex.getCategories().contains(category)) {
+                throw new IllegalArgumentException("Unknown merchant category " + category
+                        + "; expected one of " + merchantGridIndex.getCategories());
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.codedstream.transfraud.service.sink;
+
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.specific.SpecificData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Appends transactions to a local Avro container file, readable with {@code avro-tools}
+ * or any Avro reader using the {@code CardTransaction} schema.
+ * <p>
+ * The file is written with the {@code CardTransaction} schema plus a trailing {@code status}
+ * field ({@code APPROVED} or {@code DECLINED}, default {@code APPROVED}). Readers that ask for
+ * the plain {@code CardTransaction} schema skip it through schema resolution. A file created
+ * before the field existed is appended to in its own schema, without status.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.sink.type", havingValue = "file")
+public class FileTransactionSink implements TransactionSink {
+
+    static final String STATUS_FIELD = "status";
+
+    @Value("${app.sink.file.path:./data/transactions.avro}")
+    private String path;
+
+    private final LongAdder accepted = new LongAdder();
+    private DataFileWriter<AuthorizedTransaction> writer;
+
+    @PostConstruct
+    public void open() throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        writer = new DataFileWriter<>(new GenericDatumWriter<>(null, new StatusData()));
+        if (file.exists() && file.length() > 0) {
+            if (!hasStatusField(file)) {
+                log.warn("{} was written without a status field; appended transactions carry no status", path);
+            }
+            writer.appendTo(file);
+        } else {
+            writer.create(schemaWithStatus(), file);
+        }
+        log.info("Writing generated transactions to {}", file.getAbsolutePath());
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public synchronized void accept(List<AuthorizedTransaction> batch) {
+        try {
+            for (AuthorizedTransaction transaction : batch) {
+                writer.append(transaction);
+            }
+            accepted.add(batch.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write transactions to " + path, e);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            log.warn("Failed to flush transaction file {}: {}", path, e.getMessage());
+        }
+    }
+
+    @Override
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    /**
+     * {@code CardTransaction} with a {@code status} field appended; same name, so readers resolve it.
+     */
+    static Schema schemaWithStatus() {
+        Schema transaction = CardTransaction.getClassSchema();
+        List<Schema.Field> fields = new ArrayList<>();
+        for (Schema.Field field : transaction.getFields()) {
+            fields.add(new Schema.Field(field, field.schema()));
+        }
+        fields.add(new Schema.Field(STATUS_FIELD, Schema.create(Schema.Type.STRING),
+                "Authorisation outcome: APPROVED or DECLINED", AuthorizedTransaction.APPROVED));
+        return Schema.createRecord(transaction.getName(), transaction.getDoc(), transaction.getNamespace(),
+                false, fields);
+    }
+
+    private static boolean hasStatusField(File file) throws IOException {
+        try (DataFileReader<Object> reader = new DataFileReader<>(file, new GenericDatumReader<>())) {
+            return reader.getSchema().getField(STATUS_FIELD) != null;
+        }
+    }
+
+    /**
+     * Reads the top-level fields from the wrapped {@code CardTransaction}, and the status from the
+     * wrapper, so nothing is copied per record. Nested records and enums resolve as specific data.
+     */
+    private static final class StatusData extends SpecificData {
+
+        @Override
+        public Object getField(Object record, String name, int position) {
+            if (record instanceof AuthorizedTransaction) {
+                AuthorizedTransaction event = (AuthorizedTransaction) record;
+                return STATUS_FIELD.equals(name) ? event.getStatus() : event.getTransaction().get(position);
+            }
+            return super.getField(record, name, position);
+        }
+
+        @Override
+        public Object getField(Object record, String name, int position, Object state) {
+            return getField(record, name, position);
+        }
+    }
+}
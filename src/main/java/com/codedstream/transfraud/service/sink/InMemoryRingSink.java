@@ -0,0 +1,64 @@
+package com.codedstream.transfraud.service.sink;
+
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the most recent {@code app.sink.memory.capacity} transactions in a fixed ring,
+ * overwriting the oldest, with their authorisation outcome. Writers claim slots with a single
+ * atomic increment.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sink.type", havingValue = "memory")
+public class InMemoryRingSink implements TransactionSink {
+
+    private final AtomicReferenceArray<AuthorizedTransaction> ring;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public InMemoryRingSink(@Value("${app.sink.memory.capacity:100000}") int capacity) {
+        this.ring = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public void accept(List<AuthorizedTransaction> batch) {
+        long first = sequence.getAndAdd(batch.size());
+        int capacity = ring.length();
+        for (int i = 0; i < batch.size(); i++) {
+            ring.lazySet((int) ((first + i) % capacity), batch.get(i));
+        }
+    }
+
+    @Override
+    public long getAcceptedCount() {
+        return sequence.get();
+    }
+
+    /**
+     * Up to {@code limit} of the most recently accepted transactions, newest first.
+     */
+    public List<AuthorizedTransaction> latest(int limit) {
+        long end = sequence.get();
+        int capacity = ring.length();
+        int count = (int) Math.min(Math.min(limit, end), capacity);
+        List<AuthorizedTransaction> result = new ArrayList<>(count);
+        for (long i = end - 1; i >= end - count; i--) {
+            AuthorizedTransaction transaction = ring.get((int) (i % capacity));
+            if (transaction != null) {
+                result.add(transaction);
+            }
+        }
+        return result;
+    }
+}
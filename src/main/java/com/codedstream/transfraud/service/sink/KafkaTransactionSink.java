@@ -0,0 +1,50 @@
+package com.codedstream.transfraud.service.sink;
+
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import com.codedstream.transfraud.service.KafkaProducerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Default sink: hands every transaction to {@link KafkaProducerService}, honouring its
+ * plain/transactional mode and output format.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.sink.type", havingValue = "kafka", matchIfMissing = true)
+public class KafkaTransactionSink implements TransactionSink {
+
+    private final KafkaProducerService kafkaProducerService;
+    private final LongAdder accepted = new LongAdder();
+
+    @Override
+    public String getName() {
+        return "kafka";
+    }
+
+    @Override
+    public void accept(List<AuthorizedTransaction> batch) {
+        kafkaProducerService.sendTransactions(null, batch);
+        accepted.add(batch.size());
+    }
+
+    @Override
+    public void accept(String topic, List<AuthorizedTransaction> batch) {
+        kafkaProducerService.sendTransactions(topic, batch);
+        accepted.add(batch.size());
+    }
+
+    @Override
+    public void flush() {
+        kafkaProducerService.flush();
+    }
+
+    @Override
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+}
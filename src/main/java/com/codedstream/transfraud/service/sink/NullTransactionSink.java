@@ -0,0 +1,33 @@
+package com.codedstream.transfraud.service.sink;
+
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Discards everything and only counts, for measuring pure generator throughput.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sink.type", havingValue = "null")
+public class NullTransactionSink implements TransactionSink {
+
+    private final LongAdder accepted = new LongAdder();
+
+    @Override
+    public String getName() {
+        return "null";
+    }
+
+    @Override
+    public void accept(List<AuthorizedTransaction> batch) {
+        accepted.add(batch.size());
+    }
+
+    @Override
+    public long getAcceptedCount() {
+        return accepted.sum();
+    }
+}
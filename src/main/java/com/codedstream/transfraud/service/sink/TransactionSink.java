@@ -0,0 +1,41 @@
+package com.codedstream.transfraud.service.sink;
+
+import com.codedstream.transfraud.model.event.AuthorizedTransaction;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Destination for generated transactions. Exactly one implementation is active, selected with
+ * {@code app.sink.type} ({@code kafka}, {@code file}, {@code memory} or {@code null}), so
+ * generator cost can be measured apart from broker cost.
+ * <p>
+ * Implementations must be thread-safe; generators hand over whole batches wherever they can.
+ * Each event carries its authorisation outcome, which a sink records if its format has room.
+ */
+public interface TransactionSink {
+
+    String getName();
+
+    void accept(List<AuthorizedTransaction> batch);
+
+    default void accept(AuthorizedTransaction transaction) {
+        accept(Collections.singletonList(transaction));
+    }
+
+    /**
+     * Accepts a batch bound for a specific topic, as produced by the configured streams.
+     * Sinks without a notion of topics ignore it.
+     */
+    default void accept(String topic, List<AuthorizedTransaction> batch) {
+        accept(batch);
+    }
+
+    /**
+     * Pushes anything buffered by the sink to its destination.
+     */
+    default void flush() {
+    }
+
+    long getAcceptedCount();
+}
@@ -0,0 +1,496 @@
+package com.codedstream.transfraud.service.spool;
+
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented, memory-mapped append log on local disk that holds Kafka records while the broker
+ * is unreachable, for {@link SpoolReplayer} to send later in the order they were spooled.
+ * <p>
+ * Segments are {@code segment-bytes} files named by a increasing number, each mapped whole, so
+ * an append is a copy into the page cache with no system call. Each entry is
+ * {@code [int length][int crc32][body]} with the topic, key, headers and the Avro binary value;
+ * a zero length marks the end of a segment's data. Entries keep their original headers, so
+ * sequence and latency headers describe the original send. The replay position is kept in
+ * {@code spool.offset} and segments are deleted once replayed.
+ * <p>
+ * Once a send has failed the spool is <em>active</em> and every later record is spooled too, so
+ * live traffic stops hammering an unreachable broker. The first chunk the replayer gets through
+ * shows the broker is back: live records go straight to Kafka again while the backlog drains
+ * beside them at its own rate, so the spool always empties even when generation outpaces the
+ * catch-up rate. Replayed records therefore arrive after newer live ones.
+ * Pages are forced to disk every {@code force-interval-ms}; a process crash loses nothing
+ * written, an OS crash at most that interval. Beyond {@code max-bytes} records are dropped and
+ * counted. A torn entry at the tail is discarded on start-up.
+ */
+@Slf4j
+@Component
+public class DiskSpool {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String OFFSET_FILE = "spool.offset";
+    private static final int ENTRY_HEADER = 8;
+
+    @Value("${app.spool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.spool.path:./data/spool}")
+    private String path;
+
+    @Value("${app.spool.segment-bytes:67108864}")
+    private int segmentBytes;
+
+    @Value("${app.spool.max-bytes:4294967296}")
+    private long maxBytes;
+
+    private final SpecificDatumWriter<CardTransaction> datumWriter = new SpecificDatumWriter<>(CardTransaction.class);
+    private final SpecificDatumReader<CardTransaction> datumReader = new SpecificDatumReader<>(CardTransaction.class);
+    private final ByteArrayOutputStream valueBytes = new ByteArrayOutputStream(512);
+    private final ByteArrayOutputStream entryBytes = new ByteArrayOutputStream(1024);
+    private final CRC32 crc = new CRC32();
+    private final LongAdder spooled = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private BinaryEncoder encoder;
+    private BinaryDecoder decoder;
+
+    private Path directory;
+    private volatile boolean active;
+    private long pending;
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private long readSegment;
+    private int readPosition;
+    private MappedByteBuffer readBuffer;
+    private long readBufferSegment = -1;
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (segmentBytes < 1 << 16 || maxBytes < segmentBytes) {
+            throw new IllegalArgumentException("app.spool.segment-bytes must be at least 64 KiB and at most app.spool.max-bytes");
+        }
+        directory = Paths.get(path);
+        Files.createDirectories(directory);
+        TreeSet<Long> segments = listSegments();
+        if (segments.isEmpty()) {
+            writeSegment = 0;
+            readSegment = 0;
+            readPosition = 0;
+            writeBuffer = map(writeSegment);
+            writeOffset();
+            return;
+        }
+
+        writeSegment = segments.last();
+        writeBuffer = map(writeSegment);
+        writeBuffer.position(scanEnd(writeBuffer.duplicate()));
+        readOffset(segments.first());
+        for (long segment = readSegment; segment <= writeSegment; segment++) {
+            ByteBuffer data = segment == writeSegment ? writeBuffer.duplicate() : map(segment);
+            int start = segment == readSegment ? readPosition : 0;
+            pending += countEntries(data, start, segment == writeSegment ? writeBuffer.position() : segmentBytes);
+        }
+        active = pending > 0;
+        if (active) {
+            log.info("Disk spool at {} holds {} records to replay", directory.toAbsolutePath(), pending);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether records are currently being routed to the spool rather than sent.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Spools {@code record} only while the spool is active, so the check and the append are
+     * atomic with respect to {@link #deactivateIfDrained()}.
+     *
+     * @return {@code false} if the spool is inactive and the record should be sent directly
+     */
+    public synchronized boolean appendIfActive(ProducerRecord<String, CardTransaction> record) {
+        if (!active) {
+            return false;
+        }
+        append(record);
+        return true;
+    }
+
+    /**
+     * Spools {@code record} and activates the spool; a full spool drops it.
+     *
+     * @return {@code false} if it was dropped
+     */
+    public synchronized boolean append(ProducerRecord<String, CardTransaction> record) {
+        if (!enabled) {
+            return false;
+        }
+        byte[] body = encode(record);
+        if (body.length + ENTRY_HEADER > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + body.length + " bytes exceeds the spool segment size");
+        }
+        if (writeBuffer.remaining() < body.length + ENTRY_HEADER) {
+            if ((writeSegment - readSegment + 2) * (long) segmentBytes > maxBytes) {
+                dropped.increment();
+                return false;
+            }
+            rollSegment();
+        }
+        crc.reset();
+        crc.update(body, 0, body.length);
+        writeBuffer.putInt(body.length).putInt((int) crc.getValue()).put(body);
+        if (!active) {
+            log.warn("Kafka send failed; spooling records to {} until the broker is back", directory.toAbsolutePath());
+            active = true;
+        }
+        pending++;
+        spooled.increment();
+        return true;
+    }
+
+    /**
+     * Reads up to {@code max} records from the replay position without consuming them.
+     */
+    public synchronized Batch peek(int max) {
+        List<ProducerRecord<String, CardTransaction>> records = new ArrayList<>(Math.min(max, 1024));
+        long segment = readSegment;
+        int position = readPosition;
+        while (records.size() < max) {
+            ByteBuffer data = readView(segment);
+            int limit = segment == writeSegment ? writeBuffer.position() : segmentBytes;
+            int length = position + ENTRY_HEADER <= limit ? data.getInt(position) : 0;
+            if (length <= 0) {
+                if (segment == writeSegment) {
+                    break;
+                }
+                segment++;
+                position = 0;
+                continue;
+            }
+            byte[] body = new byte[length];
+            data.position(position + ENTRY_HEADER);
+            data.get(body);
+            records.add(decode(body));
+            position += ENTRY_HEADER + length;
+        }
+        return new Batch(records, segment, position);
+    }
+
+    /**
+     * Consumes everything up to the end of {@code batch}, deleting fully replayed segments.
+     */
+    public synchronized void commit(Batch batch) {
+        for (long segment = readSegment; segment < batch.segment; segment++) {
+            try {
+                Files.deleteIfExists(segmentPath(segment));
+            } catch (IOException e) {
+                log.warn("Could not delete replayed spool segment {}: {}", segment, e.getMessage());
+            }
+        }
+        readSegment = batch.segment;
+        readPosition = batch.position;
+        pending -= batch.records.size();
+        replayed.add(batch.records.size());
+        writeOffset();
+    }
+
+    /**
+     * Returns the spool to pass-through once everything spooled has been replayed.
+     *
+     * @return {@code true} if nothing is waiting to be replayed
+     */
+    public synchronized boolean deactivateIfDrained() {
+        if (pending == 0) {
+            if (active) {
+                log.info("Disk spool drained; sending directly again");
+            }
+            active = false;
+        }
+        return pending == 0;
+    }
+
+    /**
+     * Sends live records straight to Kafka again, after a replayed chunk was acknowledged, while
+     * the remaining backlog keeps draining. A later failed send activates the spool again.
+     */
+    public synchronized void resumeDirectSends() {
+        if (active) {
+            log.info("Kafka reachable again; sending directly while {} spooled records replay", pending);
+            active = false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.spool.force-interval-ms:1000}")
+    public synchronized void force() {
+        if (enabled && active) {
+            writeBuffer.force();
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("active", active);
+        stats.put("pending", pending);
+        stats.put("spooled", spooled.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("dropped", dropped.sum());
+        if (enabled) {
+            stats.put("path", directory.toAbsolutePath().toString());
+            stats.put("segments", writeSegment - readSegment + 1);
+            stats.put("maxSegments", maxBytes / segmentBytes);
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (enabled) {
+            writeBuffer.force();
+            writeOffset();
+        }
+    }
+
+    private void rollSegment() {
+        if (writeBuffer.remaining() >= Integer.BYTES) {
+            writeBuffer.putInt(0);
+        }
+        writeBuffer.force();
+        writeSegment++;
+        writeBuffer = map(writeSegment);
+    }
+
+    private ByteBuffer readView(long segment) {
+        if (segment == writeSegment) {
+            return writeBuffer.duplicate();
+        }
+        if (readBufferSegment != segment) {
+            readBuffer = map(segment);
+            readBufferSegment = segment;
+        }
+        return readBuffer.duplicate();
+    }
+
+    private MappedByteBuffer map(long segment) {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping outlives the channel
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map spool segment " + segmentPath(segment), e);
+        }
+    }
+
+    /**
+     * Position after the last intact entry; a torn or corrupt tail is overwritten by the next append.
+     */
+    private int scanEnd(ByteBuffer data) {
+        int position = 0;
+        while (position + ENTRY_HEADER <= segmentBytes) {
+            int length = data.getInt(position);
+            if (length <= 0 || position + ENTRY_HEADER + length > segmentBytes) {
+                break;
+            }
+            byte[] body = new byte[length];
+            data.position(position + ENTRY_HEADER);
+            data.get(body);
+            crc.reset();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != data.getInt(position + Integer.BYTES)) {
+                log.warn("Discarding torn spool entry at {} of segment {}", position, writeSegment);
+                break;
+            }
+            position += ENTRY_HEADER + length;
+        }
+        // Zero the discarded tail so a later scan cannot mistake it for data
+        for (int i = position; i < Math.min(segmentBytes, position + ENTRY_HEADER); i++) {
+            data.put(i, (byte) 0);
+        }
+        return position;
+    }
+
+    private long countEntries(ByteBuffer data, int start, int limit) {
+        long count = 0;
+        int position = start;
+        while (position + ENTRY_HEADER <= limit) {
+            int length = data.getInt(position);
+            if (length <= 0) {
+                break;
+            }
+            count++;
+            position += ENTRY_HEADER + length;
+        }
+        return count;
+    }
+
+    private byte[] encode(ProducerRecord<String, CardTransaction> record) {
+        try {
+            valueBytes.reset();
+            encoder = EncoderFactory.get().binaryEncoder(valueBytes, encoder);
+            datumWriter.write(record.value(), encoder);
+            encoder.flush();
+
+            entryBytes.reset();
+            writeString(record.topic());
+            writeString(record.key());
+            List<Header> headers = new ArrayList<>();
+            record.headers().forEach(headers::add);
+            entryBytes.write(headers.size());
+            for (Header header : headers) {
+                writeString(header.key());
+                writeBytes(header.value());
+            }
+            writeBytes(valueBytes.toByteArray());
+            return entryBytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode record for the spool", e);
+        }
+    }
+
+    private ProducerRecord<String, CardTransaction> decode(byte[] body) {
+        ByteBuffer in = ByteBuffer.wrap(body);
+        String topic = readString(in);
+        String key = readString(in);
+        RecordHeaders headers = new RecordHeaders();
+        int headerCount = in.get() & 0xFF;
+        for (int i = 0; i < headerCount; i++) {
+            headers.add(readString(in), readBytes(in));
+        }
+        byte[] value = readBytes(in);
+        try {
+            decoder = DecoderFactory.get().binaryDecoder(value, decoder);
+            return new ProducerRecord<>(topic, null, key, datumReader.read(null, decoder), headers);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt record in the spool", e);
+        }
+    }
+
+    private void writeString(String value) {
+        writeBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] value) {
+        int length = value == null ? -1 : value.length;
+        entryBytes.write(length >>> 24);
+        entryBytes.write(length >>> 16);
+        entryBytes.write(length >>> 8);
+        entryBytes.write(length);
+        if (value != null) {
+            entryBytes.write(value, 0, value.length);
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private TreeSet<Long> listSegments() throws IOException {
+        TreeSet<Long> segments = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private void readOffset(long firstSegment) throws IOException {
+        Path file = directory.resolve(OFFSET_FILE);
+        readSegment = firstSegment;
+        readPosition = 0;
+        if (Files.isRegularFile(file) && Files.size(file) == Long.BYTES + Integer.BYTES) {
+            ByteBuffer offset = ByteBuffer.wrap(Files.readAllBytes(file));
+            long segment = offset.getLong();
+            if (segment >= firstSegment) {
+                readSegment = segment;
+                readPosition = offset.getInt();
+            }
+        }
+    }
+
+    private void writeOffset() {
+        ByteBuffer offset = ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(readSegment).putInt(readPosition);
+        try {
+            Files.write(directory.resolve(OFFSET_FILE), offset.array());
+        } catch (IOException e) {
+            log.warn("Could not record the spool replay position: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Records read by {@link #peek(int)} and the position just after them.
+     */
+    public static final class Batch {
+        private final List<ProducerRecord<String, CardTransaction>> records;
+        private final long segment;
+        private final int position;
+
+        Batch(List<ProducerRecord<String, CardTransaction>> records, long segment, int position) {
+            this.records = records;
+            this.segment = segment;
+            this.position = position;
+        }
+
+        public List<ProducerRecord<String, CardTransaction>> getRecords() {
+            return records;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.codedstream.transfraud.service.spool;
+
+import com.codedstream.transfraud.service.KafkaProducerPool;
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the {@link DiskSpool} back to Kafka in spool order at up to {@code catch-up-rate}
+ * records per second.
+ * <p>
+ * The rate is a budget of its own: after the first acknowledged chunk, live records bypass the
+ * spool again and the backlog replays alongside them, so a backlog always shrinks by the
+ * catch-up rate however fast the generator runs.
+ * <p>
+ * Records are replayed in chunks of {@code replay-batch}: a chunk is sent, flushed and every
+ * acknowledgement awaited before the replay position moves past it. A failed chunk is retried
+ * whole after {@code retry-backoff-ms}, so delivery is at-least-once and a retry may duplicate
+ * part of a chunk; the delivery audit reports such duplicates.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SpoolReplayer {
+
+    private final DiskSpool diskSpool;
+    private final KafkaProducerPool producerPool;
+
+    @Value("${app.spool.catch-up-rate:5000}")
+    private volatile double catchUpRate;
+
+    @Value("${app.spool.replay-batch:500}")
+    private int replayBatch;
+
+    @Value("${app.spool.retry-backoff-ms:5000}")
+    private long retryBackoffMs;
+
+    @Value("${app.spool.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    private volatile boolean running;
+    private volatile long lastFailureAt;
+    private volatile String lastFailure;
+    private Thread replayThread;
+
+    @PostConstruct
+    public void start() {
+        if (!diskSpool.isEnabled()) {
+            return;
+        }
+        if (catchUpRate <= 0 || replayBatch < 1) {
+            throw new IllegalArgumentException("app.spool.catch-up-rate and replay-batch must be positive");
+        }
+        running = true;
+        replayThread = new Thread(this::replayLoop, "spool-replayer");
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+
+    public void setCatchUpRate(double eventsPerSecond) {
+        if (eventsPerSecond <= 0) {
+            throw new IllegalArgumentException("Catch-up rate must be positive: " + eventsPerSecond);
+        }
+        catchUpRate = eventsPerSecond;
+        log.info("Spool catch-up rate set to {} records/s", eventsPerSecond);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(diskSpool.getStats());
+        stats.put("catchUpRate", catchUpRate);
+        stats.put("lastFailureAt", lastFailureAt);
+        stats.put("lastFailure", lastFailure);
+        return stats;
+    }
+
+    private void replayLoop() {
+        long nextSendNanos = System.nanoTime();
+        while (running) {
+            try {
+                if (diskSpool.deactivateIfDrained()) {
+                    Thread.sleep(200);
+                    continue;
+                }
+                DiskSpool.Batch batch = diskSpool.peek(replayBatch);
+                if (batch.getRecords().isEmpty()) {
+                    Thread.sleep(50);
+                    continue;
+                }
+                // Pace whole chunks so the average stays at the catch-up rate
+                long wait = nextSendNanos - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                nextSendNanos = Math.max(nextSendNanos, System.nanoTime() - TimeUnit.SECONDS.toNanos(1))
+                        + (long) (batch.getRecords().size() * 1e9 / catchUpRate);
+
+                if (send(batch.getRecords())) {
+                    diskSpool.commit(batch);
+                    diskSpool.resumeDirectSends();
+                } else {
+                    Thread.sleep(retryBackoffMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Spool replay failed: {}", e.getMessage(), e);
+                sleepQuietly(retryBackoffMs);
+            }
+        }
+    }
+
+    private boolean send(List<ProducerRecord<String, CardTransaction>> records) throws InterruptedException {
+        List<ListenableFuture<SendResult<String, CardTransaction>>> futures = new ArrayList<>(records.size());
+        try {
+            for (ProducerRecord<String, CardTransaction> record : records) {
+                futures.add(producerPool.send(record));
+            }
+            producerPool.flush();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+            for (ListenableFuture<SendResult<String, CardTransaction>> future : futures) {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            lastFailureAt = System.currentTimeMillis();
+            lastFailure = e.getMessage();
+            log.warn("Replay of {} spooled records failed, retrying in {} ms: {}",
+                    records.size(), retryBackoffMs, e.getMessage());
+            return false;
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        replayThread.interrupt();
+        replayThread.join(5000);
+    }
+}
@@ -0,0 +1,119 @@
+package com.codedstream.transfraud.service.stream;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runtime state of one configured stream: its profile, the bucket for its guaranteed rate,
+ * an optional ceiling bucket and its deficit for sharing spare capacity.
+ */
+public final class GeneratorStream {
+
+    @Getter
+    private final String name;
+    @Getter
+    private final String topic;
+    @Getter
+    private final StreamProfile profile;
+    @Getter
+    private final int weight;
+
+    private final double burstSeconds;
+    private final int batchSize;
+    private final TokenBucket guaranteed;
+    private volatile TokenBucket ceiling;
+    private volatile double eventsPerSecond;
+    private volatile double maxEventsPerSecond;
+
+    // Deficit round robin credit, guarded by the scheduler's spare-capacity lock
+    int spareDeficit;
+
+    private final LongAdder guaranteedEmitted = new LongAdder();
+    private final LongAdder spareEmitted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final long startedAt = System.nanoTime();
+
+    GeneratorStream(String name, String topic, StreamProfile profile, int weight,
+                    double eventsPerSecond, double maxEventsPerSecond, double burstSeconds, int batchSize) {
+        this.name = name;
+        this.topic = topic;
+        this.profile = profile;
+        this.weight = weight;
+        this.burstSeconds = burstSeconds;
+        this.batchSize = batchSize;
+        this.guaranteed = new TokenBucket(0, burstSeconds, batchSize);
+        setRates(eventsPerSecond, maxEventsPerSecond);
+    }
+
+    /**
+     * Changes the guaranteed rate and the ceiling; a ceiling of 0 removes it.
+     */
+    public synchronized void setRates(double eventsPerSecond, double maxEventsPerSecond) {
+        if (eventsPerSecond < 0 || maxEventsPerSecond < 0) {
+            throw new IllegalArgumentException("Stream " + name + ": rates must not be negative");
+        }
+        if (maxEventsPerSecond > 0 && maxEventsPerSecond < eventsPerSecond) {
+            throw new IllegalArgumentException("Stream " + name + ": max-events-per-second (" + maxEventsPerSecond +
+                    ") is below events-per-second (" + eventsPerSecond + ")");
+        }
+        guaranteed.setRate(eventsPerSecond, burstSeconds, eventsPerSecond > 0 ? 1 : 0);
+        if (maxEventsPerSecond > 0) {
+            TokenBucket bucket = ceiling;
+            if (bucket == null) {
+                ceiling = new TokenBucket(maxEventsPerSecond, burstSeconds, batchSize);
+            } else {
+                bucket.setRate(maxEventsPerSecond, burstSeconds, batchSize);
+            }
+        } else {
+            ceiling = null;
+        }
+        this.eventsPerSecond = eventsPerSecond;
+        this.maxEventsPerSecond = maxEventsPerSecond;
+    }
+
+    int tryAcquireGuaranteed(int max) {
+        int granted = guaranteed.tryAcquire(max);
+        TokenBucket bucket = ceiling;
+        if (granted > 0 && bucket != null) {
+            bucket.charge(granted);
+        }
+        return granted;
+    }
+
+    int tryAcquireSpare(int max) {
+        TokenBucket bucket = ceiling;
+        return bucket == null ? max : bucket.tryAcquire(max);
+    }
+
+    void recordEmitted(int count, boolean fromGuarantee) {
+        (fromGuarantee ? guaranteedEmitted : spareEmitted).add(count);
+    }
+
+    void recordFailed(int count) {
+        failed.add(count);
+    }
+
+    public long getEmittedCount() {
+        return guaranteedEmitted.sum() + spareEmitted.sum();
+    }
+
+    public Map<String, Object> getStats() {
+        long emitted = getEmittedCount();
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("topic", topic);
+        stats.put("eventsPerSecond", eventsPerSecond);
+        stats.put("maxEventsPerSecond", maxEventsPerSecond);
+        stats.put("weight", weight);
+        stats.put("emitted", emitted);
+        stats.put("emittedFromGuarantee", guaranteedEmitted.sum());
+        stats.put("emittedFromSpareCapacity", spareEmitted.sum());
+        stats.put("failed", failed.sum());
+        stats.put("averageEventsPerSecond", seconds > 0 ? Math.round(emitted / seconds) : 0);
+        return stats;
+    }
+}
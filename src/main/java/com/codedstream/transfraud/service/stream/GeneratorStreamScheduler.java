@@ -0,0 +1,289 @@
+package com.codedstream.transfraud.service.stream;
+
+import com.codedstream.transfraud.config.GeneratorStreamProperties;
+import com.codedstream.transfraud.model.geo.GeoRegion;
+import com.codedstream.transfraud.service.AvroTransactionGeneratorService;
+import com.codedstream.transfraud.service.settings.GeneratorSettings;
+import com.codedstream.transfraud.service.settings.GeneratorSettingsChangedEvent;
+import com.codedstream.transfraud.service.settings.GeneratorSettingsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the configured {@code app.streams} on one shared pool of worker threads.
+ * <p>
+ * Every scheduling decision hands a worker one batch of one stream. Guaranteed rates come
+ * first: a worker takes the first stream (rotating start) whose guaranteed bucket has tokens.
+ * Only when no stream is owed events does it take spare capacity, shared between the streams
+ * below their ceiling by deficit round robin in proportion to their weights. Guarantees hold as
+ * long as the pool can sustain their sum; everything above that runs at full speed.
+ * <p>
+ * The pool size follows {@code streamWorkers} in the live generator settings: workers above the
+ * target exit after their current batch, and missing ones are started when the target grows.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GeneratorStreamScheduler {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FAILURE_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final GeneratorStreamProperties properties;
+    private final AvroTransactionGeneratorService generatorService;
+    private final GeneratorSettingsService generatorSettingsService;
+
+    private List<GeneratorStream> streams = Collections.emptyList();
+    private final AtomicInteger guaranteedCursor = new AtomicInteger();
+    private final Object spareLock = new Object();
+    private int spareCursor;
+
+    private ExecutorService workers;
+    // 1 while the worker with that id is running
+    private final AtomicIntegerArray liveWorkers = new AtomicIntegerArray(GeneratorSettings.MAX_STREAM_WORKERS);
+    private volatile boolean running;
+
+    @PostConstruct
+    public void buildStreams() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (properties.getWorkers() < 1 || properties.getBatchSize() < 1) {
+            throw new IllegalArgumentException("app.streams.workers and batch-size must be at least 1");
+        }
+
+        List<GeneratorStream> built = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (GeneratorStreamProperties.Definition definition : properties.getDefinitions()) {
+            if (definition.getName() == null || definition.getTopic() == null) {
+                throw new IllegalArgumentException("Every app.streams definition needs a name and a topic");
+            }
+            if (!names.add(definition.getName())) {
+                throw new IllegalArgumentException("Duplicate stream name: " + definition.getName());
+            }
+            if (definition.getWeight() < 1) {
+                throw new IllegalArgumentException("Stream " + definition.getName() + ": weight must be at least 1");
+            }
+            built.add(new GeneratorStream(definition.getName(), definition.getTopic(), toProfile(definition),
+                    definition.getWeight(), definition.getEventsPerSecond(), definition.getMaxEventsPerSecond(),
+                    properties.getBurstSeconds(), properties.getBatchSize()));
+        }
+        streams = Collections.unmodifiableList(built);
+    }
+
+    /**
+     * Starts the worker pool; called once the population is available.
+     */
+    public synchronized void start() {
+        if (!properties.isEnabled() || streams.isEmpty() || running) {
+            return;
+        }
+        running = true;
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "generator-stream-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        int target = generatorSettingsService.current().getStreamWorkers();
+        startMissingWorkers(target);
+        log.info("Started {} generator streams on {} workers: {}", streams.size(), target,
+                streams.stream().map(GeneratorStream::getName).toArray());
+    }
+
+    @EventListener
+    public synchronized void onSettingsChanged(GeneratorSettingsChangedEvent event) {
+        int target = event.getCurrent().getStreamWorkers();
+        if (!running || target == event.getPrevious().getStreamWorkers()) {
+            return;
+        }
+        // Shrinking needs no action: surplus workers notice the new target themselves
+        startMissingWorkers(target);
+        log.info("Generator stream workers resized to {}", target);
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        generatorService.getTransactionSink().flush();
+        log.info("Stopped generator streams");
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public GeneratorStream getStream(String name) {
+        for (GeneratorStream stream : streams) {
+            if (stream.getName().equals(name)) {
+                return stream;
+            }
+        }
+        throw new IllegalArgumentException("Unknown stream: " + name);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> perStream = new LinkedHashMap<>();
+        long total = 0;
+        for (GeneratorStream stream : streams) {
+            perStream.put(stream.getName(), stream.getStats());
+            total += stream.getEmittedCount();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", properties.isEnabled());
+        stats.put("running", running);
+        stats.put("workers", generatorSettingsService.current().getStreamWorkers());
+        stats.put("liveWorkers", countLiveWorkers());
+        stats.put("batchSize", properties.getBatchSize());
+        stats.put("emitted", total);
+        stats.put("streams", perStream);
+        return stats;
+    }
+
+    private void startMissingWorkers(int target) {
+        for (int id = 0; id < target; id++) {
+            if (liveWorkers.compareAndSet(id, 0, 1)) {
+                int workerId = id;
+                workers.execute(() -> runWorker(workerId));
+            }
+        }
+    }
+
+    private int countLiveWorkers() {
+        int live = 0;
+        for (int id = 0; id < liveWorkers.length(); id++) {
+            live += liveWorkers.get(id);
+        }
+        return live;
+    }
+
+    private void runWorker(int id) {
+        int batchSize = properties.getBatchSize();
+        while (running) {
+            if (id >= generatorSettingsService.current().getStreamWorkers()) {
+                liveWorkers.set(id, 0);
+                // Re-check after clearing the flag: a resize in between may have skipped this id
+                if (!running || id >= generatorSettingsService.current().getStreamWorkers()
+                        || !liveWorkers.compareAndSet(id, 0, 1)) {
+                    return;
+                }
+            }
+            Assignment assignment = nextGuaranteed(batchSize);
+            if (assignment == null) {
+                assignment = nextSpare(batchSize);
+            }
+            if (assignment == null) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+
+            GeneratorStream stream = assignment.stream;
+            try {
+                int accepted = generatorService.generateStreamBatch(stream.getTopic(), stream.getProfile(), assignment.count);
+                stream.recordEmitted(accepted, assignment.fromGuarantee);
+                if (accepted < assignment.count) {
+                    stream.recordFailed(assignment.count - accepted);
+                }
+            } catch (Exception e) {
+                stream.recordFailed(assignment.count);
+                log.warn("Stream {} failed to generate a batch of {}: {}", stream.getName(), assignment.count, e.getMessage());
+                LockSupport.parkNanos(FAILURE_BACKOFF_NANOS);
+            }
+        }
+        liveWorkers.set(id, 0);
+    }
+
+    /**
+     * Events owed to the first stream, from a rotating start, that has guaranteed tokens left.
+     */
+    private Assignment nextGuaranteed(int batchSize) {
+        int size = streams.size();
+        int start = Math.floorMod(guaranteedCursor.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            GeneratorStream stream = streams.get((start + i) % size);
+            int granted = stream.tryAcquireGuaranteed(batchSize);
+            if (granted > 0) {
+                return new Assignment(stream, granted, true);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Deficit round robin over the streams that are below their ceiling. A stream earns
+     * {@code weight * batchSize} credit each time the cursor reaches it and spends one credit
+     * per event, so spare capacity splits in proportion to the weights.
+     */
+    private Assignment nextSpare(int batchSize) {
+        int size = streams.size();
+        synchronized (spareLock) {
+            for (int visited = 0; visited <= size; visited++) {
+                GeneratorStream stream = streams.get(spareCursor);
+                if (stream.spareDeficit >= batchSize) {
+                    int granted = stream.tryAcquireSpare(batchSize);
+                    if (granted > 0) {
+                        stream.spareDeficit -= granted;
+                        return new Assignment(stream, granted, false);
+                    }
+                    // At its ceiling: credit is not banked while the stream cannot use it
+                    stream.spareDeficit = 0;
+                }
+                spareCursor = (spareCursor + 1) % size;
+                GeneratorStream next = streams.get(spareCursor);
+                next.spareDeficit += next.getWeight() * batchSize;
+            }
+        }
+        return null;
+    }
+
+    private StreamProfile toProfile(GeneratorStreamProperties.Definition definition) {
+        List<GeoRegion> regions = new ArrayList<>();
+        for (String region : definition.getRegions()) {
+            try {
+                regions.add(GeoRegion.valueOf(region.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Stream " + definition.getName() + ": unknown region " + region);
+            }
+        }
+        return new StreamProfile(regions, definition.getMinAmount(), definition.getMaxAmount(),
+                definition.getOnlineProbability());
+    }
+
+    private static final class Assignment {
+        final GeneratorStream stream;
+        final int count;
+        final boolean fromGuarantee;
+
+        Assignment(GeneratorStream stream, int count, boolean fromGuarantee) {
+            this.stream = stream;
+            this.count = count;
+            this.fromGuarantee = fromGuarantee;
+        }
+    }
+}
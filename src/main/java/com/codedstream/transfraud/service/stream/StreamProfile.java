@@ -0,0 +1,57 @@
+package com.codedstream.transfraud.service.stream;
+
+import com.codedstream.transfraud.model.geo.GeoRegion;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.EnumSet;
+
+/**
+ * Shape of the events a stream produces: which cardholders it draws from, the amount range
+ * and the share of online transactions. Immutable, so generator threads share it freely.
+ * Events outside configured streams use the profile of the live generator settings.
+ */
+public final class StreamProfile {
+
+    private final boolean[] regionMask;
+    private final GeoRegion[] regions;
+    @Getter
+    private final boolean allRegions;
+    @Getter
+    private final double minAmount;
+    @Getter
+    private final double maxAmount;
+    @Getter
+    private final double onlineProbability;
+
+    public StreamProfile(Collection<GeoRegion> regions, double minAmount, double maxAmount, double onlineProbability) {
+        if (minAmount < 0 || maxAmount < minAmount) {
+            throw new IllegalArgumentException("Invalid amount range [" + minAmount + ", " + maxAmount + "]");
+        }
+        if (onlineProbability < 0 || onlineProbability > 1) {
+            throw new IllegalArgumentException("Online probability must be between 0 and 1: " + onlineProbability);
+        }
+        EnumSet<GeoRegion> included = regions == null || regions.isEmpty()
+                ? EnumSet.allOf(GeoRegion.class) : EnumSet.copyOf(regions);
+        this.regions = included.toArray(new GeoRegion[0]);
+        this.allRegions = this.regions.length == GeoRegion.count();
+        this.regionMask = new boolean[GeoRegion.count()];
+        for (GeoRegion region : included) {
+            regionMask[region.ordinal()] = true;
+        }
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+        this.onlineProbability = onlineProbability;
+    }
+
+    public boolean includes(GeoRegion region) {
+        return regionMask[region.ordinal()];
+    }
+
+    /**
+     * One of the included regions, picked by {@code index}.
+     */
+    public GeoRegion regionAt(int index) {
+        return regions[Math.floorMod(index, regions.length)];
+    }
+}
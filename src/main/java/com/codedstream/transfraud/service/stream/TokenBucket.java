@@ -0,0 +1,53 @@
+package com.codedstream.transfraud.service.stream;
+
+/**
+ * Token bucket refilled continuously from {@link System#nanoTime()}. Callers take whole batches,
+ * so the monitor is entered once per batch rather than once per event.
+ */
+final class TokenBucket {
+
+    private double tokensPerNano;
+    private double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double perSecond, double burstSeconds, int minCapacity) {
+        lastRefill = System.nanoTime();
+        setRate(perSecond, burstSeconds, minCapacity);
+    }
+
+    synchronized void setRate(double perSecond, double burstSeconds, int minCapacity) {
+        refill();
+        tokensPerNano = perSecond / 1e9;
+        capacity = Math.max(minCapacity, perSecond * burstSeconds);
+        tokens = Math.min(tokens, capacity);
+    }
+
+    /**
+     * Takes up to {@code max} whole tokens.
+     *
+     * @return tokens taken, 0 if less than one was available
+     */
+    synchronized int tryAcquire(int max) {
+        refill();
+        int granted = (int) Math.min(max, Math.floor(tokens));
+        if (granted > 0) {
+            tokens -= granted;
+        }
+        return Math.max(granted, 0);
+    }
+
+    /**
+     * Charges tokens spent elsewhere; the balance may go negative, down to one burst.
+     */
+    synchronized void charge(int count) {
+        refill();
+        tokens = Math.max(tokens - count, -capacity);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,16 @@
+package com.codedstream.transfraud.model.envelope;
+
+import org.apache.avro.specific.SpecificData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CardTransactionBatchTest {
+
+    @Test
+    void schemaNameResolvesToThisClass() {
+        // Specific readers find the class by the schema's full name
+        assertEquals(CardTransactionBatch.class.getName(), CardTransactionBatch.getClassSchema().getFullName());
+        assertEquals(CardTransactionBatch.class, SpecificData.get().getClass(CardTransactionBatch.getClassSchema()));
+    }
+}
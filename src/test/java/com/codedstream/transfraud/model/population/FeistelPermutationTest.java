@@ -0,0 +1,68 @@
+package com.codedstream.transfraud.model.population;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FeistelPermutationTest {
+
+    @Test
+    void isABijectionForEvenAndOddWidths() {
+        // 1000 needs 10 bits, 3000 needs 12 and 70_001 needs 17: odd widths round up to a balanced split
+        for (long size : new long[]{1, 2, 3, 1000, 3000, 70_001}) {
+            FeistelPermutation permutation = new FeistelPermutation(size, 42);
+            BitSet seen = new BitSet((int) size);
+            for (long i = 0; i < size; i++) {
+                long value = permutation.permute(i);
+                assertTrue(value >= 0 && value < size, "value " + value + " outside " + size);
+                assertFalse(seen.get((int) value), "value " + value + " produced twice for size " + size);
+                seen.set((int) value);
+            }
+            assertEquals(size, seen.cardinality());
+        }
+    }
+
+    @Test
+    void invertUndoesPermute() {
+        FeistelPermutation permutation = new FeistelPermutation(70_001, 7);
+        for (long i = 0; i < 70_001; i++) {
+            assertEquals(i, permutation.invert(permutation.permute(i)));
+        }
+
+        FeistelPermutation large = new FeistelPermutation(100_000_000_000_000L, 7);
+        for (long i = 0; i < 1_000; i++) {
+            long index = i * 99_999_999_989L;
+            assertEquals(index, large.invert(large.permute(index)));
+        }
+    }
+
+    @Test
+    void keyChangesTheOrderButNotTheDeterminism() {
+        FeistelPermutation first = new FeistelPermutation(1 << 20, 1);
+        FeistelPermutation again = new FeistelPermutation(1 << 20, 1);
+        FeistelPermutation other = new FeistelPermutation(1 << 20, 2);
+
+        int differing = 0;
+        for (long i = 0; i < 1_000; i++) {
+            assertEquals(first.permute(i), again.permute(i));
+            if (first.permute(i) != other.permute(i)) {
+                differing++;
+            }
+        }
+        assertTrue(differing > 990, "only " + differing + " of 1000 values moved with the key");
+    }
+
+    @Test
+    void rejectsIndexesOutsideTheRange() {
+        FeistelPermutation permutation = new FeistelPermutation(10, 3);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> permutation.permute(10));
+        assertThrows(IndexOutOfBoundsException.class, () -> permutation.invert(-1));
+        assertThrows(IllegalArgumentException.class, () -> new FeistelPermutation(0, 3));
+    }
+}
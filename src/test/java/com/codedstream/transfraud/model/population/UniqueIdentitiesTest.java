@@ -0,0 +1,64 @@
+package com.codedstream.transfraud.model.population;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UniqueIdentitiesTest {
+
+    @Test
+    void luhnCheckDigitMatchesKnownNumbers() {
+        assertEquals(3, UniqueIdentities.luhnCheckDigit("7992739871"));
+        assertEquals(1, UniqueIdentities.luhnCheckDigit("411111111111111"));
+        assertEquals(4, UniqueIdentities.luhnCheckDigit("555555555555444"));
+        assertEquals(0, UniqueIdentities.luhnCheckDigit("0"));
+
+        assertTrue(UniqueIdentities.isLuhnValid("4111111111111111"));
+        assertTrue(UniqueIdentities.isLuhnValid("5555555555554444"));
+        assertFalse(UniqueIdentities.isLuhnValid("4111111111111112"));
+        assertFalse(UniqueIdentities.isLuhnValid("4"));
+    }
+
+    @Test
+    void cardNumbersAreValidAndUniquePerBrand() {
+        UniqueIdentities identities = new UniqueIdentities(7340032);
+        Set<String> visa = new HashSet<>();
+        Set<String> mastercard = new HashSet<>();
+        for (long i = 0; i < 20_000; i++) {
+            String visaNumber = identities.cardNumber(i, "VISA");
+            String mastercardNumber = identities.cardNumber(i, "MASTERCARD");
+
+            assertEquals(16, visaNumber.length());
+            assertEquals('4', visaNumber.charAt(0));
+            assertTrue(UniqueIdentities.isLuhnValid(visaNumber), visaNumber);
+            assertEquals(16, mastercardNumber.length());
+            assertTrue(mastercardNumber.charAt(1) >= '1' && mastercardNumber.charAt(1) <= '5', mastercardNumber);
+            assertTrue(mastercardNumber.startsWith("5"), mastercardNumber);
+            assertTrue(UniqueIdentities.isLuhnValid(mastercardNumber), mastercardNumber);
+
+            visa.add(visaNumber);
+            mastercard.add(mastercardNumber);
+        }
+        assertEquals(20_000, visa.size());
+        assertEquals(20_000, mastercard.size());
+    }
+
+    @Test
+    void identifiersDependOnlyOnSeedAndIndex() {
+        UniqueIdentities first = new UniqueIdentities(11);
+        UniqueIdentities again = new UniqueIdentities(11);
+        Set<String> emails = new HashSet<>();
+        for (long i = 0; i < 10_000; i++) {
+            assertEquals(first.customerId(i), again.customerId(i));
+            assertEquals(first.cardNumber(i, "VISA"), again.cardNumber(i, "VISA"));
+            // Same names for everyone: only the token keeps them apart
+            emails.add(first.email(i, "John", "Smith"));
+        }
+        assertEquals(10_000, emails.size());
+    }
+}
@@ -0,0 +1,95 @@
+package com.codedstream.transfraud.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BoundedLruCacheTest {
+
+    @Test
+    void loadsOnceAndServesHitsAfterwards() {
+        BoundedLruCache<String, String> cache = new BoundedLruCache<>(16, 4);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v-a", cache.get("a", key -> {
+            loads.incrementAndGet();
+            return "v-" + key;
+        }));
+        assertEquals("v-a", cache.get("a", key -> "reloaded"));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        // One segment so the order is global
+        BoundedLruCache<Integer, String> cache = new BoundedLruCache<>(3, 1);
+        cache.get(1, key -> "one");
+        cache.get(2, key -> "two");
+        cache.get(3, key -> "three");
+        cache.get(1, key -> "reloaded");
+        cache.get(4, key -> "four");
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertEquals("one", cache.get(1, key -> "reloaded"));
+        assertEquals("reloaded", cache.get(2, key -> "reloaded"));
+    }
+
+    @Test
+    void invalidatedEntryIsLoadedAgain() {
+        BoundedLruCache<String, String> cache = new BoundedLruCache<>(16, 4);
+        cache.get("a", key -> "old");
+        cache.invalidate("a");
+
+        assertEquals("new", cache.get("a", key -> "new"));
+        assertEquals("new", cache.get("a", key -> "unused"));
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsReturnedButNotCached() {
+        BoundedLruCache<String, String> cache = new BoundedLruCache<>(16, 4);
+
+        // The row is rewritten while the stale read is in flight
+        String loaded = cache.get("a", key -> {
+            cache.invalidate("a");
+            return "stale";
+        });
+
+        assertEquals("stale", loaded);
+        assertEquals(0, cache.size());
+        assertEquals("fresh", cache.get("a", key -> "fresh"));
+    }
+
+    @Test
+    void loadOverlappingAClearIsNotCached() {
+        BoundedLruCache<String, String> cache = new BoundedLruCache<>(16, 4);
+
+        cache.get("a", key -> {
+            cache.clear();
+            return "stale";
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void absentValuesAreNotCached() {
+        BoundedLruCache<String, String> cache = new BoundedLruCache<>(16, 4);
+
+        assertNull(cache.get("missing", key -> null));
+        assertEquals("found", cache.get("missing", key -> "found"));
+    }
+
+    @Test
+    void rejectsInvalidSegmentCounts() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedLruCache<String, String>(16, 3));
+        assertThrows(IllegalArgumentException.class, () -> new BoundedLruCache<String, String>(2, 4));
+    }
+}
@@ -0,0 +1,86 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.model.geo.GeoRegion;
+import com.codedstream.transfraud.model.population.CardProfile;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardBalanceLedgerTest {
+
+    private static final CardProfile CARD = new CardProfile("card-1", "customer-1", "VISA",
+            1_000.0, 1_000.0, 0.0, 0.0, GeoRegion.byOrdinal(0));
+
+    @Test
+    void declinesWhatTheBalanceDoesNotCover() {
+        CardBalanceLedger ledger = ledger("stored", 0.5);
+
+        assertTrue(ledger.authorize(CARD, 600.0));
+        assertFalse(ledger.authorize(CARD, 500.0));
+        assertTrue(ledger.authorize(CARD, 400.0));
+        assertEquals(0.0, ledger.getAvailableBalance("card-1"));
+    }
+
+    @Test
+    void retiredAccountCannotBeDebited() {
+        CardBalanceLedger.Account account = new CardBalanceLedger.Account("card-1", 100_000, 100_000);
+
+        assertTrue(account.retireIfSettled());
+        assertEquals(CardBalanceLedger.Account.RETIRED, account.debit(1));
+        account.credit(500);
+        assertEquals(CardBalanceLedger.Account.RETIRED, account.debit(1));
+    }
+
+    @Test
+    void accountInDebtIsNotRetired() {
+        CardBalanceLedger.Account account = new CardBalanceLedger.Account("card-1", 100_000, 100_000);
+
+        assertEquals(CardBalanceLedger.Account.DEBITED, account.debit(1));
+        assertFalse(account.retireIfSettled());
+        assertEquals(CardBalanceLedger.Account.DEBITED, account.debit(1));
+    }
+
+    @Test
+    void workerHoldingARetiredAccountStartsOverOnAFreshOne() {
+        CardBalanceLedger ledger = ledger("procedural", 1.0);
+        assertTrue(ledger.authorize(CARD, 100.0));
+        Map<String, CardBalanceLedger.Account> accounts = accounts(ledger);
+        CardBalanceLedger.Account stale = accounts.get("card-1");
+
+        // Fully repaid and dropped, as if between a worker's lookup and its debit
+        ledger.applyPayments();
+        assertNull(accounts.get("card-1"));
+        assertEquals(CardBalanceLedger.Account.RETIRED, stale.debit(1));
+        // Put the stale account back as a racing lookup would still see it
+        accounts.put("card-1", stale);
+
+        assertTrue(ledger.authorize(CARD, 950.0));
+        CardBalanceLedger.Account fresh = accounts.get("card-1");
+        assertNotSame(stale, fresh);
+        assertEquals(50.0, ledger.getAvailableBalance("card-1"));
+        assertFalse(ledger.authorize(CARD, 100.0));
+    }
+
+    private static CardBalanceLedger ledger(String mode, double paymentFraction) {
+        PopulationRegistry registry = new PopulationRegistry(null);
+        ReflectionTestUtils.setField(registry, "mode", mode);
+        CardBalanceLedger ledger = new CardBalanceLedger(null, registry);
+        ReflectionTestUtils.setField(ledger, "enabled", true);
+        ReflectionTestUtils.setField(ledger, "flushBatchSize", 1000);
+        ReflectionTestUtils.setField(ledger, "paymentFraction", paymentFraction);
+        ReflectionTestUtils.setField(ledger, "maxTrackedCards", 1000);
+        return ledger;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, CardBalanceLedger.Account> accounts(CardBalanceLedger ledger) {
+        return (Map<String, CardBalanceLedger.Account>) ReflectionTestUtils.getField(ledger, "accounts");
+    }
+}
@@ -0,0 +1,111 @@
+package com.codedstream.transfraud.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimerWheelTest {
+
+    @Test
+    void itemsExpireOnTheirDueTick() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(8);
+        wheel.schedule("a", 1);
+        wheel.schedule("b", 3);
+        wheel.schedule("c", 3);
+
+        assertEquals(Collections.singletonList("a"), advance(wheel));
+        assertEquals(Collections.emptyList(), advance(wheel));
+        assertEquals(Arrays.asList("b", "c"), advance(wheel));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void zeroAndNegativeDelaysWaitOneTick() {
+        HashedTimerWheel<String> wheel = new HashedTimerWheel<>(4);
+        wheel.schedule("now", 0);
+        wheel.schedule("past", -5);
+
+        assertEquals(Arrays.asList("now", "past"), advance(wheel));
+    }
+
+    @Test
+    void delaysBeyondOneRevolutionWaitTheirRounds() {
+        HashedTimerWheel<Integer> wheel = new HashedTimerWheel<>(8);
+        // 8, 16 and 17 share slots with earlier ticks but must not fire a revolution early
+        for (int delay : new int[]{8, 16, 17, 1, 9}) {
+            wheel.schedule(delay, delay);
+        }
+
+        Map<Integer, Integer> firedAt = new HashMap<>();
+        for (int tick = 1; tick <= 20; tick++) {
+            for (Integer item : advance(wheel)) {
+                firedAt.put(item, tick);
+            }
+        }
+        for (int delay : new int[]{8, 16, 17, 1, 9}) {
+            assertEquals(delay, firedAt.get(delay));
+        }
+    }
+
+    @Test
+    void randomSchedulesFireExactlyOnceAtTheirDueTick() {
+        HashedTimerWheel<long[]> wheel = new HashedTimerWheel<>(16);
+        Random random = new Random(1);
+        long tick = 0;
+        int scheduled = 0;
+        int fired = 0;
+        for (int step = 0; step < 2_000; step++) {
+            for (int i = random.nextInt(20); i > 0; i--) {
+                long delay = 1 + random.nextInt(100);
+                wheel.schedule(new long[]{tick + delay}, delay);
+                scheduled++;
+            }
+            tick++;
+            List<long[]> expired = new ArrayList<>();
+            wheel.advance(expired::add);
+            for (long[] due : expired) {
+                assertEquals(tick, due[0]);
+            }
+            fired += expired.size();
+            assertEquals(scheduled - fired, wheel.size());
+        }
+        assertTrue(fired > 0);
+    }
+
+    @Test
+    void drainHandsOverEverythingLeft() {
+        HashedTimerWheel<Integer> wheel = new HashedTimerWheel<>(4);
+        for (int i = 0; i < 300; i++) {
+            wheel.schedule(i, 1 + i % 10);
+        }
+        advance(wheel);
+
+        List<Integer> drained = new ArrayList<>();
+        wheel.drain(drained::add);
+
+        assertEquals(270, drained.size());
+        assertEquals(0, wheel.size());
+        assertEquals(Collections.emptyList(), advance(wheel));
+    }
+
+    @Test
+    void rejectsSizesThatAreNotPowersOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimerWheel<String>(6));
+    }
+
+    private static <T> List<T> advance(HashedTimerWheel<T> wheel) {
+        List<T> expired = new ArrayList<>();
+        wheel.advance(expired::add);
+        return expired;
+    }
+}
@@ -0,0 +1,110 @@
+package com.codedstream.transfraud.service;
+
+import com.codedstream.transfraud.mapper.AvroMapper;
+import com.codedstream.transfraud.model.entity.Card;
+import com.codedstream.transfraud.model.entity.Customer;
+import com.codedstream.transfraud.model.entity.Transaction;
+import com.codedstream.transfraud.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The test transaction binds one entity manager for the whole export, as open-in-view does for
+ * the streaming response thread.
+ */
+// schema.sql and data.sql are empty placeholders; the schema comes from the entities
+@DataJpaTest(properties = {"spring.sql.init.mode=never", "spring.jpa.show-sql=false"})
+class TransactionExportServiceTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int CARDS = 2;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void persistenceContextHoldsAtMostOnePage() throws IOException {
+        persistTransactions(45);
+        TransactionExportService exportService = new TransactionExportService(transactionRepository,
+                new AvroMapper(), new ObjectMapper().findAndRegisterModules(), entityManager);
+        ReflectionTestUtils.setField(exportService, "pageSize", PAGE_SIZE);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<Integer> managedAtFlush = new ArrayList<>();
+        // Each page is flushed once it has been written, before the next page is read
+        FilterOutputStream out = new FilterOutputStream(bytes) {
+            @Override
+            public void flush() throws IOException {
+                managedAtFlush.add(entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+                super.flush();
+            }
+        };
+
+        long written = exportService.export(null, null, null, null, TransactionExportService.Format.NDJSON, out);
+
+        assertEquals(45, written);
+        assertEquals(45, bytes.toString(StandardCharsets.UTF_8).split("\n").length);
+        assertTrue(managedAtFlush.size() >= 5, "flushes " + managedAtFlush);
+        for (int managed : managedAtFlush) {
+            // One page of transactions plus the cards and customer fetched with it
+            assertTrue(managed <= PAGE_SIZE + CARDS + 1, "managed entities per page " + managedAtFlush);
+        }
+    }
+
+    private void persistTransactions(int count) {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        Customer customer = Customer.builder()
+                .id("customer-1").firstName("Jane").lastName("Smith").email("jane@example.com")
+                .createdAt(now).build();
+        entityManager.persist(customer);
+        List<Card> cards = new ArrayList<>();
+        for (int c = 0; c < CARDS; c++) {
+            Card card = Card.builder()
+                    .id("card-" + c).cardNumber("411111111111111" + c).cardHolderName("Jane Smith")
+                    .expiryDate(LocalDate.of(2030, 1, 1)).cvv("123").cardType("VISA")
+                    .creditLimit(5000.0).availableBalance(5000.0).isActive(true).createdAt(now)
+                    .customer(customer).build();
+            entityManager.persist(card);
+            cards.add(card);
+        }
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(Transaction.builder()
+                    .id(String.format("tx-%04d", i)).amount(10.0 + i).currency("USD")
+                    .merchantId("merchant-" + i % 7).merchantName("Shop").merchantCategory("Retail")
+                    .transactionType("PURCHASE").isCardPresent(true).status("APPROVED")
+                    .transactionTimestamp(now.plusSeconds(i)).card(cards.get(i % CARDS)).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Configuration
+    @EntityScan(basePackageClasses = Transaction.class)
+    @EnableJpaRepositories(basePackageClasses = TransactionRepository.class)
+    static class JpaConfig {
+        // Only the JPA slice: the application class would pull in the whole generator
+    }
+}
@@ -0,0 +1,121 @@
+package com.codedstream.transfraud.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VelocityRuleEngineTest {
+
+    private static final long WINDOW = 600_000;
+
+    @Test
+    void ringGrowsSoEveryInWindowTransactionCounts() {
+        VelocityRuleEngine.CardWindow window = new VelocityRuleEngine.CardWindow(4, 64);
+        for (int i = 0; i < 40; i++) {
+            assertTrue(window.add(1_000 + i, 100.0, i, WINDOW));
+        }
+
+        assertEquals(40, window.size);
+        assertEquals(4_000.0, window.sum, 1e-9);
+        assertEquals(40, window.distinctMerchants());
+    }
+
+    @Test
+    void transactionsLeaveWithTheWindow() {
+        VelocityRuleEngine.CardWindow window = new VelocityRuleEngine.CardWindow(4, 64);
+        window.add(0, 10.0, 1, WINDOW);
+        window.add(1_000, 20.0, 2, WINDOW);
+        window.add(WINDOW + 500, 30.0, 1, WINDOW);
+
+        assertEquals(2, window.size);
+        assertEquals(50.0, window.sum, 1e-9);
+        assertEquals(2, window.distinctMerchants());
+    }
+
+    @Test
+    void beyondTheMaximumTheOldestInWindowEntriesAreDropped() {
+        VelocityRuleEngine.CardWindow window = new VelocityRuleEngine.CardWindow(4, 16);
+        for (int i = 0; i < 16; i++) {
+            assertTrue(window.add(i, 1.0, i, WINDOW));
+        }
+
+        assertFalse(window.add(16, 1.0, 16, WINDOW));
+        assertEquals(16, window.size);
+        assertEquals(16.0, window.sum, 1e-9);
+    }
+
+    @Test
+    void ringShrinksBackAfterABurst() {
+        VelocityRuleEngine.CardWindow window = new VelocityRuleEngine.CardWindow(4, 64);
+        for (int i = 0; i < 64; i++) {
+            window.add(i, 1.0, i, WINDOW);
+        }
+        assertEquals(64, window.timestamps.length);
+
+        // The burst has left the window: the ring is given back on the next add
+        window.add(WINDOW + 100, 5.0, 99, WINDOW);
+
+        assertEquals(1, window.size);
+        assertEquals(5.0, window.sum, 1e-9);
+        assertEquals(4, window.timestamps.length);
+        window.add(WINDOW + 200, 6.0, 98, WINDOW);
+        assertEquals(2, window.distinctMerchants());
+    }
+
+    @Test
+    void repeatedMerchantsCountOnceAndLeaveWithTheirLastEntry() {
+        VelocityRuleEngine.CardWindow window = new VelocityRuleEngine.CardWindow(4, 64);
+        window.add(0, 1.0, 7, WINDOW);
+        window.add(1, 1.0, 8, WINDOW);
+        window.add(2, 1.0, 7, WINDOW);
+        assertEquals(2, window.distinctMerchants());
+
+        // The first 7 and the 8 leave; the second 7 is still inside
+        window.add(WINDOW + 1, 1.0, 9, WINDOW);
+        assertEquals(2, window.distinctMerchants());
+        window.add(WINDOW + 2, 1.0, 9, WINDOW);
+        assertEquals(1, window.distinctMerchants());
+    }
+
+    @Test
+    void merchantsWithCollidingHashCodesStayDistinct() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        VelocityRuleEngine.CardWindow window = new VelocityRuleEngine.CardWindow(4, 64);
+        window.add(0, 1.0, VelocityRuleEngine.merchantKey("Aa"), WINDOW);
+        window.add(1, 1.0, VelocityRuleEngine.merchantKey("BB"), WINDOW);
+
+        assertEquals(2, window.distinctMerchants());
+        assertEquals(VelocityRuleEngine.merchantKey("MERCH-1"),
+                VelocityRuleEngine.merchantKey(new StringBuilder("MERCH-1")));
+    }
+
+    @Test
+    void merchantCountsMatchAReferenceMapUnderChurn() {
+        VelocityRuleEngine.MerchantCounts counts = new VelocityRuleEngine.MerchantCounts(64);
+        Map<Long, Integer> reference = new HashMap<>();
+        Deque<Long> live = new ArrayDeque<>();
+        Random random = new Random(5);
+        for (int step = 0; step < 200_000; step++) {
+            if (live.size() < 64 && (live.isEmpty() || random.nextBoolean())) {
+                // Few distinct keys so probe runs form, wrap and get shifted back on removal
+                long key = random.nextInt(40) * 0x100000000L;
+                counts.increment(key);
+                reference.merge(key, 1, Integer::sum);
+                live.addLast(key);
+            } else {
+                long key = live.pollFirst();
+                counts.decrement(key);
+                reference.computeIfPresent(key, (k, v) -> v == 1 ? null : v - 1);
+            }
+            assertEquals(reference.size(), counts.distinct);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.codedstream.transfraud.service.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void keyAddedBeforeIsReported() {
+        BloomFilter filter = new BloomFilter(1 << 16, 5, 4_000);
+
+        assertFalse(filter.put("tx-1".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(filter.put("tx-1".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(filter.put(7L, 42L));
+        assertTrue(filter.put(7L, 42L));
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheDesign() {
+        BloomFilter filter = new BloomFilter(1 << 16, 5, 4_000);
+        for (long i = 0; i < 4_000; i++) {
+            filter.put(1L, i);
+        }
+        int falsePositives = 0;
+        int probes = 10_000;
+        for (long i = 0; i < probes; i++) {
+            if (filter.put(2L, i)) {
+                falsePositives++;
+            }
+        }
+
+        // Probes rotate the generations too, so allow generous headroom over the design rate
+        assertTrue(falsePositives < probes * filter.designFalsePositiveRate() * 4 + 10,
+                "false positives: " + falsePositives);
+    }
+
+    @Test
+    void remembersAtLeastOneGenerationAfterRotation() {
+        BloomFilter filter = new BloomFilter(1 << 16, 5, 1_000);
+        for (long i = 0; i < 1_500; i++) {
+            filter.put(3L, i);
+        }
+
+        // Keys 1000..1499 are in the current generation, 0..999 in the previous one; re-adding
+        // the newest first keeps the re-added old ones below the next rotation
+        for (long i = 1_499; i >= 600; i--) {
+            assertTrue(filter.put(3L, i));
+        }
+    }
+
+    @Test
+    void rejectsSizeThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(1000, 3, 10));
+    }
+}
@@ -0,0 +1,110 @@
+package com.codedstream.transfraud.service.audit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SequenceWindowTest {
+
+    @Test
+    void interleavedPartitionsReadFromEarliestAreNeitherDuplicatesNorLost() {
+        // Three partitions, sequence numbers dealt round-robin, each partition consumed in chunks
+        // with the partition holding the highest numbers read first
+        int partitions = 3;
+        int perPartition = 2_000;
+        SequenceWindow window = null;
+        for (int chunk = 0; chunk < perPartition; chunk += 250) {
+            for (int partition = partitions - 1; partition >= 0; partition--) {
+                for (int i = chunk; i < chunk + 250; i++) {
+                    long sequence = (long) i * partitions + partition;
+                    if (window == null) {
+                        window = new SequenceWindow(1 << 12, sequence);
+                    }
+                    assertTrue(window.record(sequence));
+                }
+            }
+        }
+
+        assertEquals(partitions * perPartition, window.getReceived());
+        assertEquals(0, window.getDuplicates());
+        assertEquals(0, window.getLost());
+        assertEquals(0, window.countOutstanding());
+        assertEquals(0, window.getBelowWindow());
+    }
+
+    @Test
+    void interleavedPartitionsStayCleanAsTheWindowSlides() {
+        SequenceWindow window = new SequenceWindow(256, 2);
+        for (long i = 0; i < 10_000; i++) {
+            // Partition 2 runs up to 30 records ahead of partitions 0 and 1
+            window.record(i * 3 + 2);
+            if (i >= 30) {
+                window.record((i - 30) * 3);
+                window.record((i - 30) * 3 + 1);
+            }
+        }
+        for (long i = 10_000 - 30; i < 10_000; i++) {
+            window.record(i * 3);
+            window.record(i * 3 + 1);
+        }
+
+        assertEquals(30_000, window.getReceived());
+        assertEquals(0, window.getDuplicates());
+        assertEquals(0, window.getLost());
+        assertEquals(0, window.countOutstanding());
+    }
+
+    @Test
+    void repeatedSequenceIsADuplicate() {
+        SequenceWindow window = new SequenceWindow(128, 0);
+        window.record(0);
+        window.record(1);
+        window.record(1);
+
+        assertEquals(3, window.getReceived());
+        assertEquals(1, window.getDuplicates());
+    }
+
+    @Test
+    void gapIsOutstandingUntilItSlidesOutThenLost() {
+        SequenceWindow window = new SequenceWindow(128, 0);
+        for (long sequence = 0; sequence < 100; sequence++) {
+            if (sequence != 10) {
+                window.record(sequence);
+            }
+        }
+        assertEquals(1, window.countOutstanding());
+        assertEquals(0, window.getLost());
+
+        window.record(300);
+
+        // The window slides in whole words, to [192, 320): 10 and 100..191 are lost, 192..299 pending
+        assertEquals(1 + (192 - 100), window.getLost());
+        assertEquals(300 - 192, window.countOutstanding());
+        assertFalse(window.record(10));
+        assertTrue(window.isTracked(10));
+        window.recoverLate();
+        assertEquals(192 - 100, window.getLost());
+    }
+
+    @Test
+    void sequencesBelowTheFloorPredateTheAudit() {
+        SequenceWindow window = new SequenceWindow(128, 1_000);
+        for (long sequence = 1_000; sequence < 1_500; sequence++) {
+            window.record(sequence);
+        }
+
+        assertFalse(window.record(5));
+        assertFalse(window.isTracked(5));
+        assertEquals(0, window.getLost());
+        assertEquals(1, window.getBelowWindow());
+    }
+
+    @Test
+    void rejectsSizeThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new SequenceWindow(100, 0));
+    }
+}
@@ -0,0 +1,107 @@
+package com.codedstream.transfraud.service.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UlidTransactionIdGeneratorTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    @Test
+    void encodesAllOneHundredTwentyEightBits() {
+        assertEquals("00000000000000000000000000", UlidTransactionIdGenerator.encode(0L, 0L));
+        assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", UlidTransactionIdGenerator.encode(-1L, -1L));
+        // Lowest bit of high and highest bit of low share digit 13
+        assertEquals("0000000000000G000000000000", UlidTransactionIdGenerator.encode(1L, 0L));
+        assertEquals("00000000000008000000000000", UlidTransactionIdGenerator.encode(0L, Long.MIN_VALUE));
+        assertEquals("00000000000000000000000001", UlidTransactionIdGenerator.encode(0L, 1L));
+    }
+
+    @Test
+    void idsCarryTheTimeAndInstance() {
+        UlidTransactionIdGenerator generator = new UlidTransactionIdGenerator(0xBEEF);
+        long before = System.currentTimeMillis();
+        String id = generator.nextId();
+        long after = System.currentTimeMillis();
+
+        assertEquals(26, id.length());
+        for (char c : id.toCharArray()) {
+            assertTrue(ALPHABET.indexOf(c) >= 0, "not Crockford base32: " + c);
+        }
+        // The first 10 digits are exactly the 48-bit timestamp, the next 3 and a bit the instance id
+        long millis = decode(id.substring(0, 10));
+        assertTrue(millis >= before && millis <= after, "timestamp " + millis);
+        assertEquals(0xBEEF, decode(id.substring(10, 14)) >>> 4);
+    }
+
+    @Test
+    void idsFromOneThreadSortInCreationOrder() {
+        UlidTransactionIdGenerator generator = new UlidTransactionIdGenerator(3);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            ids.add(generator.nextId());
+        }
+
+        List<String> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        assertEquals(ids, sorted);
+        assertEquals(ids.size(), new HashSet<>(ids).size());
+    }
+
+    @Test
+    void slotsOfFinishedThreadsAreReusedWithoutRepeatingIds() throws InterruptedException {
+        // A frozen clock: every thread generates within the same millisecond
+        UlidTransactionIdGenerator generator = new UlidTransactionIdGenerator(1, () -> 1_700_000_000_000L);
+        Set<String> ids = Collections.synchronizedSet(new HashSet<>());
+        // More threads than slots, each finished before the next starts
+        int threads = 5_000;
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                ids.add(generator.nextId());
+                ids.add(generator.nextId());
+            });
+            thread.start();
+            thread.join();
+        }
+
+        assertEquals(2 * threads, ids.size());
+    }
+
+    @Test
+    void concurrentThreadsNeverCollide() throws InterruptedException {
+        UlidTransactionIdGenerator generator = new UlidTransactionIdGenerator(1);
+        Set<String> ids = Collections.synchronizedSet(new HashSet<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 20_000; j++) {
+                    ids.add(generator.nextId());
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(8 * 20_000, ids.size());
+    }
+
+    private static long decode(String digits) {
+        long value = 0;
+        for (char c : digits.toCharArray()) {
+            value = (value << 5) | ALPHABET.indexOf(c);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,85 @@
+package com.codedstream.transfraud.service.latency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void smallValuesHaveTheirOwnBucket() {
+        for (long micros = 0; micros < 128; micros++) {
+            assertEquals(micros, LatencyHistogram.bucketOf(micros));
+            assertEquals(micros, LatencyHistogram.upperBound((int) micros));
+        }
+    }
+
+    @Test
+    void bucketsAreContiguousAndBoundTheirValues() {
+        long previousBound = 127;
+        int previousBucket = 127;
+        // Every bucket boundary up to 2^20 us, plus powers of two and their neighbours beyond
+        for (long micros = 128; micros < 1 << 20; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            if (bucket != previousBucket) {
+                assertEquals(previousBucket + 1, bucket, "bucket skipped at " + micros);
+                assertEquals(previousBound + 1, micros, "gap before " + micros);
+                previousBucket = bucket;
+                previousBound = LatencyHistogram.upperBound(bucket);
+            }
+            assertTrue(micros <= previousBound, micros + " above its bucket's bound " + previousBound);
+        }
+        for (int exponent = 20; exponent < 40; exponent++) {
+            for (long micros : new long[]{(1L << exponent) - 1, 1L << exponent, (1L << exponent) + 1}) {
+                long bound = LatencyHistogram.upperBound(LatencyHistogram.bucketOf(micros));
+                assertTrue(bound >= micros);
+                assertTrue(bound - micros <= micros / 64, "bound " + bound + " too coarse for " + micros);
+            }
+        }
+    }
+
+    @Test
+    void percentilesStayWithinTheBucketResolution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 100_000; micros++) {
+            histogram.record(micros);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertWithin(50_000, histogram.percentile(50));
+        assertWithin(99_000, histogram.percentile(99));
+        assertWithin(99_900, histogram.percentile(99.9));
+        assertEquals(100_000, histogram.percentile(100));
+    }
+
+    @Test
+    void percentileNeverExceedsTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_001);
+
+        assertEquals(1_000_001, histogram.percentile(50));
+        assertEquals(1_000_001L, histogram.summary().get("maxMicros"));
+    }
+
+    @Test
+    void negativeLatenciesAreCountedApart() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-3);
+        histogram.record(10);
+
+        assertEquals(1, histogram.getCount());
+        assertEquals(1L, histogram.summary().get("negative"));
+        assertEquals(10, histogram.percentile(99));
+    }
+
+    @Test
+    void emptyHistogramReportsZero() {
+        assertEquals(0, new LatencyHistogram().percentile(99));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual - expected <= expected / 64,
+                "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,166 @@
+package com.codedstream.transfraud.service.spool;
+
+import com.codedstream.transfruad.library.schema.CardTransaction;
+import com.codedstream.transfruad.library.schema.TransactionType;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DiskSpoolTest {
+
+    private static final int SEGMENT_BYTES = 1 << 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysInOrderAcrossSegmentsAndRestarts() throws IOException {
+        DiskSpool spool = open();
+        int count = 0;
+        while (count < 2_000) {
+            assertTrue(spool.append(record(count++)));
+        }
+        DiskSpool.Batch first = spool.peek(700);
+        spool.commit(first);
+        spool.close();
+
+        DiskSpool reopened = open();
+        assertTrue(reopened.isActive());
+        assertEquals(count - 700L, reopened.getStats().get("pending"));
+        int expected = 700;
+        DiskSpool.Batch batch;
+        while (!(batch = reopened.peek(333)).getRecords().isEmpty()) {
+            for (ProducerRecord<String, CardTransaction> record : batch.getRecords()) {
+                assertEquals("tx-" + expected++, record.key());
+            }
+            reopened.commit(batch);
+        }
+        assertEquals(count, expected);
+        assertTrue(reopened.deactivateIfDrained());
+        assertFalse(reopened.isActive());
+    }
+
+    @Test
+    void keepsHeadersAndValue() throws IOException {
+        DiskSpool spool = open();
+        spool.append(record(42));
+
+        ProducerRecord<String, CardTransaction> replayed = spool.peek(1).getRecords().get(0);
+
+        assertEquals("transactions", replayed.topic());
+        assertEquals(42 * 1.5, replayed.value().getTransactionAmount());
+        assertArrayEquals(sequence(42), replayed.headers().lastHeader("generator-sequence").value());
+    }
+
+    @Test
+    void discardsTornTailEntryOnStartup() throws IOException {
+        DiskSpool spool = open();
+        for (int i = 0; i < 10; i++) {
+            spool.append(record(i));
+        }
+        spool.close();
+
+        // Corrupt the body of the last entry, as if the crash hit before its page was written
+        Path segment = directory.resolve(String.format("%020d.seg", 0));
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            int position = 0;
+            int lastEntry = 0;
+            int length;
+            while ((length = readInt(file, position)) > 0) {
+                lastEntry = position;
+                position += 8 + length;
+            }
+            file.seek(lastEntry + 8 + 2);
+            file.write(file.read() ^ 0xFF);
+        }
+
+        DiskSpool reopened = open();
+        assertEquals(9L, reopened.getStats().get("pending"));
+        reopened.append(record(10));
+        List<String> keys = reopened.peek(100).getRecords().stream()
+                .map(ProducerRecord::key).collect(Collectors.toList());
+
+        assertEquals(10, keys.size());
+        assertEquals("tx-8", keys.get(8));
+        assertEquals("tx-10", keys.get(9));
+    }
+
+    @Test
+    void resumesDirectSendsWhileBacklogRemains() throws IOException {
+        DiskSpool spool = open();
+        assertFalse(spool.appendIfActive(record(0)));
+        spool.append(record(1));
+        spool.append(record(2));
+        assertTrue(spool.appendIfActive(record(3)));
+
+        spool.commit(spool.peek(1));
+        spool.resumeDirectSends();
+
+        assertFalse(spool.isActive());
+        assertFalse(spool.appendIfActive(record(4)));
+        assertFalse(spool.deactivateIfDrained());
+        assertEquals(2L, spool.getStats().get("pending"));
+    }
+
+    @Test
+    void dropsRecordsBeyondMaxBytes() throws IOException {
+        DiskSpool spool = open();
+        int appended = 0;
+        while (spool.append(record(appended))) {
+            appended++;
+        }
+
+        assertTrue(appended > 0);
+        assertEquals(1L, spool.getStats().get("dropped"));
+    }
+
+    private DiskSpool open() throws IOException {
+        DiskSpool spool = new DiskSpool();
+        ReflectionTestUtils.setField(spool, "enabled", true);
+        ReflectionTestUtils.setField(spool, "path", directory.toString());
+        ReflectionTestUtils.setField(spool, "segmentBytes", SEGMENT_BYTES);
+        ReflectionTestUtils.setField(spool, "maxBytes", SEGMENT_BYTES * 8L);
+        spool.open();
+        return spool;
+    }
+
+    private static ProducerRecord<String, CardTransaction> record(int i) {
+        CardTransaction transaction = CardTransaction.newBuilder()
+                .setTransactionId("tx-" + i)
+                .setCardId("card")
+                .setCustomerId("customer")
+                .setTransactionTimestamp((long) i)
+                .setTransactionAmount(1.5 * i)
+                .setCurrency("USD")
+                .setMerchantId("merchant")
+                .setMerchantName("Merchant")
+                .setTransactionType(TransactionType.POS)
+                .setIsCardPresent(true)
+                .build();
+        ProducerRecord<String, CardTransaction> record = new ProducerRecord<>("transactions", "tx-" + i, transaction);
+        record.headers().add("generator-sequence", sequence(i));
+        return record;
+    }
+
+    private static byte[] sequence(long i) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(i).array();
+    }
+
+    private static int readInt(RandomAccessFile file, int position) throws IOException {
+        file.seek(position);
+        return file.readInt();
+    }
+}
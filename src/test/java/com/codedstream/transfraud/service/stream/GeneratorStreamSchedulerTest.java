@@ -0,0 +1,113 @@
+package com.codedstream.transfraud.service.stream;
+
+import com.codedstream.transfraud.config.GeneratorStreamProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeneratorStreamSchedulerTest {
+
+    private static final int BATCH = 100;
+
+    @Test
+    void spareCapacityIsSharedInProportionToWeights() {
+        GeneratorStreamScheduler scheduler = scheduler(
+                definition("light", 1, 0), definition("medium", 2, 0), definition("heavy", 5, 0));
+
+        Map<String, Integer> events = takeSpare(scheduler, 8_000);
+
+        assertEquals(100_000, events.get("light"));
+        assertEquals(200_000, events.get("medium"));
+        assertEquals(500_000, events.get("heavy"));
+    }
+
+    @Test
+    void streamAtItsCeilingLeavesSpareCapacityToTheOthers() {
+        long start = System.nanoTime();
+        GeneratorStreamScheduler scheduler = scheduler(definition("capped", 5, 1_000), definition("open", 1, 0));
+
+        Map<String, Integer> events = takeSpare(scheduler, 2_000);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        // The ceiling bucket starts empty and refills at 1000/s, whatever the weight
+        int capped = events.getOrDefault("capped", 0);
+        assertTrue(capped <= elapsedSeconds * 1_000 + BATCH, "capped took " + capped + " in " + elapsedSeconds + " s");
+        assertTrue(events.get("open") > 10 * capped, "open took only " + events.get("open"));
+    }
+
+    @Test
+    void guaranteedRateIsServedBeforeSpareCapacity() throws InterruptedException {
+        GeneratorStreamScheduler scheduler = scheduler(definition("best-effort", 10, 0),
+                guaranteed(definition("guaranteed", 1, 0), 1_000_000));
+        Thread.sleep(10);
+
+        Object assignment = ReflectionTestUtils.invokeMethod(scheduler, "nextGuaranteed", BATCH);
+        GeneratorStream stream = (GeneratorStream) ReflectionTestUtils.getField(assignment, "stream");
+
+        assertEquals("guaranteed", stream.getName());
+        assertEquals(BATCH, ReflectionTestUtils.getField(assignment, "count"));
+        assertTrue((Boolean) ReflectionTestUtils.getField(assignment, "fromGuarantee"));
+    }
+
+    @Test
+    void streamWithoutGuaranteeIsNeverOwedEvents() {
+        GeneratorStreamScheduler scheduler = scheduler(definition("best-effort", 1, 0));
+
+        assertNull(ReflectionTestUtils.invokeMethod(scheduler, "nextGuaranteed", BATCH));
+    }
+
+    @Test
+    void rejectsInvalidDefinitions() {
+        assertThrows(IllegalArgumentException.class,
+                () -> scheduler(definition("same", 1, 0), definition("same", 1, 0)));
+        assertThrows(IllegalArgumentException.class, () -> scheduler(definition("zero", 0, 0)));
+        GeneratorStreamProperties.Definition belowGuarantee = guaranteed(definition("below", 1, 10), 20);
+        assertThrows(IllegalArgumentException.class, () -> scheduler(belowGuarantee));
+    }
+
+    private static Map<String, Integer> takeSpare(GeneratorStreamScheduler scheduler, int decisions) {
+        Map<String, Integer> events = new LinkedHashMap<>();
+        for (int i = 0; i < decisions; i++) {
+            Object assignment = ReflectionTestUtils.invokeMethod(scheduler, "nextSpare", BATCH);
+            assertFalse(assignment == null, "no stream had spare credit");
+            GeneratorStream stream = (GeneratorStream) ReflectionTestUtils.getField(assignment, "stream");
+            events.merge(stream.getName(), (Integer) ReflectionTestUtils.getField(assignment, "count"), Integer::sum);
+        }
+        return events;
+    }
+
+    private static GeneratorStreamScheduler scheduler(GeneratorStreamProperties.Definition... definitions) {
+        GeneratorStreamProperties properties = new GeneratorStreamProperties();
+        properties.setEnabled(true);
+        properties.setBatchSize(BATCH);
+        for (GeneratorStreamProperties.Definition definition : definitions) {
+            properties.getDefinitions().add(definition);
+        }
+        GeneratorStreamScheduler scheduler = new GeneratorStreamScheduler(properties, null, null);
+        scheduler.buildStreams();
+        return scheduler;
+    }
+
+    private static GeneratorStreamProperties.Definition definition(String name, int weight, double maxEventsPerSecond) {
+        GeneratorStreamProperties.Definition definition = new GeneratorStreamProperties.Definition();
+        definition.setName(name);
+        definition.setTopic(name + "-transactions");
+        definition.setWeight(weight);
+        definition.setMaxEventsPerSecond(maxEventsPerSecond);
+        return definition;
+    }
+
+    private static GeneratorStreamProperties.Definition guaranteed(GeneratorStreamProperties.Definition definition,
+                                                                   double eventsPerSecond) {
+        definition.setEventsPerSecond(eventsPerSecond);
+        return definition;
+    }
+}
@@ -0,0 +1,71 @@
+package com.codedstream.transfraud.service.stream;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void startsEmpty() {
+        TokenBucket bucket = new TokenBucket(1, 1, 10);
+
+        assertEquals(0, bucket.tryAcquire(10));
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() throws InterruptedException {
+        long start = System.nanoTime();
+        // 100k per second, with a burst far larger than the test can fill
+        TokenBucket bucket = new TokenBucket(100_000, 10, 1);
+        Thread.sleep(50);
+        int granted = bucket.tryAcquire(Integer.MAX_VALUE);
+        long elapsedNanos = System.nanoTime() - start;
+        int left = bucket.tryAcquire(Integer.MAX_VALUE);
+
+        assertTrue(granted >= 4_999, "granted only " + granted);
+        assertTrue(granted <= elapsedNanos / 10_000 + 1, "granted " + granted + " in " + elapsedNanos + " ns");
+        assertTrue(left < 1_000, left + " tokens left after draining");
+    }
+
+    @Test
+    void unusedRateIsBankedUpToOneBurst() throws InterruptedException {
+        // A million per second with a one millisecond burst: full within a few milliseconds
+        TokenBucket bucket = new TokenBucket(1_000_000, 0.001, 1);
+        Thread.sleep(10);
+
+        assertEquals(1_000, bucket.tryAcquire(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void minimumCapacityAllowsOneWholeBatch() throws InterruptedException {
+        // 1000/s over a 1 ms burst would bank a single token; the minimum keeps a batch of 100
+        TokenBucket bucket = new TokenBucket(1_000, 0.001, 100);
+        Thread.sleep(150);
+
+        assertEquals(100, bucket.tryAcquire(500));
+    }
+
+    @Test
+    void chargedDebtIsBoundedByOneBurst() throws InterruptedException {
+        // A million per second with a 10 ms burst
+        TokenBucket bucket = new TokenBucket(1_000_000, 0.01, 1);
+        Thread.sleep(20);
+        bucket.charge(50_000);
+
+        assertEquals(0, bucket.tryAcquire(1));
+        // From -10k back to a full 10k takes 20 ms; unbounded debt of -40k would need 50 ms
+        Thread.sleep(30);
+        assertEquals(10_000, bucket.tryAcquire(Integer.MAX_VALUE));
+    }
+
+    @Test
+    void loweringTheRateTrimsTheBankedTokens() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1_000_000, 0.001, 1);
+        Thread.sleep(10);
+        bucket.setRate(100_000, 0.001, 1);
+
+        assertEquals(100, bucket.tryAcquire(Integer.MAX_VALUE));
+    }
+}